@@ -0,0 +1,24 @@
+package com.utilities.calculator;
+
+/**
+ * Unit of the angles taken by sin, cos and tan and returned by their inverses
+ */
+public enum AngleMode {
+    RADIAN("Radian"),
+    DEGREE("Degree");
+    
+    private final String displayName;
+    
+    AngleMode(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
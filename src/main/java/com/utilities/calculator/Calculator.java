@@ -0,0 +1,269 @@
+package com.utilities.calculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculator service behind the TI-84 tab
+ * Expressions are parsed once into a tree and compiled to flat postfix code
+ * ({@link CompiledExpression}), which table generation and parameter sweeps then
+ * evaluate for each set of variable values without parsing again. Graphs and tables
+ * use compileFunction, whose results evaluate whole arrays of X values at once.
+ * Compiled expressions, optimized form included, are cached by expression text,
+ * variables and angle mode, so re-entering an expression or re-running a sweep skips
+ * parsing and optimization.
+ *
+ * Home screen evaluation keeps TI-84 style memory: Ans holds the last result and
+ * "expression->A" (or the STO arrow) stores a result in a variable. Entries can also
+ * be evaluated in BigDecimal at a chosen precision; those results are stored exactly
+ * as well as in double, so later precise entries see every digit.
+ */
+public class Calculator {
+    
+    /** Variable holding the last home screen result */
+    public static final String ANSWER = "Ans";
+    /** Input variable of graphed and tabulated functions */
+    public static final String FUNCTION_VARIABLE = "X";
+    
+    private static final String[] STORE_ARROWS = {"\u2192", "->"};
+    // Compiled expressions kept; least recently used ones are dropped beyond this
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+    
+    private final Map<String, Double> memory = new LinkedHashMap<>();
+    // Exact values of variables last set by a precise evaluation
+    private final Map<String, BigDecimal> decimals = new HashMap<>();
+    private volatile AngleMode angleMode = AngleMode.RADIAN;
+    // Guarded by itself
+    private final LinkedHashMap<String, CompiledExpression> compiled =
+            new LinkedHashMap<String, CompiledExpression>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                    return size() > MAX_CACHED_EXPRESSIONS;
+                }
+            };
+    
+    public Calculator() {
+        memory.put(ANSWER, 0.0);
+    }
+    
+    /**
+     * Compile an expression for repeated evaluation
+     * @param expression Expression text, e.g. "3x^2 - 2sin(x) + a"
+     * @param variables Variable names, in the order their values are passed to evaluate
+     * @return The compiled expression, using the current angle mode
+     * @throws ExpressionException If the expression is invalid or uses an undeclared name
+     * @throws IllegalArgumentException If a variable name is declared twice
+     */
+    public CompiledExpression compile(String expression, String... variables) {
+        AngleMode mode = angleMode;
+        String key = mode + "\0" + String.join("\0", variables) + "\0\0" + expression;
+        CompiledExpression result = cached(key);
+        if (result != null) {
+            return result;
+        }
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            if (slots.put(variables[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate variable: " + variables[i]);
+            }
+        }
+        Node root = new ExpressionParser(expression, slots, mode).parse();
+        return cache(key, new CompiledExpression(expression, Arrays.asList(variables), root));
+    }
+    
+    /**
+     * Compile a Y= function of X for graphs and tables; X may also be written lowercase
+     * @param expression Function body, e.g. "X^2 - 3sin(X)"
+     * @return The compiled function, with X as its only variable
+     * @throws ExpressionException If the expression is invalid or uses another variable
+     */
+    public CompiledExpression compileFunction(String expression) {
+        AngleMode mode = angleMode;
+        // Distinct from compile(expression, "X"), which does not accept lowercase x
+        String key = mode + "\0Y=\0" + expression;
+        CompiledExpression result = cached(key);
+        if (result != null) {
+            return result;
+        }
+        Map<String, Integer> slots = new HashMap<>();
+        slots.put(FUNCTION_VARIABLE, 0);
+        slots.put(FUNCTION_VARIABLE.toLowerCase(), 0);
+        Node root = new ExpressionParser(expression, slots, mode).parse();
+        return cache(key, new CompiledExpression(expression, Collections.singletonList(FUNCTION_VARIABLE), root));
+    }
+    
+    private CompiledExpression cached(String key) {
+        synchronized (compiled) {
+            return compiled.get(key);
+        }
+    }
+    
+    private CompiledExpression cache(String key, CompiledExpression expression) {
+        synchronized (compiled) {
+            compiled.put(key, expression);
+        }
+        return expression;
+    }
+    
+    /**
+     * Evaluate a home screen entry against the stored variables and update Ans
+     * @param entry Expression, optionally followed by "->name" to store the result
+     * @return The result
+     * @throws ExpressionException If the expression is invalid or uses an undefined variable
+     */
+    public synchronized double evaluate(String entry) {
+        int arrow = findStoreArrow(entry);
+        String target = arrow < 0 ? null : storeTarget(entry, arrow);
+        
+        List<String> names = new ArrayList<>(memory.keySet());
+        double[] values = new double[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = memory.get(names.get(i));
+        }
+        double result = compile(arrow < 0 ? entry : entry.substring(0, arrow), names.toArray(new String[0]))
+                .evaluate(values);
+        
+        put(ANSWER, result, null);
+        if (target != null) {
+            put(target, result, null);
+        }
+        return result;
+    }
+    
+    /**
+     * Evaluate a home screen entry in high precision and update Ans
+     * Number literals and stored results of earlier precise entries are used exactly;
+     * values stored as doubles are used as their shortest decimal form.
+     * @param entry Expression, optionally followed by "->name" to store the result
+     * @param context Precision and rounding of the result
+     * @return The result
+     * @throws ExpressionException If the expression is invalid or uses an undefined variable
+     * @throws ArithmeticException On a domain error, such as ln(-1), division by zero or overflow
+     * @throws IllegalArgumentException If the precision is unlimited (0)
+     */
+    public synchronized BigDecimal evaluate(String entry, MathContext context) {
+        if (context.getPrecision() < 1) {
+            throw new IllegalArgumentException("Precision must be at least 1 digit: " + context.getPrecision());
+        }
+        int arrow = findStoreArrow(entry);
+        String target = arrow < 0 ? null : storeTarget(entry, arrow);
+        
+        List<String> names = new ArrayList<>(memory.keySet());
+        BigDecimal[] values = new BigDecimal[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            // A NaN or infinite double has no decimal form; it only fails if it is used
+            double value = memory.get(names.get(i));
+            values[i] = Double.isFinite(value) ? recallDecimal(names.get(i)) : null;
+        }
+        BigDecimal result = compile(arrow < 0 ? entry : entry.substring(0, arrow), names.toArray(new String[0]))
+                .evaluate(values, context);
+        
+        put(ANSWER, result.doubleValue(), result);
+        if (target != null) {
+            put(target, result.doubleValue(), result);
+        }
+        return result;
+    }
+    
+    private static int findStoreArrow(String entry) {
+        for (String arrow : STORE_ARROWS) {
+            int index = entry.lastIndexOf(arrow);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+    
+    private static String storeTarget(String entry, int arrow) {
+        int length = entry.startsWith("->", arrow) ? 2 : 1;
+        String target = entry.substring(arrow + length).trim();
+        if (!isValidName(target)) {
+            throw new ExpressionException("Invalid variable name '" + target + "'", arrow);
+        }
+        return target;
+    }
+    
+    private void put(String name, double value, BigDecimal exact) {
+        memory.put(name, value);
+        if (exact == null) {
+            decimals.remove(name);
+        } else {
+            decimals.put(name, exact);
+        }
+    }
+    
+    /**
+     * Store a value in a variable for home screen entries
+     * @param name Variable name
+     * @param value The value
+     * @throws IllegalArgumentException If the name is not a valid variable name
+     */
+    public synchronized void store(String name, double value) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid variable name: " + name);
+        }
+        put(name, value, null);
+    }
+    
+    /**
+     * Get a stored variable
+     * @param name Variable name
+     * @return The value, or 0 if nothing is stored, as on the calculator
+     */
+    public synchronized double recall(String name) {
+        return memory.getOrDefault(name, 0.0);
+    }
+    
+    /**
+     * Get a stored variable as a decimal
+     * @param name Variable name
+     * @return The exact result if a precise evaluation stored it, otherwise the stored
+     *         double in its shortest decimal form; 0 if nothing is stored
+     * @throws NumberFormatException If the stored double is NaN or infinite
+     */
+    public synchronized BigDecimal recallDecimal(String name) {
+        BigDecimal exact = decimals.get(name);
+        return exact != null ? exact : BigDecimal.valueOf(recall(name));
+    }
+    
+    /**
+     * Clear all stored variables, including Ans
+     */
+    public synchronized void clearMemory() {
+        memory.clear();
+        decimals.clear();
+        memory.put(ANSWER, 0.0);
+    }
+    
+    public AngleMode getAngleMode() {
+        return angleMode;
+    }
+    
+    /**
+     * Set the angle unit for expressions compiled from now on
+     * @param angleMode The angle unit
+     */
+    public void setAngleMode(AngleMode angleMode) {
+        this.angleMode = angleMode;
+    }
+    
+    private static boolean isValidName(String name) {
+        if (name.isEmpty() || !Character.isLetter(name.charAt(0)) || Op.function(name) != null) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isLetterOrDigit(name.charAt(i)) && name.charAt(i) != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,816 @@
+package com.utilities.calculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Expression compiled to flat postfix code, ready to evaluate many times
+ * The parse tree is walked once into parallel arrays: the operation of each
+ * instruction, the constant it pushes and the variable slot it loads. Evaluation is
+ * a single loop over those arrays on a small operand stack, with no tree walking,
+ * boxing or allocation, so table generation and parameter sweeps pay only for the
+ * arithmetic. Angle mode is fixed when the expression is compiled.
+ *
+ * The tree is optimized first ({@link ExpressionOptimizer}). A subtree that occurs more
+ * than once is computed at its first occurrence, saved to a temporary kept after the
+ * operand stack, and loaded at the others.
+ *
+ * High-precision evaluation runs code compiled on first use from the same tree with
+ * only exact constant folding, with number literals taken exactly as written and
+ * elementary functions computed by a BigMath instance shared per precision.
+ *
+ * Batch evaluation runs the same code a block of inputs at a time: each instruction
+ * is dispatched once per block and applied in a tight loop over a column of the
+ * stack, which the JIT can unroll and vectorize. Large batches are split across the
+ * common fork-join pool.
+ *
+ * Instances are immutable and may be shared between threads; each thread evaluating
+ * concurrently needs its own stack from {@link #newStack()}.
+ */
+public final class CompiledExpression {
+    
+    /** Batch evaluations of at least this many inputs run on the common fork-join pool */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+    // Inputs per fork-join leaf; large enough to amortize task overhead
+    private static final int TASK_SIZE = 1 << 12;
+    // Inputs per block; keeps the whole block stack in L1/L2 cache
+    private static final int BLOCK_SIZE = 256;
+    
+    private final String expression;
+    private final List<String> variables;
+    private final Node root;
+    private final Program program;
+    // Compiled on the first high-precision evaluation
+    private volatile Program exactProgram;
+    
+    CompiledExpression(String expression, List<String> variables, Node root) {
+        this.expression = expression;
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+        this.root = root;
+        this.program = new Program(ExpressionOptimizer.optimize(root));
+    }
+    
+    /**
+     * Postfix code for one tree, as parallel arrays indexed by instruction
+     */
+    private static final class Program {
+        
+        final Op[] code;
+        final double[] constants;
+        final BigDecimal[] decimals;
+        // Variable slot, or temporary index for SAVE and LOAD
+        final int[] slots;
+        final int stackSize;
+        final int temporaries;
+        
+        Program(Node root) {
+            Map<Node, Integer> uses = new HashMap<>();
+            countUses(root, uses);
+            List<Node> postfix = new ArrayList<>();
+            Map<Node, Integer> saved = new HashMap<>();
+            flatten(root, uses, saved, postfix);
+            
+            code = new Op[postfix.size()];
+            constants = new double[postfix.size()];
+            decimals = new BigDecimal[postfix.size()];
+            slots = new int[postfix.size()];
+            int depth = 0;
+            int maxDepth = 0;
+            for (int pc = 0; pc < code.length; pc++) {
+                Node node = postfix.get(pc);
+                code[pc] = node.getOp();
+                constants[pc] = node.getValue();
+                decimals[pc] = node.getDecimal();
+                slots[pc] = node.getSlot();
+                // Each instruction pops its operands and pushes one result
+                depth += 1 - node.getOp().getArity();
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            stackSize = maxDepth;
+            temporaries = saved.size();
+        }
+        
+        // Counts occurrences in evaluation order; repeats are loaded, so their insides are not counted
+        private static void countUses(Node node, Map<Node, Integer> uses) {
+            // Leaves are as cheap to push as to load
+            if (node.getChildCount() == 0 || uses.merge(node, 1, Integer::sum) > 1) {
+                return;
+            }
+            for (int i = 0; i < node.getChildCount(); i++) {
+                countUses(node.getChild(i), uses);
+            }
+        }
+        
+        private static void flatten(Node node, Map<Node, Integer> uses, Map<Node, Integer> saved,
+                                    List<Node> postfix) {
+            Integer temporary = saved.get(node);
+            if (temporary != null) {
+                postfix.add(Node.temporary(Op.LOAD, temporary));
+                return;
+            }
+            for (int i = 0; i < node.getChildCount(); i++) {
+                flatten(node.getChild(i), uses, saved, postfix);
+            }
+            postfix.add(node);
+            if (node.getChildCount() > 0 && uses.get(node) > 1) {
+                saved.put(node, saved.size());
+                postfix.add(Node.temporary(Op.SAVE, saved.size() - 1));
+            }
+        }
+    }
+    
+    /**
+     * Evaluate a tree with no variables, as the optimizer does to fold constants
+     */
+    static double fold(Node node) {
+        Program program = new Program(node);
+        return run(program, new double[0], new double[program.stackSize + program.temporaries]);
+    }
+    
+    /**
+     * Evaluate with the given variable values
+     * Allocates a stack on every call; loops should use {@link #evaluate(double[], double[])}.
+     * @param values Value of each variable, in the order they were declared
+     * @return The result
+     * @throws IllegalArgumentException If the number of values does not match the variables
+     */
+    public double evaluate(double... values) {
+        return evaluate(values, newStack());
+    }
+    
+    /**
+     * Evaluate with the given variable values, using a caller-owned stack
+     * @param values Value of each variable, in the order they were declared; may be
+     *               updated in place between calls
+     * @param stack Scratch space from {@link #newStack()}, not shared between threads
+     * @return The result
+     * @throws IllegalArgumentException If the number of values does not match the variables
+     */
+    public double evaluate(double[] values, double[] stack) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable value(s), got "
+                    + values.length);
+        }
+        Program program = this.program;
+        if (stack.length < program.stackSize + program.temporaries) {
+            throw new IllegalArgumentException("Stack too small: " + stack.length + " < "
+                    + (program.stackSize + program.temporaries));
+        }
+        return run(program, values, stack);
+    }
+    
+    private static double run(Program program, double[] values, double[] stack) {
+        Op[] code = program.code;
+        double[] constants = program.constants;
+        int[] slots = program.slots;
+        // Temporaries follow the operand stack
+        int base = program.stackSize;
+        int sp = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case CONST:
+                    stack[++sp] = constants[pc];
+                    break;
+                case VAR:
+                    stack[++sp] = values[slots[pc]];
+                    break;
+                case SAVE:
+                    stack[base + slots[pc]] = stack[sp];
+                    break;
+                case LOAD:
+                    stack[++sp] = stack[base + slots[pc]];
+                    break;
+                case PI:
+                    stack[++sp] = Math.PI;
+                    break;
+                case E:
+                    stack[++sp] = Math.E;
+                    break;
+                case NEG:
+                    stack[sp] = -stack[sp];
+                    break;
+                case DEG_TO_RAD:
+                    stack[sp] = Math.toRadians(stack[sp]);
+                    break;
+                case RAD_TO_DEG:
+                    stack[sp] = Math.toDegrees(stack[sp]);
+                    break;
+                case FACTORIAL:
+                    stack[sp] = Op.factorial(stack[sp]);
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp] += stack[sp + 1];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp] -= stack[sp + 1];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp] *= stack[sp + 1];
+                    break;
+                case DIV:
+                    sp--;
+                    stack[sp] /= stack[sp + 1];
+                    break;
+                case POW:
+                    sp--;
+                    stack[sp] = Math.pow(stack[sp], stack[sp + 1]);
+                    break;
+                case SIN:
+                    stack[sp] = Math.sin(stack[sp]);
+                    break;
+                case COS:
+                    stack[sp] = Math.cos(stack[sp]);
+                    break;
+                case TAN:
+                    stack[sp] = Math.tan(stack[sp]);
+                    break;
+                case ASIN:
+                    stack[sp] = Math.asin(stack[sp]);
+                    break;
+                case ACOS:
+                    stack[sp] = Math.acos(stack[sp]);
+                    break;
+                case ATAN:
+                    stack[sp] = Math.atan(stack[sp]);
+                    break;
+                case SINH:
+                    stack[sp] = Math.sinh(stack[sp]);
+                    break;
+                case COSH:
+                    stack[sp] = Math.cosh(stack[sp]);
+                    break;
+                case TANH:
+                    stack[sp] = Math.tanh(stack[sp]);
+                    break;
+                case LN:
+                    stack[sp] = Math.log(stack[sp]);
+                    break;
+                case LOG:
+                    stack[sp] = Math.log10(stack[sp]);
+                    break;
+                case EXP:
+                    stack[sp] = Math.exp(stack[sp]);
+                    break;
+                case SQRT:
+                    stack[sp] = Math.sqrt(stack[sp]);
+                    break;
+                case CBRT:
+                    stack[sp] = Math.cbrt(stack[sp]);
+                    break;
+                case ABS:
+                    stack[sp] = Math.abs(stack[sp]);
+                    break;
+                case INT:
+                    stack[sp] = Math.floor(stack[sp]);
+                    break;
+                case CEIL:
+                    stack[sp] = Math.ceil(stack[sp]);
+                    break;
+                case ROUND:
+                    // Halves round away from zero
+                    stack[sp] = Math.copySign(Math.floor(Math.abs(stack[sp]) + 0.5), stack[sp]);
+                    break;
+                case MIN:
+                    sp--;
+                    stack[sp] = Math.min(stack[sp], stack[sp + 1]);
+                    break;
+                case MAX:
+                    sp--;
+                    stack[sp] = Math.max(stack[sp], stack[sp + 1]);
+                    break;
+                case MOD:
+                    sp--;
+                    stack[sp] %= stack[sp + 1];
+                    break;
+                case NCR:
+                    sp--;
+                    stack[sp] = Op.combinations(stack[sp], stack[sp + 1]);
+                    break;
+                case NPR:
+                    sp--;
+                    stack[sp] = Op.permutations(stack[sp], stack[sp + 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + code[pc]);
+            }
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Evaluate in high precision
+     * Number literals are used exactly as written; every operation is carried out with
+     * guard digits and only the result is rounded to the context.
+     * @param values Value of each variable, in the order they were declared; null for
+     *               one that has no decimal value, which fails only if it is used
+     * @param context Precision and rounding of the result; the precision must be at least 1
+     * @return The result
+     * @throws ArithmeticException On a domain error, such as ln(-1), division by zero or overflow
+     * @throws IllegalArgumentException If the number of values does not match the variables,
+     *                                  or the precision is unlimited (0)
+     */
+    public BigDecimal evaluate(BigDecimal[] values, MathContext context) {
+        if (context.getPrecision() < 1) {
+            throw new IllegalArgumentException("Precision must be at least 1 digit: " + context.getPrecision());
+        }
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable value(s), got "
+                    + values.length);
+        }
+        Program program = exactProgram;
+        if (program == null) {
+            program = new Program(ExpressionOptimizer.optimizeExact(root));
+            exactProgram = program;
+        }
+        Op[] code = program.code;
+        double[] constants = program.constants;
+        BigDecimal[] decimals = program.decimals;
+        int[] slots = program.slots;
+        int base = program.stackSize;
+        
+        BigMath math = BigMath.forPrecision(context.getPrecision());
+        MathContext working = math.getContext();
+        BigDecimal[] stack = new BigDecimal[program.stackSize + program.temporaries];
+        int sp = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            BigDecimal b;
+            switch (code[pc]) {
+                case CONST:
+                    if (decimals[pc] == null) {
+                        throw new ArithmeticException("Not a number: " + constants[pc]);
+                    }
+                    stack[++sp] = decimals[pc];
+                    break;
+                case VAR:
+                    if (values[slots[pc]] == null) {
+                        throw new ArithmeticException("No value for " + variables.get(slots[pc]));
+                    }
+                    stack[++sp] = values[slots[pc]];
+                    break;
+                case SAVE:
+                    stack[base + slots[pc]] = stack[sp];
+                    break;
+                case LOAD:
+                    stack[++sp] = stack[base + slots[pc]];
+                    break;
+                case PI:
+                    stack[++sp] = math.pi();
+                    break;
+                case E:
+                    stack[++sp] = math.e();
+                    break;
+                case NEG:
+                    stack[sp] = stack[sp].negate();
+                    break;
+                case DEG_TO_RAD:
+                    stack[sp] = math.toRadians(stack[sp]);
+                    break;
+                case RAD_TO_DEG:
+                    stack[sp] = math.toDegrees(stack[sp]);
+                    break;
+                case FACTORIAL:
+                    stack[sp] = math.factorial(stack[sp]);
+                    break;
+                case ADD:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].add(b, working);
+                    break;
+                case SUB:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].subtract(b, working);
+                    break;
+                case MUL:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].multiply(b, working);
+                    break;
+                case DIV:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].divide(b, working);
+                    break;
+                case POW:
+                    b = stack[sp--];
+                    stack[sp] = math.pow(stack[sp], b);
+                    break;
+                case SIN:
+                    stack[sp] = math.sin(stack[sp]);
+                    break;
+                case COS:
+                    stack[sp] = math.cos(stack[sp]);
+                    break;
+                case TAN:
+                    stack[sp] = math.tan(stack[sp]);
+                    break;
+                case ASIN:
+                    stack[sp] = math.asin(stack[sp]);
+                    break;
+                case ACOS:
+                    stack[sp] = math.acos(stack[sp]);
+                    break;
+                case ATAN:
+                    stack[sp] = math.atan(stack[sp]);
+                    break;
+                case SINH:
+                    stack[sp] = math.sinh(stack[sp]);
+                    break;
+                case COSH:
+                    stack[sp] = math.cosh(stack[sp]);
+                    break;
+                case TANH:
+                    stack[sp] = math.tanh(stack[sp]);
+                    break;
+                case LN:
+                    stack[sp] = math.ln(stack[sp]);
+                    break;
+                case LOG:
+                    stack[sp] = math.log10(stack[sp]);
+                    break;
+                case EXP:
+                    stack[sp] = math.exp(stack[sp]);
+                    break;
+                case SQRT:
+                    stack[sp] = math.sqrt(stack[sp]);
+                    break;
+                case CBRT:
+                    stack[sp] = math.cbrt(stack[sp]);
+                    break;
+                case ABS:
+                    stack[sp] = stack[sp].abs();
+                    break;
+                case INT:
+                    stack[sp] = stack[sp].setScale(0, RoundingMode.FLOOR);
+                    break;
+                case CEIL:
+                    stack[sp] = stack[sp].setScale(0, RoundingMode.CEILING);
+                    break;
+                case ROUND:
+                    stack[sp] = stack[sp].setScale(0, RoundingMode.HALF_UP);
+                    break;
+                case MIN:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].min(b);
+                    break;
+                case MAX:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].max(b);
+                    break;
+                case MOD:
+                    b = stack[sp--];
+                    stack[sp] = stack[sp].remainder(b, working);
+                    break;
+                case NCR:
+                    b = stack[sp--];
+                    stack[sp] = math.combinations(stack[sp], b);
+                    break;
+                case NPR:
+                    b = stack[sp--];
+                    stack[sp] = math.permutations(stack[sp], b);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + code[pc]);
+            }
+        }
+        return stack[0].round(context);
+    }
+    
+    /**
+     * Evaluate a one-variable expression for every input
+     * @param inputs Values of the variable
+     * @param outputs Array receiving the results, at least as long as the inputs
+     * @throws IllegalArgumentException If the expression does not have exactly one variable
+     */
+    public void evaluateAll(double[] inputs, double[] outputs) {
+        if (variables.size() != 1) {
+            throw new IllegalArgumentException("Expected a single variable, found " + variables);
+        }
+        evaluateAll(0, new double[1], inputs, 0, outputs, 0, inputs.length);
+    }
+    
+    /**
+     * Evaluate for a range of values of one variable, holding the others fixed
+     * Ranges of at least PARALLEL_THRESHOLD inputs are split across the common fork-join pool.
+     * @param slot Index of the variable that takes each input
+     * @param values Values of all variables; the entry at slot is ignored and not modified
+     * @param inputs Values of the varying variable
+     * @param inputOffset First input to use
+     * @param outputs Array receiving the results
+     * @param outputOffset Position of the first result
+     * @param length Number of inputs
+     * @throws IllegalArgumentException If the slot or number of values does not match the variables
+     */
+    public void evaluateAll(int slot, double[] values, double[] inputs, int inputOffset,
+                            double[] outputs, int outputOffset, int length) {
+        if (values.length != variables.size() || slot < 0 || slot >= values.length) {
+            throw new IllegalArgumentException("Invalid variable slot " + slot + " for " + variables);
+        }
+        if (inputOffset < 0 || outputOffset < 0 || length < 0
+                || length > inputs.length - inputOffset || length > outputs.length - outputOffset) {
+            throw new IndexOutOfBoundsException("Invalid range: " + length + " values from " + inputOffset
+                    + " to " + outputOffset);
+        }
+        if (length < PARALLEL_THRESHOLD) {
+            evaluateRange(slot, values, inputs, inputOffset, outputs, outputOffset, length);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeTask(0, length, (start, end) ->
+                evaluateRange(slot, values, inputs, inputOffset + start, outputs, outputOffset + start, end - start)));
+    }
+    
+    private void evaluateRange(int slot, double[] values, double[] inputs, int inputOffset,
+                               double[] outputs, int outputOffset, int length) {
+        double[][] stack = new double[program.stackSize + program.temporaries][Math.min(BLOCK_SIZE, length)];
+        for (int done = 0; done < length; done += BLOCK_SIZE) {
+            evaluateBlock(slot, values, inputs, inputOffset + done, outputs, outputOffset + done,
+                          Math.min(BLOCK_SIZE, length - done), stack);
+        }
+    }
+    
+    // One dispatch per instruction per block; each case is a simple loop over a stack column
+    private void evaluateBlock(int varying, double[] values, double[] inputs, int inputOffset,
+                               double[] outputs, int outputOffset, int n, double[][] stack) {
+        Op[] code = program.code;
+        double[] constants = program.constants;
+        int[] slots = program.slots;
+        int base = program.stackSize;
+        int sp = -1;
+        double[] a;
+        double[] b;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case CONST:
+                    Arrays.fill(stack[++sp], 0, n, constants[pc]);
+                    continue;
+                case VAR:
+                    if (slots[pc] == varying) {
+                        System.arraycopy(inputs, inputOffset, stack[++sp], 0, n);
+                    } else {
+                        Arrays.fill(stack[++sp], 0, n, values[slots[pc]]);
+                    }
+                    continue;
+                case PI:
+                    Arrays.fill(stack[++sp], 0, n, Math.PI);
+                    continue;
+                case E:
+                    Arrays.fill(stack[++sp], 0, n, Math.E);
+                    continue;
+                case SAVE:
+                    System.arraycopy(stack[sp], 0, stack[base + slots[pc]], 0, n);
+                    continue;
+                case LOAD:
+                    System.arraycopy(stack[base + slots[pc]], 0, stack[++sp], 0, n);
+                    continue;
+                default:
+                    break;
+            }
+            
+            a = stack[sp];
+            switch (code[pc]) {
+                case NEG:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = -a[i];
+                    }
+                    continue;
+                case DEG_TO_RAD:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.toRadians(a[i]);
+                    }
+                    continue;
+                case RAD_TO_DEG:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.toDegrees(a[i]);
+                    }
+                    continue;
+                case FACTORIAL:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Op.factorial(a[i]);
+                    }
+                    continue;
+                case SIN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.sin(a[i]);
+                    }
+                    continue;
+                case COS:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.cos(a[i]);
+                    }
+                    continue;
+                case TAN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.tan(a[i]);
+                    }
+                    continue;
+                case ASIN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.asin(a[i]);
+                    }
+                    continue;
+                case ACOS:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.acos(a[i]);
+                    }
+                    continue;
+                case ATAN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.atan(a[i]);
+                    }
+                    continue;
+                case SINH:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.sinh(a[i]);
+                    }
+                    continue;
+                case COSH:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.cosh(a[i]);
+                    }
+                    continue;
+                case TANH:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.tanh(a[i]);
+                    }
+                    continue;
+                case LN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.log(a[i]);
+                    }
+                    continue;
+                case LOG:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.log10(a[i]);
+                    }
+                    continue;
+                case EXP:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.exp(a[i]);
+                    }
+                    continue;
+                case SQRT:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.sqrt(a[i]);
+                    }
+                    continue;
+                case CBRT:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.cbrt(a[i]);
+                    }
+                    continue;
+                case ABS:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.abs(a[i]);
+                    }
+                    continue;
+                case INT:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.floor(a[i]);
+                    }
+                    continue;
+                case CEIL:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.ceil(a[i]);
+                    }
+                    continue;
+                case ROUND:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.copySign(Math.floor(Math.abs(a[i]) + 0.5), a[i]);
+                    }
+                    continue;
+                default:
+                    break;
+            }
+            
+            // Binary: the right operand is on top
+            b = a;
+            a = stack[--sp];
+            switch (code[pc]) {
+                case ADD:
+                    for (int i = 0; i < n; i++) {
+                        a[i] += b[i];
+                    }
+                    break;
+                case SUB:
+                    for (int i = 0; i < n; i++) {
+                        a[i] -= b[i];
+                    }
+                    break;
+                case MUL:
+                    for (int i = 0; i < n; i++) {
+                        a[i] *= b[i];
+                    }
+                    break;
+                case DIV:
+                    for (int i = 0; i < n; i++) {
+                        a[i] /= b[i];
+                    }
+                    break;
+                case POW:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.pow(a[i], b[i]);
+                    }
+                    break;
+                case MIN:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.min(a[i], b[i]);
+                    }
+                    break;
+                case MAX:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.max(a[i], b[i]);
+                    }
+                    break;
+                case MOD:
+                    for (int i = 0; i < n; i++) {
+                        a[i] %= b[i];
+                    }
+                    break;
+                case NCR:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Op.combinations(a[i], b[i]);
+                    }
+                    break;
+                case NPR:
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Op.permutations(a[i], b[i]);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + code[pc]);
+            }
+        }
+        System.arraycopy(stack[0], 0, outputs, outputOffset, n);
+    }
+    
+    /**
+     * Splits an index range in halves until it is small enough to evaluate directly
+     */
+    private static final class RangeTask extends RecursiveAction {
+        
+        private final int start;
+        private final int end;
+        private final RangeEvaluator evaluator;
+        
+        RangeTask(int start, int end, RangeEvaluator evaluator) {
+            this.start = start;
+            this.end = end;
+            this.evaluator = evaluator;
+        }
+        
+        @Override
+        protected void compute() {
+            if (end - start <= TASK_SIZE) {
+                evaluator.evaluate(start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new RangeTask(start, middle, evaluator), new RangeTask(middle, end, evaluator));
+        }
+    }
+    
+    private interface RangeEvaluator {
+        void evaluate(int start, int end);
+    }
+    
+    /**
+     * Create scratch space for {@link #evaluate(double[], double[])}
+     * @return A stack large enough for this expression
+     */
+    public double[] newStack() {
+        return new double[program.stackSize + program.temporaries];
+    }
+    
+    public String getExpression() {
+        return expression;
+    }
+    
+    /**
+     * Get the variable names in binding order
+     * @return Unmodifiable list of names
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+    
+    /**
+     * Get the number of instructions after optimization, a rough measure of evaluation cost
+     * @return Instruction count
+     */
+    public int getInstructionCount() {
+        return program.code.length;
+    }
+    
+    @Override
+    public String toString() {
+        return expression + " " + Arrays.toString(program.code);
+    }
+}
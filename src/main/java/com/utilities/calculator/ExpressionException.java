@@ -0,0 +1,22 @@
+package com.utilities.calculator;
+
+/**
+ * Thrown when an expression cannot be parsed, with the position of the problem
+ */
+public class ExpressionException extends IllegalArgumentException {
+    
+    private final int position;
+    
+    public ExpressionException(String message, int position) {
+        super(message + " at position " + (position + 1));
+        this.position = position;
+    }
+    
+    /**
+     * Get the position of the problem
+     * @return Zero-based character index into the expression
+     */
+    public int getPosition() {
+        return position;
+    }
+}
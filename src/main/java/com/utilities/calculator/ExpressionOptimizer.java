@@ -0,0 +1,197 @@
+package com.utilities.calculator;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rewrites a parse tree into a cheaper equivalent before it is compiled
+ * One bottom-up pass does three things:
+ * - constant folding: an operation whose operands are all constants is evaluated once,
+ *   so "sqrt(2)/2*x" costs one multiplication per evaluation
+ * - algebraic simplification: identities that hold bit for bit in double arithmetic,
+ *   such as x*1, x^1, -(-x), x+(-y) to x-y, x^2 to x*x and x/4 to x*0.25
+ * - sharing: equal subtrees become one node, which the compiler computes once and
+ *   reloads (common-subexpression elimination)
+ *
+ * Rewrites that would change a result are never applied, so x*0, x-x and
+ * reassociation such as 2*x*3 are left alone: they differ from the original when x is
+ * NaN or infinite, or by rounding.
+ *
+ * High-precision code is optimized separately with exact folding, which combines
+ * constants only with exact decimal arithmetic; folding sin(2) to a double would lose
+ * the digits the precise mode exists for.
+ */
+final class ExpressionOptimizer {
+    
+    // Exact folds producing more digits than this are left to evaluation
+    private static final int MAX_EXACT_DIGITS = 1000;
+    
+    private final boolean exact;
+    private final Map<Node, Node> shared = new HashMap<>();
+    
+    private ExpressionOptimizer(boolean exact) {
+        this.exact = exact;
+    }
+    
+    /**
+     * Optimize a tree for double evaluation
+     * @param root Parse tree
+     * @return Equivalent tree, with equal subtrees shared
+     */
+    static Node optimize(Node root) {
+        return new ExpressionOptimizer(false).rewrite(root);
+    }
+    
+    /**
+     * Optimize a tree for high-precision evaluation, folding only exact results
+     * @param root Parse tree
+     * @return Equivalent tree, with equal subtrees shared
+     */
+    static Node optimizeExact(Node root) {
+        return new ExpressionOptimizer(true).rewrite(root);
+    }
+    
+    private Node rewrite(Node node) {
+        int count = node.getChildCount();
+        if (count == 0) {
+            return share(node);
+        }
+        Node[] children = new Node[count];
+        boolean constant = true;
+        for (int i = 0; i < count; i++) {
+            children[i] = rewrite(node.getChild(i));
+            constant &= isFoldable(children[i]);
+        }
+        Node folded = constant ? fold(node.getOp(), children) : null;
+        return share(folded != null ? folded : simplify(node.getOp(), children));
+    }
+    
+    private Node share(Node node) {
+        Node existing = shared.putIfAbsent(node, node);
+        return existing == null ? node : existing;
+    }
+    
+    private boolean isFoldable(Node node) {
+        if (exact) {
+            return node.isConstant() && node.getDecimal() != null;
+        }
+        return node.isConstant() || node.getOp() == Op.PI || node.getOp() == Op.E;
+    }
+    
+    // The folded constant, or null if the operation is not folded
+    private Node fold(Op op, Node[] operands) {
+        if (!exact) {
+            // Evaluated by the compiled code itself, so the result is bit for bit what
+            // evaluation would have produced
+            return Node.constant(CompiledExpression.fold(Node.of(op, operands)));
+        }
+        BigDecimal a = operands[0].getDecimal();
+        BigDecimal b = operands.length > 1 ? operands[1].getDecimal() : null;
+        switch (op) {
+            case NEG:
+                return Node.constant(a.negate());
+            case ADD:
+            case SUB:
+                // Aligning the scales writes out every digit in between
+                if (Math.max(a.precision(), b.precision()) + Math.abs((long) a.scale() - b.scale())
+                        > MAX_EXACT_DIGITS) {
+                    return null;
+                }
+                return Node.constant(op == Op.ADD ? a.add(b) : a.subtract(b));
+            case MUL:
+                if (a.precision() + b.precision() > MAX_EXACT_DIGITS) {
+                    return null;
+                }
+                return Node.constant(a.multiply(b));
+            default:
+                return null;
+        }
+    }
+    
+    private Node simplify(Op op, Node[] operands) {
+        Node a = operands[0];
+        Node b = operands.length > 1 ? operands[1] : null;
+        switch (op) {
+            case NEG:
+                if (a.getOp() == Op.NEG) {
+                    return a.getChild(0);
+                }
+                break;
+            case ADD:
+                if (b.getOp() == Op.NEG) {
+                    return share(Node.of(Op.SUB, a, b.getChild(0)));
+                }
+                if (a.getOp() == Op.NEG) {
+                    return share(Node.of(Op.SUB, b, a.getChild(0)));
+                }
+                break;
+            case SUB:
+                // Only +0: -0 - (-0) is +0, not -0
+                if (b.isConstant() && Double.doubleToRawLongBits(b.getValue()) == 0 && isExactly(b, 0)) {
+                    return a;
+                }
+                if (b.getOp() == Op.NEG) {
+                    return share(Node.of(Op.ADD, a, b.getChild(0)));
+                }
+                break;
+            case MUL:
+                if (isExactly(b, 1)) {
+                    return a;
+                }
+                if (isExactly(a, 1)) {
+                    return b;
+                }
+                if (isExactly(b, -1)) {
+                    return share(Node.of(Op.NEG, a));
+                }
+                if (a.getOp() == Op.NEG && b.getOp() == Op.NEG) {
+                    return share(Node.of(Op.MUL, a.getChild(0), b.getChild(0)));
+                }
+                break;
+            case DIV:
+                if (isExactly(b, 1)) {
+                    return a;
+                }
+                if (a.getOp() == Op.NEG && b.getOp() == Op.NEG) {
+                    return share(Node.of(Op.DIV, a.getChild(0), b.getChild(0)));
+                }
+                if (hasExactReciprocal(b)) {
+                    // Multiplying is several times faster than dividing
+                    double reciprocal = 1 / b.getValue();
+                    return share(Node.of(Op.MUL, a, share(Node.constant(new BigDecimal(reciprocal)))));
+                }
+                break;
+            case POW:
+                if (isExactly(b, 1)) {
+                    return a;
+                }
+                if (isExactly(b, 2)) {
+                    // a is shared, so the compiler evaluates it once
+                    return share(Node.of(Op.MUL, a, a));
+                }
+                break;
+            default:
+                break;
+        }
+        return Node.of(op, operands);
+    }
+    
+    // A constant whose double and decimal values are both the given integer
+    private static boolean isExactly(Node node, int value) {
+        return node.isConstant() && node.getValue() == value && node.getDecimal() != null
+                && node.getDecimal().compareTo(BigDecimal.valueOf(value)) == 0;
+    }
+    
+    // A constant power of two whose reciprocal is also a normal double
+    private static boolean hasExactReciprocal(Node node) {
+        if (!node.isConstant() || node.getDecimal() == null) {
+            return false;
+        }
+        double value = Math.abs(node.getValue());
+        int exponent = Math.getExponent(value);
+        return exponent > Double.MIN_EXPONENT && exponent < Double.MAX_EXPONENT
+                && value == Math.scalb(1.0, exponent)
+                && node.getDecimal().compareTo(new BigDecimal(node.getValue())) == 0;
+    }
+}
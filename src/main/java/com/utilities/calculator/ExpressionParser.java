@@ -0,0 +1,268 @@
+package com.utilities.calculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive descent parser from TI-84 style expression text to a parse tree
+ * Precedence follows the TI-84, from lowest: + and -, then * and / including implied
+ * multiplication ("2x", "3(x+1)", "2sin(x)"), then negation, then ^ evaluated left to
+ * right, then postfix ! and the square sign. Unclosed parentheses at the end of the
+ * expression are closed implicitly, as on the calculator.
+ *
+ * Names resolve to the declared variables first, then to the constants pi and e.
+ * In degree mode trigonometric functions are wrapped in angle conversions, so the
+ * tree itself always works in radians. Number literals keep their exact decimal value
+ * for high-precision evaluation.
+ */
+final class ExpressionParser {
+    
+    private final String text;
+    private final Map<String, Integer> slots;
+    private final AngleMode angleMode;
+    private int position;
+    
+    /**
+     * @param text Expression text
+     * @param slots Slot of each declared variable in the binding array
+     * @param angleMode Unit of angles in the expression
+     */
+    ExpressionParser(String text, Map<String, Integer> slots, AngleMode angleMode) {
+        this.text = text;
+        this.slots = slots;
+        this.angleMode = angleMode;
+    }
+    
+    /**
+     * Parse the whole text
+     * @return Root of the parse tree
+     * @throws ExpressionException If the text is not a valid expression
+     */
+    Node parse() {
+        skipSpaces();
+        if (position == text.length()) {
+            throw new ExpressionException("Empty expression", 0);
+        }
+        Node root = parseSum();
+        if (position < text.length()) {
+            throw new ExpressionException(text.charAt(position) == ')' ? "Unmatched ')'"
+                    : "Unexpected '" + text.charAt(position) + "'", position);
+        }
+        return root;
+    }
+    
+    private Node parseSum() {
+        Node left = parseProduct();
+        while (true) {
+            if (accept('+')) {
+                left = Node.of(Op.ADD, left, parseProduct());
+            } else if (accept('-') || accept('\u2212')) {
+                left = Node.of(Op.SUB, left, parseProduct());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private Node parseProduct() {
+        Node left = parseNegation();
+        while (true) {
+            if (accept('*') || accept('\u00d7')) {
+                left = Node.of(Op.MUL, left, parseNegation());
+            } else if (accept('/') || accept('\u00f7')) {
+                left = Node.of(Op.DIV, left, parseNegation());
+            } else if (startsOperand()) {
+                left = Node.of(Op.MUL, left, parseNegation());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private Node parseNegation() {
+        // Only reached where an operand is expected, so '-' here is a sign
+        if (accept('-') || accept('\u207b') || accept('\u2212')) {
+            return Node.of(Op.NEG, parseNegation());
+        }
+        return parsePower();
+    }
+    
+    private Node parsePower() {
+        Node base = parsePostfix();
+        while (accept('^')) {
+            Node exponent = accept('-') || accept('\u207b') ? Node.of(Op.NEG, parsePostfix()) : parsePostfix();
+            base = Node.of(Op.POW, base, exponent);
+        }
+        return base;
+    }
+    
+    private Node parsePostfix() {
+        Node operand = parsePrimary();
+        while (true) {
+            if (accept('!')) {
+                operand = Node.of(Op.FACTORIAL, operand);
+            } else if (accept('\u00b2')) {
+                operand = Node.of(Op.POW, operand, Node.constant(2));
+            } else {
+                return operand;
+            }
+        }
+    }
+    
+    private Node parsePrimary() {
+        skipSpaces();
+        if (position == text.length()) {
+            throw new ExpressionException("Missing operand", position);
+        }
+        char c = text.charAt(position);
+        if (accept('(')) {
+            Node inner = parseSum();
+            closeParenthesis();
+            return inner;
+        }
+        if (accept('\u221a')) {
+            return Node.of(Op.SQRT, parsePostfix());
+        }
+        if (accept('\u03c0')) {
+            return Node.of(Op.PI);
+        }
+        if (isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (Character.isLetter(c)) {
+            return parseName();
+        }
+        throw new ExpressionException("Unexpected '" + c + "'", position);
+    }
+    
+    private Node parseNumber() {
+        int start = position;
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            position++;
+        }
+        if (position < text.length() && text.charAt(position) == '.') {
+            position++;
+            while (position < text.length() && isDigit(text.charAt(position))) {
+                position++;
+            }
+        }
+        if (position - start == 1 && text.charAt(start) == '.') {
+            throw new ExpressionException("Invalid number", start);
+        }
+        // An exponent needs digits, so "2e" stays 2 times the constant e
+        if (position < text.length() && (text.charAt(position) == 'E' || text.charAt(position) == 'e')) {
+            int exponent = position + 1;
+            if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < text.length() && isDigit(text.charAt(exponent))) {
+                position = exponent;
+                while (position < text.length() && isDigit(text.charAt(position))) {
+                    position++;
+                }
+            }
+        }
+        String literal = text.substring(start, position);
+        skipSpaces();
+        return Node.literal(literal);
+    }
+    
+    private Node parseName() {
+        int start = position;
+        while (position < text.length()
+                && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')
+                && text.charAt(position) != '\u03c0') {
+            position++;
+        }
+        String name = text.substring(start, position);
+        skipSpaces();
+        
+        Op function = Op.function(name);
+        boolean call = position < text.length() && text.charAt(position) == '(';
+        if (call && function != null) {
+            position++;
+            return call(function, parseArguments(function, start));
+        }
+        
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return Node.variable(slot);
+        }
+        if (name.equalsIgnoreCase("pi")) {
+            return Node.of(Op.PI);
+        }
+        if (name.equals("e")) {
+            return Node.of(Op.E);
+        }
+        if (function != null) {
+            throw new ExpressionException("Missing '(' after " + name, position);
+        }
+        if (call) {
+            throw new ExpressionException("Unknown function '" + name + "'", start);
+        }
+        throw new ExpressionException("Undefined variable '" + name + "'", start);
+    }
+    
+    private Node[] parseArguments(Op function, int start) {
+        List<Node> arguments = new ArrayList<>();
+        arguments.add(parseSum());
+        while (accept(',')) {
+            arguments.add(parseSum());
+        }
+        closeParenthesis();
+        if (arguments.size() != function.getArity()) {
+            throw new ExpressionException(function.getFunctionName() + " takes " + function.getArity()
+                    + " argument(s), got " + arguments.size(), start);
+        }
+        return arguments.toArray(new Node[0]);
+    }
+    
+    private Node call(Op function, Node[] arguments) {
+        if (angleMode == AngleMode.DEGREE && function.isTrigonometric()) {
+            return Node.of(function, Node.of(Op.DEG_TO_RAD, arguments[0]));
+        }
+        if (angleMode == AngleMode.DEGREE && function.isInverseTrigonometric()) {
+            return Node.of(Op.RAD_TO_DEG, Node.of(function, arguments));
+        }
+        return Node.of(function, arguments);
+    }
+    
+    private void closeParenthesis() {
+        // The calculator lets trailing parentheses be left off
+        if (!accept(')') && position < text.length()) {
+            throw new ExpressionException("Expected ')'", position);
+        }
+    }
+    
+    /**
+     * Check whether the next token starts an operand, for implied multiplication
+     */
+    private boolean startsOperand() {
+        if (position == text.length()) {
+            return false;
+        }
+        char c = text.charAt(position);
+        return c == '(' || c == '.' || c == '\u221a' || c == '\u03c0' || isDigit(c) || Character.isLetter(c);
+    }
+    
+    private boolean accept(char c) {
+        skipSpaces();
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            skipSpaces();
+            return true;
+        }
+        return false;
+    }
+    
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
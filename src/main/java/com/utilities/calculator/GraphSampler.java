@@ -0,0 +1,155 @@
+package com.utilities.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Samples y = f(X) across a graph window, one point per pixel column plus refinements
+ * Columns are evaluated in one batch call. Where neighbouring columns jump by more
+ * than a fraction of the window height, or the function becomes undefined between
+ * them, the interval is bisected with single evaluations. A jump that survives
+ * MAX_DEPTH bisections is a discontinuity, such as tan at its asymptotes or int at
+ * integers, and is recorded as a NaN point so the curve is not joined across it.
+ *
+ * Point buffers are reused between calls, so redrawing while panning or zooming does
+ * not allocate once the buffers have grown to size. Not thread-safe; use one sampler
+ * per thread.
+ */
+public final class GraphSampler {
+    
+    // Bisections per column; 1/1024 of a column is well below a pixel
+    private static final int MAX_DEPTH = 10;
+    // Jumps above this fraction of the window height are refined
+    private static final double JUMP_FRACTION = 1.0 / 32;
+    // Cap on single evaluations per call, per column
+    private static final int REFINE_BUDGET_PER_COLUMN = 16;
+    
+    private final CompiledExpression function;
+    private final double[] values = new double[1];
+    private final double[] stack;
+    
+    private double[] columnX = new double[0];
+    private double[] columnY = new double[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int size;
+    
+    private double threshold;
+    private double yMin;
+    private double yMax;
+    private int budget;
+    
+    /**
+     * @param function Function of a single variable, e.g. from {@link Calculator#compileFunction}
+     * @throws IllegalArgumentException If the function does not have exactly one variable
+     */
+    public GraphSampler(CompiledExpression function) {
+        if (function.getVariables().size() != 1) {
+            throw new IllegalArgumentException("Expected a single variable, found " + function.getVariables());
+        }
+        this.function = function;
+        this.stack = function.newStack();
+    }
+    
+    /**
+     * Sample the function across a window
+     * @param xMin Left edge of the window
+     * @param xMax Right edge of the window
+     * @param columns Number of pixel columns, at least 1
+     * @param yMin Bottom edge of the window
+     * @param yMax Top edge of the window
+     * @return Number of points, readable from {@link #getX()} and {@link #getY()}
+     */
+    public int sample(double xMin, double xMax, int columns, double yMin, double yMax) {
+        int count = columns + 1;
+        if (columnX.length < count) {
+            columnX = new double[count];
+            columnY = new double[count];
+        }
+        double step = (xMax - xMin) / columns;
+        for (int i = 0; i < count; i++) {
+            columnX[i] = xMin + i * step;
+        }
+        function.evaluateAll(0, values, columnX, 0, columnY, 0, count);
+        
+        this.threshold = (yMax - yMin) * JUMP_FRACTION;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.budget = columns * REFINE_BUDGET_PER_COLUMN;
+        size = 0;
+        add(columnX[0], columnY[0]);
+        for (int i = 1; i < count; i++) {
+            refine(columnX[i - 1], columnY[i - 1], columnX[i], columnY[i], MAX_DEPTH);
+            add(columnX[i], columnY[i]);
+        }
+        return size;
+    }
+    
+    // Adds the points strictly between a and b
+    private void refine(double a, double fa, double b, double fb, int depth) {
+        if (!needsRefinement(fa, fb)) {
+            return;
+        }
+        if (depth == 0 || budget == 0) {
+            if (depth == 0 && Double.isFinite(fa) && Double.isFinite(fb)) {
+                // Still jumping over a sliver of a column: break the curve here
+                add((a + b) / 2, Double.NaN);
+            }
+            return;
+        }
+        budget--;
+        double m = (a + b) / 2;
+        values[0] = m;
+        double fm = function.evaluate(values, stack);
+        refine(a, fa, m, fm, depth - 1);
+        add(m, fm);
+        refine(m, fm, b, fb, depth - 1);
+    }
+    
+    private boolean needsRefinement(double fa, double fb) {
+        boolean finiteA = Double.isFinite(fa);
+        boolean finiteB = Double.isFinite(fb);
+        if (finiteA != finiteB) {
+            // Find where the function becomes undefined
+            return true;
+        }
+        if (!finiteA || Math.abs(fb - fa) <= threshold) {
+            return false;
+        }
+        // Both off the same edge of the window: nothing visible changes
+        return !(fa > yMax && fb > yMax) && !(fa < yMin && fb < yMin);
+    }
+    
+    private void add(double px, double py) {
+        if (size == x.length) {
+            x = Arrays.copyOf(x, Math.max(64, size * 2));
+            y = Arrays.copyOf(y, x.length);
+        }
+        x[size] = px;
+        y[size] = py;
+        size++;
+    }
+    
+    /**
+     * Get the X coordinates of the last sample, in increasing order
+     * @return Shared buffer; only the first {@link #getSize()} entries are valid
+     */
+    public double[] getX() {
+        return x;
+    }
+    
+    /**
+     * Get the function values of the last sample; NaN where the curve is broken
+     * @return Shared buffer; only the first {@link #getSize()} entries are valid
+     */
+    public double[] getY() {
+        return y;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public CompiledExpression getFunction() {
+        return function;
+    }
+}
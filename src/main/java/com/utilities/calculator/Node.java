@@ -0,0 +1,164 @@
+package com.utilities.calculator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Immutable parse tree node
+ * Constants hold their value, variables their slot in the binding array, and
+ * operators and functions their operands. Constants also keep an exact decimal:
+ * the literal as written, or the exact binary value of a computed double.
+ *
+ * Equality is structural. The hash is computed once at construction, so maps of
+ * subtrees, as used for sharing common subexpressions, stay linear in the tree size.
+ */
+final class Node {
+    
+    private static final Node[] NO_CHILDREN = new Node[0];
+    
+    private final Op op;
+    private final double value;
+    private final BigDecimal decimal;
+    private final int slot;
+    private final Node[] children;
+    private final int hash;
+    
+    private Node(Op op, double value, BigDecimal decimal, int slot, Node[] children) {
+        this.op = op;
+        this.value = value;
+        this.decimal = decimal;
+        this.slot = slot;
+        this.children = children;
+        this.hash = (op.hashCode() * 31 + Double.hashCode(value)) * 31 + slot * 17 + Arrays.hashCode(children);
+    }
+    
+    static Node constant(double value) {
+        return new Node(Op.CONST, value, Double.isFinite(value) ? new BigDecimal(value) : null, -1, NO_CHILDREN);
+    }
+    
+    /**
+     * Create a constant with an exact decimal value, such as a folded sum of literals
+     */
+    static Node constant(BigDecimal decimal) {
+        return new Node(Op.CONST, decimal.doubleValue(), decimal, -1, NO_CHILDREN);
+    }
+    
+    /**
+     * Create a constant from a number literal
+     * @param literal Decimal text such as "0.1" or "6.02E23"
+     * @throws NumberFormatException If the text is not a decimal number
+     */
+    static Node literal(String literal) {
+        BigDecimal decimal = new BigDecimal(literal);
+        return new Node(Op.CONST, decimal.doubleValue(), decimal, -1, NO_CHILDREN);
+    }
+    
+    static Node variable(int slot) {
+        return new Node(Op.VAR, 0, null, slot, NO_CHILDREN);
+    }
+    
+    static Node of(Op op, Node... children) {
+        if (children.length != op.getArity()) {
+            throw new IllegalArgumentException(op + " takes " + op.getArity() + " operand(s)");
+        }
+        return new Node(op, 0, null, -1, children.clone());
+    }
+    
+    /**
+     * Create a SAVE or LOAD of a compiler temporary; these appear only in compiled code
+     * @param index Index of the temporary
+     */
+    static Node temporary(Op op, int index) {
+        return new Node(op, 0, null, index, NO_CHILDREN);
+    }
+    
+    Op getOp() {
+        return op;
+    }
+    
+    double getValue() {
+        return value;
+    }
+    
+    /**
+     * Get the exact value of a constant
+     * @return The decimal, or null if the constant is NaN or infinite
+     */
+    BigDecimal getDecimal() {
+        return decimal;
+    }
+    
+    int getSlot() {
+        return slot;
+    }
+    
+    int getChildCount() {
+        return children.length;
+    }
+    
+    Node getChild(int index) {
+        return children[index];
+    }
+    
+    boolean isConstant() {
+        return op == Op.CONST;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Node)) {
+            return false;
+        }
+        Node other = (Node) o;
+        // Compare constants bitwise so NaN equals NaN and 0.0 differs from -0.0
+        return op == other.op && Double.doubleToLongBits(value) == Double.doubleToLongBits(other.value)
+                && (decimal == null ? other.decimal == null : decimal.equals(other.decimal))
+                && hash == other.hash && slot == other.slot && Arrays.equals(children, other.children);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        switch (op) {
+            case CONST:
+                return decimal == null ? Double.toString(value) : decimal.toString();
+            case VAR:
+                return "$" + slot;
+            case PI:
+                return "pi";
+            case E:
+                return "e";
+            case DEG_TO_RAD:
+                return "rad(" + children[0] + ")";
+            case RAD_TO_DEG:
+                return "deg(" + children[0] + ")";
+            case NEG:
+                return "(-" + children[0] + ")";
+            case FACTORIAL:
+                return "(" + children[0] + ")!";
+            case ADD:
+                return "(" + children[0] + " + " + children[1] + ")";
+            case SUB:
+                return "(" + children[0] + " - " + children[1] + ")";
+            case MUL:
+                return "(" + children[0] + " * " + children[1] + ")";
+            case DIV:
+                return "(" + children[0] + " / " + children[1] + ")";
+            case POW:
+                return "(" + children[0] + " ^ " + children[1] + ")";
+            default:
+                StringBuilder text = new StringBuilder(op.getFunctionName()).append('(');
+                for (int i = 0; i < children.length; i++) {
+                    text.append(i == 0 ? "" : ", ").append(children[i]);
+                }
+                return text.append(')').toString();
+        }
+    }
+}
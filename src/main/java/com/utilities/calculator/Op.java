@@ -0,0 +1,159 @@
+package com.utilities.calculator;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Operations of the expression language, shared by the parse tree and compiled code
+ * Functions carry the name they are called by; operators have no name.
+ */
+enum Op {
+    CONST(0),
+    VAR(0),
+    PI(0),
+    E(0),
+    
+    // Operators
+    NEG(1),
+    FACTORIAL(1),
+    ADD(2),
+    SUB(2),
+    MUL(2),
+    DIV(2),
+    POW(2),
+    
+    // Angle conversions inserted in degree mode
+    DEG_TO_RAD(1),
+    RAD_TO_DEG(1),
+    
+    // Common subexpressions in compiled code: SAVE copies the top of the stack to a
+    // temporary, leaving it in place; LOAD pushes a temporary
+    SAVE(1),
+    LOAD(0),
+    
+    // Functions
+    SIN("sin", 1),
+    COS("cos", 1),
+    TAN("tan", 1),
+    ASIN("asin", 1),
+    ACOS("acos", 1),
+    ATAN("atan", 1),
+    SINH("sinh", 1),
+    COSH("cosh", 1),
+    TANH("tanh", 1),
+    LN("ln", 1),
+    LOG("log", 1),
+    EXP("exp", 1),
+    SQRT("sqrt", 1),
+    CBRT("cbrt", 1),
+    ABS("abs", 1),
+    INT("int", 1),
+    CEIL("ceil", 1),
+    ROUND("round", 1),
+    MIN("min", 2),
+    MAX("max", 2),
+    MOD("mod", 2),
+    NCR("ncr", 2),
+    NPR("npr", 2);
+    
+    // Largest n with a finite n!
+    static final int MAX_FACTORIAL = 170;
+    
+    private static final Map<String, Op> FUNCTIONS = new HashMap<>();
+    
+    static {
+        for (Op op : values()) {
+            if (op.functionName != null) {
+                FUNCTIONS.put(op.functionName, op);
+            }
+        }
+        // TI-84 spellings
+        FUNCTIONS.put("floor", INT);
+        FUNCTIONS.put("arcsin", ASIN);
+        FUNCTIONS.put("arccos", ACOS);
+        FUNCTIONS.put("arctan", ATAN);
+        FUNCTIONS.put("remainder", MOD);
+    }
+    
+    private final String functionName;
+    private final int arity;
+    
+    Op(int arity) {
+        this(null, arity);
+    }
+    
+    Op(String functionName, int arity) {
+        this.functionName = functionName;
+        this.arity = arity;
+    }
+    
+    /**
+     * Look up a function by name, ignoring case
+     * @param name Function name as written
+     * @return The function, or null if there is none by that name
+     */
+    static Op function(String name) {
+        return FUNCTIONS.get(name.toLowerCase(Locale.ROOT));
+    }
+    
+    String getFunctionName() {
+        return functionName;
+    }
+    
+    int getArity() {
+        return arity;
+    }
+    
+    boolean isFunction() {
+        return functionName != null;
+    }
+    
+    /**
+     * Check whether the operation takes and returns an angle, so depends on the angle mode
+     */
+    boolean isTrigonometric() {
+        return this == SIN || this == COS || this == TAN;
+    }
+    
+    boolean isInverseTrigonometric() {
+        return this == ASIN || this == ACOS || this == ATAN;
+    }
+    
+    static double factorial(double n) {
+        if (n < 0 || n != Math.rint(n)) {
+            return Double.NaN;
+        }
+        if (n > MAX_FACTORIAL) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double result = 1;
+        for (int i = 2; i <= n; i++) {
+            result *= i;
+        }
+        return result;
+    }
+    
+    static double permutations(double n, double r) {
+        if (n != Math.rint(n) || r != Math.rint(r) || r < 0 || n < r) {
+            return Double.NaN;
+        }
+        double result = 1;
+        for (double i = n - r + 1; i <= n; i++) {
+            result *= i;
+        }
+        return result;
+    }
+    
+    static double combinations(double n, double r) {
+        if (n != Math.rint(n) || r != Math.rint(r) || r < 0 || n < r) {
+            return Double.NaN;
+        }
+        r = Math.min(r, n - r);
+        double result = 1;
+        for (int i = 1; i <= r; i++) {
+            result = result * (n - r + i) / i;
+        }
+        return Math.rint(result);
+    }
+}
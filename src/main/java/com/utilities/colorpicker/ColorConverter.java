@@ -0,0 +1,214 @@
+package com.utilities.colorpicker;
+
+import java.util.Arrays;
+
+/**
+ * Conversions between packed RGB, hex strings, HSL and CIE Lab
+ * The per-call work is table lookups and integer arithmetic: hex digits come from a table
+ * of all 256 byte values, HSL divides through a table of reciprocals, and Lab linearizes
+ * sRGB through a table of the 256 channel values instead of calling pow three times.
+ */
+public final class ColorConverter {
+    
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    // Two hex digits for each byte value
+    private static final char[] HEX_PAIRS = new char[512];
+    // Value of each hex digit character, -1 for anything else
+    private static final byte[] NIBBLES = new byte[128];
+    // 1 / n for n up to 510, the largest sum of two channels
+    private static final float[] RECIPROCALS = new float[511];
+    // Linear light of each sRGB channel value
+    private static final double[] LINEAR = new double[256];
+    
+    // D65 white
+    private static final double WHITE_X = 0.95047;
+    private static final double WHITE_Z = 1.08883;
+    // (6/29)^3 and 1 / (3 (6/29)^2), where the Lab curve turns linear
+    private static final double EPSILON = 216.0 / 24389.0;
+    private static final double SLOPE = 841.0 / 108.0;
+    
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[2 * i] = HEX_DIGITS[i >> 4];
+            HEX_PAIRS[2 * i + 1] = HEX_DIGITS[i & 0xF];
+        }
+        Arrays.fill(NIBBLES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            NIBBLES[HEX_DIGITS[i]] = (byte) i;
+            NIBBLES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+        }
+        for (int i = 1; i < RECIPROCALS.length; i++) {
+            RECIPROCALS[i] = 1.0f / i;
+        }
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+    
+    private ColorConverter() {
+    }
+    
+    /**
+     * Format a color as #RRGGBB
+     * @param rgb Color as 0xRRGGBB; higher bits are ignored
+     */
+    public static String toHex(int rgb) {
+        char[] chars = new char[7];
+        chars[0] = '#';
+        int red = 2 * (rgb >> 16 & 0xFF);
+        int green = 2 * (rgb >> 8 & 0xFF);
+        int blue = 2 * (rgb & 0xFF);
+        chars[1] = HEX_PAIRS[red];
+        chars[2] = HEX_PAIRS[red + 1];
+        chars[3] = HEX_PAIRS[green];
+        chars[4] = HEX_PAIRS[green + 1];
+        chars[5] = HEX_PAIRS[blue];
+        chars[6] = HEX_PAIRS[blue + 1];
+        return new String(chars);
+    }
+    
+    /**
+     * Parse a hex color
+     * @param hex RRGGBB or the short form RGB, optionally after a #
+     * @return Color as 0xRRGGBB
+     * @throws IllegalArgumentException If the text is not a hex color
+     */
+    public static int parseHex(String hex) {
+        String text = hex.trim();
+        int start = text.startsWith("#") ? 1 : 0;
+        int length = text.length() - start;
+        if (length != 6 && length != 3) {
+            throw new IllegalArgumentException("Not a hex color: " + hex);
+        }
+        int rgb = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int nibble = c < 128 ? NIBBLES[c] : -1;
+            if (nibble < 0) {
+                throw new IllegalArgumentException("Not a hex color: " + hex);
+            }
+            // Short form digits stand for themselves twice: F is FF
+            rgb = length == 3 ? rgb << 8 | nibble << 4 | nibble : rgb << 4 | nibble;
+        }
+        return rgb;
+    }
+    
+    /**
+     * Convert a color to hue, saturation and lightness
+     * @param rgb Color as 0xRRGGBB
+     * @return Hue in degrees from 0 to 360, then saturation and lightness from 0 to 1
+     */
+    public static float[] toHsl(int rgb) {
+        int red = rgb >> 16 & 0xFF;
+        int green = rgb >> 8 & 0xFF;
+        int blue = rgb & 0xFF;
+        int max = Math.max(red, Math.max(green, blue));
+        int min = Math.min(red, Math.min(green, blue));
+        int delta = max - min;
+        int sum = max + min;
+        float lightness = sum * RECIPROCALS[510];
+        if (delta == 0) {
+            return new float[] {0, 0, lightness};
+        }
+        float saturation = delta * RECIPROCALS[sum <= 255 ? sum : 510 - sum];
+        // Sixths of the circle from the dominant channel, as a numerator over delta
+        int sixths;
+        if (max == red) {
+            sixths = green - blue;
+            if (sixths < 0) {
+                sixths += 6 * delta;
+            }
+        } else if (max == green) {
+            sixths = blue - red + 2 * delta;
+        } else {
+            sixths = red - green + 4 * delta;
+        }
+        float hue = 60 * sixths * RECIPROCALS[delta];
+        return new float[] {hue, saturation, lightness};
+    }
+    
+    /**
+     * Convert hue, saturation and lightness to a color
+     * @param hue Hue in degrees; any value, taken around the circle
+     * @param saturation Saturation from 0 to 1
+     * @param lightness Lightness from 0 to 1
+     * @return Color as 0xRRGGBB
+     */
+    public static int fromHsl(float hue, float saturation, float lightness) {
+        float s = Math.max(0, Math.min(1, saturation));
+        float l = Math.max(0, Math.min(1, lightness));
+        float h = (hue % 360 + 360) % 360;
+        float amplitude = s * Math.min(l, 1 - l);
+        return channel(0, h, amplitude, l) << 16 | channel(8, h, amplitude, l) << 8 | channel(4, h, amplitude, l);
+    }
+    
+    /**
+     * One channel of an HSL color; n is 0 for red, 8 for green and 4 for blue
+     */
+    private static int channel(int n, float hue, float amplitude, float lightness) {
+        float k = (n + hue / 30) % 12;
+        return toByte(lightness - amplitude * Math.max(-1, Math.min(Math.min(k - 3, 9 - k), 1)));
+    }
+    
+    private static int toByte(float value) {
+        return Math.max(0, Math.min(255, Math.round(value * 255)));
+    }
+    
+    /**
+     * Convert a color to CIE Lab under a D65 white
+     * @param rgb Color as 0xRRGGBB, in sRGB
+     * @return L from 0 to 100, then a and b
+     */
+    public static double[] toLab(int rgb) {
+        float[] lab = new float[3];
+        toLab(rgb, lab, 0);
+        return new double[] {lab[0], lab[1], lab[2]};
+    }
+    
+    /**
+     * Convert a color to CIE Lab into an array, allocating nothing
+     */
+    static void toLab(int rgb, float[] lab, int offset) {
+        double red = LINEAR[rgb >> 16 & 0xFF];
+        double green = LINEAR[rgb >> 8 & 0xFF];
+        double blue = LINEAR[rgb & 0xFF];
+        double x = labCurve((0.4124564 * red + 0.3575761 * green + 0.1804375 * blue) / WHITE_X);
+        double y = labCurve(0.2126729 * red + 0.7151522 * green + 0.0721750 * blue);
+        double z = labCurve((0.0193339 * red + 0.1191920 * green + 0.9503041 * blue) / WHITE_Z);
+        lab[offset] = (float) (116 * y - 16);
+        lab[offset + 1] = (float) (500 * (x - y));
+        lab[offset + 2] = (float) (200 * (y - z));
+    }
+    
+    /**
+     * Bound the Lab coordinates of every color in an RGB box
+     * X, Y and Z grow with each channel, so the Lab curve of each is smallest at the low
+     * corner and largest at the high one, and L, a and b are bounded by combining the two.
+     * @param low Low corner as 0xRRGGBB
+     * @param high High corner as 0xRRGGBB, no lower on any channel
+     * @param box Receives the lowest L, a and b, then the highest
+     */
+    static void labBounds(int low, int high, float[] box) {
+        // The curves of X, Y and Z at both corners, recovered from their Lab coordinates
+        toLab(low, box, 0);
+        toLab(high, box, 3);
+        double lowY = (box[0] + 16) / 116.0;
+        double lowX = lowY + box[1] / 500.0;
+        double lowZ = lowY - box[2] / 200.0;
+        double highY = (box[3] + 16) / 116.0;
+        double highX = highY + box[4] / 500.0;
+        double highZ = highY - box[5] / 200.0;
+        // A little wider than exact, to cover rounding to float
+        box[0] = (float) (116 * lowY - 16 - 1e-3);
+        box[1] = (float) (500 * (lowX - highY) - 1e-3);
+        box[2] = (float) (200 * (lowY - highZ) - 1e-3);
+        box[3] = (float) (116 * highY - 16 + 1e-3);
+        box[4] = (float) (500 * (highX - lowY) + 1e-3);
+        box[5] = (float) (200 * (highY - lowZ) + 1e-3);
+    }
+    
+    private static double labCurve(double t) {
+        return t > EPSILON ? Math.cbrt(t) : SLOPE * t + 4.0 / 29.0;
+    }
+}
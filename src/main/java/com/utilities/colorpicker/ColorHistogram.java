@@ -0,0 +1,223 @@
+package com.utilities.colorpicker;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Colors of an image counted in 32 x 32 x 32 bins, with the exact channel sums of each bin
+ * so its mean color is not rounded to the bin
+ *
+ * Large images are sampled on a grid spaced so that about maxSamples pixels are read,
+ * with each row's starting column staggered so regular patterns do not alias. Rows are
+ * counted in parallel into one histogram per task, merged at the end; adding a pixel is
+ * a few array increments. Packed int and 3-byte BGR rasters are read in place; other
+ * images a row at a time through getRGB. Pixels less than half opaque are skipped.
+ */
+final class ColorHistogram {
+    
+    static final int BITS = 5;
+    static final int SIDE = 1 << BITS;
+    static final int BINS = SIDE * SIDE * SIDE;
+    private static final int SHIFT = 8 - BITS;
+    // Tasks per worker thread, so uneven rows still balance
+    private static final int TASKS_PER_THREAD = 4;
+    
+    final int[] counts = new int[BINS];
+    final long[] redSums = new long[BINS];
+    final long[] greenSums = new long[BINS];
+    final long[] blueSums = new long[BINS];
+    long total;
+    
+    static int bin(int red, int green, int blue) {
+        return (red >> SHIFT) << 2 * BITS | (green >> SHIFT) << BITS | blue >> SHIFT;
+    }
+    
+    void add(int red, int green, int blue) {
+        int bin = bin(red, green, blue);
+        counts[bin]++;
+        redSums[bin] += red;
+        greenSums[bin] += green;
+        blueSums[bin] += blue;
+    }
+    
+    void merge(ColorHistogram other) {
+        for (int i = 0; i < BINS; i++) {
+            if (other.counts[i] != 0) {
+                counts[i] += other.counts[i];
+                redSums[i] += other.redSums[i];
+                greenSums[i] += other.greenSums[i];
+                blueSums[i] += other.blueSums[i];
+            }
+        }
+        total += other.total;
+    }
+    
+    /**
+     * Count the colors of an image
+     * @param image The image
+     * @param maxSamples About how many pixels to read at most
+     * @return The histogram
+     */
+    static ColorHistogram of(BufferedImage image, int maxSamples) {
+        long pixels = (long) image.getWidth() * image.getHeight();
+        int step = (int) Math.max(1, Math.ceil(Math.sqrt((double) pixels / maxSamples)));
+        Source source = new Source(image, step);
+        int rows = (image.getHeight() + step - 1) / step;
+        int tasks = ForkJoinPool.commonPool().getParallelism() * TASKS_PER_THREAD;
+        RowTask task = new RowTask(source, 0, rows, Math.max(1, rows / tasks));
+        return rows <= task.rowsPerTask ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+    }
+    
+    /**
+     * Reads the pixels of image rows, in place where the raster allows
+     */
+    static final class Source {
+        
+        private final BufferedImage image;
+        final int width;
+        private final int step;
+        final boolean hasAlpha;
+        // Set for rasters read in place
+        private int[] ints;
+        private byte[] bytes;
+        private int offset;
+        private int stride;
+        
+        Source(BufferedImage image, int step) {
+            this.image = image;
+            this.width = image.getWidth();
+            this.step = step;
+            this.hasAlpha = image.getColorModel().hasAlpha();
+            Raster raster = image.getRaster();
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    if (raster.getDataBuffer() instanceof DataBufferInt
+                            && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                            && raster.getParent() == null) {
+                        ints = ((DataBufferInt) raster.getDataBuffer()).getData();
+                        stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                        offset = raster.getDataBuffer().getOffset();
+                    }
+                    break;
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    if (raster.getDataBuffer() instanceof DataBufferByte
+                            && raster.getSampleModel() instanceof ComponentSampleModel
+                            && raster.getParent() == null) {
+                        bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+                        stride = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+                        offset = raster.getDataBuffer().getOffset();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        /**
+         * Read every pixel of an image row as ARGB; alpha is undefined for images without it
+         * @param y The row
+         * @param pixels Array to read into
+         * @param start Where in the array the row goes
+         */
+        void readRow(int y, int[] pixels, int start) {
+            if (ints != null) {
+                System.arraycopy(ints, offset + y * stride, pixels, start, width);
+            } else if (bytes != null) {
+                byte[] data = bytes;
+                int base = offset + y * stride;
+                for (int x = 0; x < width; x++) {
+                    int i = base + 3 * x;
+                    pixels[start + x] = (data[i + 2] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | data[i] & 0xFF;
+                }
+            } else {
+                image.getRGB(0, y, width, 1, pixels, start, width);
+            }
+        }
+        
+        /**
+         * Add the samples of the row'th sampled row
+         * @param rowPixels Scratch of at least width ints, for images read through getRGB
+         */
+        void addRow(int row, int[] rowPixels, ColorHistogram histogram) {
+            int y = row * step;
+            // Staggered start, a different column of the step for each row
+            int first = step == 1 ? 0 : (int) ((row * 0x9E3779B9L & 0xFFFFFFFFL) % Math.min(step, width));
+            if (bytes != null) {
+                byte[] data = bytes;
+                int base = offset + y * stride;
+                long added = 0;
+                for (int x = first; x < width; x += step) {
+                    int i = base + 3 * x;
+                    histogram.add(data[i + 2] & 0xFF, data[i + 1] & 0xFF, data[i] & 0xFF);
+                    added++;
+                }
+                histogram.total += added;
+                return;
+            }
+            int[] data;
+            int base;
+            if (ints != null) {
+                data = ints;
+                base = offset + y * stride;
+            } else {
+                image.getRGB(0, y, width, 1, rowPixels, 0, width);
+                data = rowPixels;
+                base = 0;
+            }
+            boolean alpha = hasAlpha;
+            long added = 0;
+            for (int x = first; x < width; x += step) {
+                int argb = data[base + x];
+                if (alpha && argb >>> 24 < 0x80) {
+                    continue;
+                }
+                histogram.add(argb >> 16 & 0xFF, argb >> 8 & 0xFF, argb & 0xFF);
+                added++;
+            }
+            histogram.total += added;
+        }
+    }
+    
+    /**
+     * Splits a range of sampled rows in halves until it is small enough to count directly
+     */
+    private static final class RowTask extends RecursiveTask<ColorHistogram> {
+        
+        private final Source source;
+        private final int start;
+        private final int end;
+        private final int rowsPerTask;
+        
+        RowTask(Source source, int start, int end, int rowsPerTask) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.rowsPerTask = rowsPerTask;
+        }
+        
+        @Override
+        protected ColorHistogram compute() {
+            if (end - start <= rowsPerTask) {
+                ColorHistogram histogram = new ColorHistogram();
+                int[] rowPixels = source.ints == null && source.bytes == null ? new int[source.width] : null;
+                for (int row = start; row < end; row++) {
+                    source.addRow(row, rowPixels, histogram);
+                }
+                return histogram;
+            }
+            int middle = (start + end) >>> 1;
+            RowTask high = new RowTask(source, middle, end, rowsPerTask);
+            high.fork();
+            ColorHistogram histogram = new RowTask(source, start, middle, rowsPerTask).compute();
+            histogram.merge(high.join());
+            return histogram;
+        }
+    }
+}
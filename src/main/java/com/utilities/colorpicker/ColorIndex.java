@@ -0,0 +1,647 @@
+package com.utilities.colorpicker;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Nearest-color lookup over a set of named colors, such as the CSS colors or a brand palette
+ * The colors' Lab coordinates are computed once and kept in a k-d tree. Queries go through
+ * a 64 x 64 x 64 grid over RGB, filled in as cells are first asked about: the cell is bounded
+ * in Lab and the tree gives the few entries that can be nearest to anything in it. Most
+ * cells have a single candidate; for the rest, each of the cell's 64 colors is converted
+ * once and its nearest candidate recorded. Every later query is a table lookup, with no
+ * color conversion, and the answers are exact. Nearness is the Euclidean distance in Lab
+ * (CIE76 delta E), which follows perceived difference far better than distance in RGB.
+ * Images are mapped row by row on the fork-join pool.
+ */
+public final class ColorIndex {
+    
+    // Tasks per worker thread, so uneven rows still balance
+    private static final int TASKS_PER_THREAD = 4;
+    // The grid has 2^GRID_BITS cells per channel, each holding 4 x 4 x 4 colors
+    private static final int GRID_BITS = 6;
+    private static final int CELL_SHIFT = 8 - GRID_BITS;
+    private static final int CELL_MASK = (1 << CELL_SHIFT) - 1;
+    private static final int CELL_COLORS = 1 << 3 * CELL_SHIFT;
+    // Ints holding a contested cell's choices, a byte per color
+    private static final int CHOICE_INTS = CELL_COLORS / 4;
+    
+    private final String[] names;
+    private final int[] colors;
+    // L, a and b of each entry
+    private final float[] labs;
+    // Entries in tree order: each range is split at its middle entry on that entry's axis
+    private final int[] tree;
+    private final byte[] axes;
+    // Answers for each grid cell, found when the cell is first asked about: the entry nearest
+    // every color of the cell, or the cell's choice for each color then the entries chosen
+    private final AtomicReferenceArray<int[]> cells = new AtomicReferenceArray<>(1 << 3 * GRID_BITS);
+    
+    private ColorIndex(String[] names, int[] colors) {
+        this.names = names;
+        this.colors = colors;
+        this.labs = new float[3 * colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            ColorConverter.toLab(colors[i], labs, 3 * i);
+        }
+        this.tree = new int[colors.length];
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = i;
+        }
+        this.axes = new byte[colors.length];
+        build(0, tree.length);
+    }
+    
+    /**
+     * Create an index of named colors
+     * @param colors Colors as 0xRRGGBB by name; among equal colors the first is found
+     * @return The index
+     * @throws IllegalArgumentException If there are no colors
+     */
+    public static ColorIndex of(Map<String, Integer> colors) {
+        if (colors.isEmpty()) {
+            throw new IllegalArgumentException("A color index needs at least one color");
+        }
+        String[] names = new String[colors.size()];
+        int[] rgb = new int[colors.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : colors.entrySet()) {
+            names[i] = entry.getKey();
+            rgb[i++] = entry.getValue() & 0xFFFFFF;
+        }
+        return new ColorIndex(names, rgb);
+    }
+    
+    /**
+     * Create an index of a palette's colors, named by their hex values
+     * @throws IllegalArgumentException If the palette is empty
+     */
+    public static ColorIndex of(Palette palette) {
+        if (palette.size() == 0) {
+            throw new IllegalArgumentException("A color index needs at least one color");
+        }
+        String[] names = new String[palette.size()];
+        int[] rgb = new int[palette.size()];
+        for (int i = 0; i < rgb.length; i++) {
+            names[i] = palette.getHex(i);
+            rgb[i] = palette.getRgb(i);
+        }
+        return new ColorIndex(names, rgb);
+    }
+    
+    /**
+     * Get the index of the CSS named colors, built on first use
+     */
+    public static ColorIndex cssColors() {
+        return CssColors.INDEX;
+    }
+    
+    public int size() {
+        return colors.length;
+    }
+    
+    public String getName(int index) {
+        return names[index];
+    }
+    
+    /**
+     * Get a color as 0xRRGGBB
+     */
+    public int getRgb(int index) {
+        return colors[index];
+    }
+    
+    /**
+     * Get a color as #RRGGBB
+     */
+    public String getHex(int index) {
+        return ColorConverter.toHex(colors[index]);
+    }
+    
+    /**
+     * Find the entry nearest a color
+     * @param rgb Color as 0xRRGGBB; higher bits are ignored
+     * @return Index of the nearest entry, the first of equally near ones
+     */
+    public int nearest(int rgb) {
+        return new Searcher(this).nearest(rgb & 0xFFFFFF);
+    }
+    
+    /**
+     * Find the name of the entry nearest a color
+     */
+    public String nearestName(int rgb) {
+        return names[nearest(rgb)];
+    }
+    
+    /**
+     * Find the entries nearest many colors
+     * @param rgb Colors as 0xRRGGBB
+     * @return Index of the nearest entry for each color
+     */
+    public int[] nearest(int[] rgb) {
+        Searcher searcher = new Searcher(this);
+        int[] nearest = new int[rgb.length];
+        for (int i = 0; i < rgb.length; i++) {
+            nearest[i] = searcher.nearest(rgb[i] & 0xFFFFFF);
+        }
+        return nearest;
+    }
+    
+    /**
+     * Get the perceived difference between a color and an entry
+     * @param rgb Color as 0xRRGGBB
+     * @param index The entry
+     * @return CIE76 delta E; about 2.3 is just noticeable
+     */
+    public double distance(int rgb, int index) {
+        float[] lab = new float[3];
+        ColorConverter.toLab(rgb, lab, 0);
+        double dl = lab[0] - labs[3 * index];
+        double da = lab[1] - labs[3 * index + 1];
+        double db = lab[2] - labs[3 * index + 2];
+        return Math.sqrt(dl * dl + da * da + db * db);
+    }
+    
+    /**
+     * Replace every pixel of an image with its nearest entry
+     * @param image The image
+     * @return A new image of the same size; alpha is kept for images with alpha
+     */
+    public BufferedImage map(BufferedImage image) {
+        ColorHistogram.Source source = new ColorHistogram.Source(image, 1);
+        BufferedImage mapped = new BufferedImage(image.getWidth(), image.getHeight(),
+                source.hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) mapped.getRaster().getDataBuffer()).getData();
+        int rows = image.getHeight();
+        int tasks = ForkJoinPool.commonPool().getParallelism() * TASKS_PER_THREAD;
+        MapTask task = new MapTask(this, source, pixels, 0, rows, Math.max(1, rows / tasks));
+        if (rows <= task.rowsPerTask) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return mapped;
+    }
+    
+    /**
+     * Arrange tree[start, end) so its middle entry splits it on the axis it spreads most along
+     */
+    private void build(int start, int end) {
+        if (end - start < 2) {
+            return;
+        }
+        int axis = 0;
+        float widest = -1;
+        for (int c = 0; c < 3; c++) {
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (int i = start; i < end; i++) {
+                float value = labs[3 * tree[i] + c];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = c;
+            }
+        }
+        int middle = (start + end) >>> 1;
+        select(start, end - 1, middle, axis);
+        axes[middle] = (byte) axis;
+        build(start, middle);
+        build(middle + 1, end);
+    }
+    
+    /**
+     * Quickselect: put the entry of rank k within tree[low, high] in place, smaller ones before it
+     */
+    private void select(int low, int high, int k, int axis) {
+        while (low < high) {
+            float pivot = labs[3 * tree[(low + high) >>> 1] + axis];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (labs[3 * tree[i] + axis] < pivot) {
+                    i++;
+                }
+                while (labs[3 * tree[j] + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ColorIndex[" + colors.length + " colors]";
+    }
+    
+    /**
+     * Nearest-entry lookups for one thread, with scratch space for filling in grid cells
+     */
+    private static final class Searcher {
+        
+        private final ColorIndex index;
+        private final float[] query = new float[3];
+        private final float[] box = new float[6];
+        private int best;
+        private float bestDistance;
+        private int[] found;
+        private int foundCount;
+        
+        Searcher(ColorIndex index) {
+            this.index = index;
+        }
+        
+        int nearest(int rgb) {
+            int red = rgb >> 16;
+            int green = rgb >> 8 & 0xFF;
+            int blue = rgb & 0xFF;
+            int cell = (red >> CELL_SHIFT) << 2 * GRID_BITS | (green >> CELL_SHIFT) << GRID_BITS | blue >> CELL_SHIFT;
+            int[] answers = index.cells.get(cell);
+            if (answers == null) {
+                // Threads racing on a cell find the same answers
+                answers = fillCell(cell);
+                index.cells.set(cell, answers);
+            }
+            if (answers.length == 1) {
+                return answers[0];
+            }
+            int color = (red & CELL_MASK) << 2 * CELL_SHIFT | (green & CELL_MASK) << CELL_SHIFT | blue & CELL_MASK;
+            int choice = answers[color >> 2] >>> ((color & 3) << 3) & 0xFF;
+            return answers[CHOICE_INTS + choice];
+        }
+        
+        /**
+         * Find the answers for a grid cell
+         * Any color in the cell is within reach of the entry nearest the middle of the cell's
+         * Lab bounds, so entries further than that from the bounds are never nearest. When
+         * more than one is left, each color of the cell picks among them.
+         */
+        private int[] fillCell(int cell) {
+            int side = (1 << GRID_BITS) - 1;
+            int low = (cell >> 2 * GRID_BITS) << 16 + CELL_SHIFT | (cell >> GRID_BITS & side) << 8 + CELL_SHIFT
+                    | (cell & side) << CELL_SHIFT;
+            int high = low | CELL_MASK * 0x010101;
+            ColorConverter.labBounds(low, high, box);
+            for (int c = 0; c < 3; c++) {
+                query[c] = (box[c] + box[c + 3]) / 2;
+            }
+            best = -1;
+            bestDistance = Float.MAX_VALUE;
+            search(0, index.tree.length);
+            float reach = 0;
+            for (int c = 0; c < 3; c++) {
+                float value = index.labs[3 * best + c];
+                float far = Math.max(value - box[c], box[c + 3] - value);
+                reach += far * far;
+            }
+            // A little further, to be safe against rounding in the distances
+            reach = reach * 1.0001f + 1e-3f;
+            if (found == null) {
+                found = new int[index.tree.length];
+            }
+            foundCount = 0;
+            collect(0, index.tree.length, reach);
+            if (foundCount == 1) {
+                return new int[] {found[0]};
+            }
+            // In entry order, so the first of equally near entries wins
+            int[] candidates = Arrays.copyOf(found, foundCount);
+            Arrays.sort(candidates);
+            int[] nearest = new int[CELL_COLORS];
+            // Chosen candidates, numbered in the order first chosen; at most one per color
+            int[] numbers = new int[candidates.length];
+            int chosen = 0;
+            for (int color = 0; color < CELL_COLORS; color++) {
+                int rgb = low + ((color >> 2 * CELL_SHIFT) << 16 | (color >> CELL_SHIFT & CELL_MASK) << 8 | color & CELL_MASK);
+                ColorConverter.toLab(rgb, query, 0);
+                int choice = 0;
+                float choiceDistance = Float.MAX_VALUE;
+                for (int i = 0; i < candidates.length; i++) {
+                    float distance = distance(index.labs, candidates[i]);
+                    if (distance < choiceDistance) {
+                        choiceDistance = distance;
+                        choice = i;
+                    }
+                }
+                if (numbers[choice] == 0) {
+                    numbers[choice] = ++chosen;
+                }
+                nearest[color] = choice;
+            }
+            if (chosen == 1) {
+                return new int[] {candidates[nearest[0]]};
+            }
+            int[] answers = new int[CHOICE_INTS + chosen];
+            for (int color = 0; color < CELL_COLORS; color++) {
+                int number = numbers[nearest[color]] - 1;
+                answers[color >> 2] |= number << ((color & 3) << 3);
+                answers[CHOICE_INTS + number] = candidates[nearest[color]];
+            }
+            return answers;
+        }
+        
+        /**
+         * Find the entry of tree[start, end) nearest the query, if nearer than the best so far
+         */
+        private void search(int start, int end) {
+            int[] tree = index.tree;
+            float[] labs = index.labs;
+            while (start < end) {
+                int middle = (start + end) >>> 1;
+                int entry = tree[middle];
+                float distance = distance(labs, entry);
+                if (distance < bestDistance || distance == bestDistance && entry < best) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+                int axis = index.axes[middle];
+                float offset = query[axis] - labs[3 * entry + axis];
+                // The near side first; the far side only if the splitting plane is within reach
+                if (offset < 0) {
+                    search(start, middle);
+                    if (offset * offset > bestDistance) {
+                        return;
+                    }
+                    start = middle + 1;
+                } else {
+                    search(middle + 1, end);
+                    if (offset * offset > bestDistance) {
+                        return;
+                    }
+                    end = middle;
+                }
+            }
+        }
+        
+        /**
+         * Add the entries of tree[start, end) within a squared distance of the box to found
+         */
+        private void collect(int start, int end, float reach) {
+            int[] tree = index.tree;
+            float[] labs = index.labs;
+            while (start < end) {
+                int middle = (start + end) >>> 1;
+                int entry = tree[middle];
+                float distance = 0;
+                for (int c = 0; c < 3; c++) {
+                    float value = labs[3 * entry + c];
+                    float outside = value < box[c] ? box[c] - value : value > box[c + 3] ? value - box[c + 3] : 0;
+                    distance += outside * outside;
+                }
+                if (distance <= reach) {
+                    found[foundCount++] = entry;
+                }
+                int axis = index.axes[middle];
+                float value = labs[3 * entry + axis];
+                // Entries before the middle are no higher on the axis, entries after it no lower
+                float below = box[axis] - value;
+                float above = value - box[axis + 3];
+                boolean lower = below <= 0 || below * below <= reach;
+                boolean upper = above <= 0 || above * above <= reach;
+                if (lower && upper) {
+                    collect(start, middle, reach);
+                    start = middle + 1;
+                } else if (lower) {
+                    end = middle;
+                } else if (upper) {
+                    start = middle + 1;
+                } else {
+                    return;
+                }
+            }
+        }
+        
+        private float distance(float[] labs, int entry) {
+            float dl = query[0] - labs[3 * entry];
+            float da = query[1] - labs[3 * entry + 1];
+            float db = query[2] - labs[3 * entry + 2];
+            return dl * dl + da * da + db * db;
+        }
+    }
+    
+    /**
+     * Splits a range of image rows in halves until it is small enough to map directly
+     */
+    private static final class MapTask extends RecursiveAction {
+        
+        private final ColorIndex index;
+        private final ColorHistogram.Source source;
+        private final int[] pixels;
+        private final int start;
+        private final int end;
+        private final int rowsPerTask;
+        
+        MapTask(ColorIndex index, ColorHistogram.Source source, int[] pixels, int start, int end, int rowsPerTask) {
+            this.index = index;
+            this.source = source;
+            this.pixels = pixels;
+            this.start = start;
+            this.end = end;
+            this.rowsPerTask = rowsPerTask;
+        }
+        
+        @Override
+        protected void compute() {
+            if (end - start > rowsPerTask) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new MapTask(index, source, pixels, start, middle, rowsPerTask),
+                          new MapTask(index, source, pixels, middle, end, rowsPerTask));
+                return;
+            }
+            Searcher searcher = new Searcher(index);
+            int[] colors = index.colors;
+            int width = source.width;
+            for (int y = start; y < end; y++) {
+                // Read the row in place, then replace each pixel, keeping its alpha
+                int base = y * width;
+                source.readRow(y, pixels, base);
+                for (int i = base; i < base + width; i++) {
+                    int argb = pixels[i];
+                    pixels[i] = argb & 0xFF000000 | colors[searcher.nearest(argb & 0xFFFFFF)];
+                }
+            }
+        }
+    }
+    
+    /**
+     * The CSS named colors, without the duplicate "grey" spellings
+     */
+    private static final class CssColors {
+        
+        private static final String[] NAMES_AND_HEX = {
+            "aliceblue", "#F0F8FF",
+            "antiquewhite", "#FAEBD7",
+            "aqua", "#00FFFF",
+            "aquamarine", "#7FFFD4",
+            "azure", "#F0FFFF",
+            "beige", "#F5F5DC",
+            "bisque", "#FFE4C4",
+            "black", "#000000",
+            "blanchedalmond", "#FFEBCD",
+            "blue", "#0000FF",
+            "blueviolet", "#8A2BE2",
+            "brown", "#A52A2A",
+            "burlywood", "#DEB887",
+            "cadetblue", "#5F9EA0",
+            "chartreuse", "#7FFF00",
+            "chocolate", "#D2691E",
+            "coral", "#FF7F50",
+            "cornflowerblue", "#6495ED",
+            "cornsilk", "#FFF8DC",
+            "crimson", "#DC143C",
+            "cyan", "#00FFFF",
+            "darkblue", "#00008B",
+            "darkcyan", "#008B8B",
+            "darkgoldenrod", "#B8860B",
+            "darkgray", "#A9A9A9",
+            "darkgreen", "#006400",
+            "darkkhaki", "#BDB76B",
+            "darkmagenta", "#8B008B",
+            "darkolivegreen", "#556B2F",
+            "darkorange", "#FF8C00",
+            "darkorchid", "#9932CC",
+            "darkred", "#8B0000",
+            "darksalmon", "#E9967A",
+            "darkseagreen", "#8FBC8F",
+            "darkslateblue", "#483D8B",
+            "darkslategray", "#2F4F4F",
+            "darkturquoise", "#00CED1",
+            "darkviolet", "#9400D3",
+            "deeppink", "#FF1493",
+            "deepskyblue", "#00BFFF",
+            "dimgray", "#696969",
+            "dodgerblue", "#1E90FF",
+            "firebrick", "#B22222",
+            "floralwhite", "#FFFAF0",
+            "forestgreen", "#228B22",
+            "fuchsia", "#FF00FF",
+            "gainsboro", "#DCDCDC",
+            "ghostwhite", "#F8F8FF",
+            "gold", "#FFD700",
+            "goldenrod", "#DAA520",
+            "gray", "#808080",
+            "green", "#008000",
+            "greenyellow", "#ADFF2F",
+            "honeydew", "#F0FFF0",
+            "hotpink", "#FF69B4",
+            "indianred", "#CD5C5C",
+            "indigo", "#4B0082",
+            "ivory", "#FFFFF0",
+            "khaki", "#F0E68C",
+            "lavender", "#E6E6FA",
+            "lavenderblush", "#FFF0F5",
+            "lawngreen", "#7CFC00",
+            "lemonchiffon", "#FFFACD",
+            "lightblue", "#ADD8E6",
+            "lightcoral", "#F08080",
+            "lightcyan", "#E0FFFF",
+            "lightgoldenrodyellow", "#FAFAD2",
+            "lightgray", "#D3D3D3",
+            "lightgreen", "#90EE90",
+            "lightpink", "#FFB6C1",
+            "lightsalmon", "#FFA07A",
+            "lightseagreen", "#20B2AA",
+            "lightskyblue", "#87CEFA",
+            "lightslategray", "#778899",
+            "lightsteelblue", "#B0C4DE",
+            "lightyellow", "#FFFFE0",
+            "lime", "#00FF00",
+            "limegreen", "#32CD32",
+            "linen", "#FAF0E6",
+            "magenta", "#FF00FF",
+            "maroon", "#800000",
+            "mediumaquamarine", "#66CDAA",
+            "mediumblue", "#0000CD",
+            "mediumorchid", "#BA55D3",
+            "mediumpurple", "#9370DB",
+            "mediumseagreen", "#3CB371",
+            "mediumslateblue", "#7B68EE",
+            "mediumspringgreen", "#00FA9A",
+            "mediumturquoise", "#48D1CC",
+            "mediumvioletred", "#C71585",
+            "midnightblue", "#191970",
+            "mintcream", "#F5FFFA",
+            "mistyrose", "#FFE4E1",
+            "moccasin", "#FFE4B5",
+            "navajowhite", "#FFDEAD",
+            "navy", "#000080",
+            "oldlace", "#FDF5E6",
+            "olive", "#808000",
+            "olivedrab", "#6B8E23",
+            "orange", "#FFA500",
+            "orangered", "#FF4500",
+            "orchid", "#DA70D6",
+            "palegoldenrod", "#EEE8AA",
+            "palegreen", "#98FB98",
+            "paleturquoise", "#AFEEEE",
+            "palevioletred", "#DB7093",
+            "papayawhip", "#FFEFD5",
+            "peachpuff", "#FFDAB9",
+            "peru", "#CD853F",
+            "pink", "#FFC0CB",
+            "plum", "#DDA0DD",
+            "powderblue", "#B0E0E6",
+            "purple", "#800080",
+            "rebeccapurple", "#663399",
+            "red", "#FF0000",
+            "rosybrown", "#BC8F8F",
+            "royalblue", "#4169E1",
+            "saddlebrown", "#8B4513",
+            "salmon", "#FA8072",
+            "sandybrown", "#F4A460",
+            "seagreen", "#2E8B57",
+            "seashell", "#FFF5EE",
+            "sienna", "#A0522D",
+            "silver", "#C0C0C0",
+            "skyblue", "#87CEEB",
+            "slateblue", "#6A5ACD",
+            "slategray", "#708090",
+            "snow", "#FFFAFA",
+            "springgreen", "#00FF7F",
+            "steelblue", "#4682B4",
+            "tan", "#D2B48C",
+            "teal", "#008080",
+            "thistle", "#D8BFD8",
+            "tomato", "#FF6347",
+            "turquoise", "#40E0D0",
+            "violet", "#EE82EE",
+            "wheat", "#F5DEB3",
+            "white", "#FFFFFF",
+            "whitesmoke", "#F5F5F5",
+            "yellow", "#FFFF00",
+            "yellowgreen", "#9ACD32"
+        };
+        
+        static final ColorIndex INDEX;
+        
+        static {
+            String[] names = new String[NAMES_AND_HEX.length / 2];
+            int[] rgb = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = NAMES_AND_HEX[2 * i];
+                rgb[i] = ColorConverter.parseHex(NAMES_AND_HEX[2 * i + 1]);
+            }
+            INDEX = new ColorIndex(names, rgb);
+        }
+    }
+}
@@ -1,8 +1,144 @@
 package com.utilities.colorpicker;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
 /**
- * Color Picker service
+ * Color Picker service: dominant colors of images and nearest named colors
+ * Palettes are extracted from a {@link ColorHistogram} of the image rather than from its
+ * pixels, so the quantizers' cost does not grow with the image. The histogram samples
+ * large images down to about maxSamples pixels on a staggered grid and is counted in
+ * parallel on the fork-join pool; a 50-megapixel image is reduced to a palette in a
+ * fraction of a second, most of it spent reading the sampled pixels.
+ *
+ * Named and brand colors are looked up through a {@link ColorIndex}, which keeps their Lab
+ * coordinates in a k-d tree rather than converting and scanning every entry per query.
  */
 public class ColorPicker {
-    // Implementation will be added
+    
+    private static final Logger logger = Logger.getLogger(ColorPicker.class.getName());
+    
+    public static final int DEFAULT_COLORS = 8;
+    public static final int MAX_COLORS = 256;
+    // Enough samples that a color covering 0.1% of the image still gets about a thousand
+    public static final int DEFAULT_MAX_SAMPLES = 1 << 20;
+    
+    private int maxSamples = DEFAULT_MAX_SAMPLES;
+    
+    /**
+     * Set how many pixels palette extraction reads at most
+     * @param maxSamples About how many pixels to sample; smaller images are read whole
+     */
+    public void setMaxSamples(int maxSamples) {
+        this.maxSamples = Math.max(1024, maxSamples);
+    }
+    
+    /**
+     * Extract the dominant colors of an image
+     * @param image The image; pixels less than half opaque are ignored
+     * @param colors Number of colors wanted, 1 to MAX_COLORS; fewer are returned for images
+     *               with fewer distinct colors
+     * @param method Quantization method
+     * @return The palette, most common color first
+     * @throws IllegalArgumentException If the number of colors is out of range
+     */
+    public Palette extractPalette(BufferedImage image, int colors, QuantizationMethod method) {
+        if (colors < 1 || colors > MAX_COLORS) {
+            throw new IllegalArgumentException("Number of colors must be between 1 and " + MAX_COLORS + ": " + colors);
+        }
+        long start = System.nanoTime();
+        ColorHistogram histogram = ColorHistogram.of(image, maxSamples);
+        long counted = System.nanoTime();
+        ColorQuantizer quantizer = new ColorQuantizer(histogram);
+        Palette palette = method == QuantizationMethod.K_MEANS ? quantizer.kMeans(colors) : quantizer.medianCut(colors);
+        logger.info(String.format("%s palette of %dx%d image from %,d samples: counted in %d ms, quantized in %d ms",
+                                  method.getDisplayName(), image.getWidth(), image.getHeight(), histogram.total,
+                                  (counted - start) / 1_000_000, (System.nanoTime() - counted) / 1_000_000));
+        return palette;
+    }
+    
+    /**
+     * Extract the dominant colors of an image file
+     * @param file Image in a format ImageIO can read
+     * @param colors Number of colors wanted, 1 to MAX_COLORS
+     * @param method Quantization method
+     * @return The palette, most common color first
+     * @throws IOException If the file cannot be read or is not a supported image
+     */
+    public Palette extractPalette(File file, int colors, QuantizationMethod method) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file.getName());
+        }
+        return extractPalette(image, colors, method);
+    }
+    
+    /**
+     * Get the CSS named colors
+     */
+    public ColorIndex getNamedColors() {
+        return ColorIndex.cssColors();
+    }
+    
+    /**
+     * Load named colors, such as a brand palette, from a text file
+     * Each line holds a name and a hex color, separated by spaces, a tab or a comma; blank
+     * lines and lines starting with // are skipped.
+     * @param file UTF-8 text file
+     * @return The index, in file order
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a line is not a name and a color, or the file has none
+     */
+    public ColorIndex loadColorIndex(File file) throws IOException {
+        Map<String, Integer> colors = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("//")) {
+                    continue;
+                }
+                int split = Math.max(line.lastIndexOf(','), Math.max(line.lastIndexOf(' '), line.lastIndexOf('\t')));
+                String name = split < 0 ? "" : line.substring(0, split).trim();
+                if (name.endsWith(",")) {
+                    name = name.substring(0, name.length() - 1).trim();
+                }
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException(file.getName() + " line " + number + ": expected a name and a color");
+                }
+                try {
+                    colors.put(name, ColorConverter.parseHex(line.substring(split + 1)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file.getName() + " line " + number + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        ColorIndex index = ColorIndex.of(colors);
+        logger.info("Loaded " + index.size() + " colors from " + file.getName());
+        return index;
+    }
+    
+    /**
+     * Replace every pixel of an image with the nearest color of an index
+     * @param image The image
+     * @param index Colors to map to, such as ColorIndex.of(palette)
+     * @return A new image of the same size
+     */
+    public BufferedImage mapToColors(BufferedImage image, ColorIndex index) {
+        long start = System.nanoTime();
+        BufferedImage mapped = index.map(image);
+        logger.info(String.format("Mapped %dx%d image to %d colors in %d ms", image.getWidth(), image.getHeight(),
+                                  index.size(), (System.nanoTime() - start) / 1_000_000));
+        return mapped;
+    }
 }
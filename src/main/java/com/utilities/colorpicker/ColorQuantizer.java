@@ -0,0 +1,308 @@
+package com.utilities.colorpicker;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Median cut and k-means over the occupied bins of a {@link ColorHistogram}
+ * Both work on the bins' mean colors weighted by their counts, so their cost depends on
+ * the number of distinct colors (at most 32768) rather than on the image size.
+ *
+ * Median cut repeatedly splits the box with the most pixels times its longest side at the
+ * pixel median of that side; bins are reordered with a counting sort on the 32 values of
+ * the side, so a split costs one pass over the box. K-means starts from the median cut
+ * and moves each center to the mean of the bins nearest it until none moves by more than
+ * half a level; the nearest centers are found in parallel, each task summing its bins
+ * into its own small array.
+ */
+final class ColorQuantizer {
+    
+    private static final int MAX_ITERATIONS = 32;
+    // Stops k-means once no center moves further than this, squared
+    private static final double CONVERGED = 0.25;
+    private static final int BINS_PER_TASK = 2048;
+    
+    // Occupied bins: mean color and pixel count
+    private final int[] reds;
+    private final int[] greens;
+    private final int[] blues;
+    private final int[] weights;
+    // Bin coordinates, 0 to 31 per channel
+    private final byte[][] coordinates;
+    private final int size;
+    // Median cut boxes, as ranges of the bins in order
+    private int[] order;
+    private int[] boxStarts;
+    private int[] boxEnds;
+    
+    ColorQuantizer(ColorHistogram histogram) {
+        int occupied = 0;
+        for (int count : histogram.counts) {
+            if (count > 0) {
+                occupied++;
+            }
+        }
+        reds = new int[occupied];
+        greens = new int[occupied];
+        blues = new int[occupied];
+        weights = new int[occupied];
+        coordinates = new byte[3][occupied];
+        int n = 0;
+        for (int bin = 0; bin < ColorHistogram.BINS; bin++) {
+            int count = histogram.counts[bin];
+            if (count == 0) {
+                continue;
+            }
+            reds[n] = (int) ((histogram.redSums[bin] + count / 2) / count);
+            greens[n] = (int) ((histogram.greenSums[bin] + count / 2) / count);
+            blues[n] = (int) ((histogram.blueSums[bin] + count / 2) / count);
+            weights[n] = count;
+            coordinates[0][n] = (byte) (bin >> 2 * ColorHistogram.BITS);
+            coordinates[1][n] = (byte) (bin >> ColorHistogram.BITS & ColorHistogram.SIDE - 1);
+            coordinates[2][n] = (byte) (bin & ColorHistogram.SIDE - 1);
+            n++;
+        }
+        size = occupied;
+    }
+    
+    /**
+     * Split the colors into boxes at population medians
+     * @param colors Number of colors wanted; fewer are returned if the image has fewer
+     * @return The palette of the boxes' mean colors
+     */
+    Palette medianCut(int colors) {
+        int boxes = cut(colors);
+        int[] rgb = new int[boxes];
+        long[] counts = new long[boxes];
+        for (int i = 0; i < boxes; i++) {
+            long red = 0;
+            long green = 0;
+            long blue = 0;
+            long count = 0;
+            for (int j = boxStarts[i]; j < boxEnds[i]; j++) {
+                int bin = order[j];
+                red += (long) reds[bin] * weights[bin];
+                green += (long) greens[bin] * weights[bin];
+                blue += (long) blues[bin] * weights[bin];
+                count += weights[bin];
+            }
+            rgb[i] = (int) ((red + count / 2) / count) << 16 | (int) ((green + count / 2) / count) << 8
+                   | (int) ((blue + count / 2) / count);
+            counts[i] = count;
+        }
+        return new Palette(rgb, counts);
+    }
+    
+    /**
+     * Cluster the colors with k-means, starting from the median cut
+     * @param colors Number of colors wanted; fewer are returned if the image has fewer
+     * @return The palette of the clusters' mean colors
+     */
+    Palette kMeans(int colors) {
+        Palette start = medianCut(colors);
+        int k = start.size();
+        double[] centers = new double[3 * k];
+        for (int i = 0; i < k; i++) {
+            int rgb = start.getRgb(i);
+            centers[3 * i] = rgb >> 16 & 0xFF;
+            centers[3 * i + 1] = rgb >> 8 & 0xFF;
+            centers[3 * i + 2] = rgb & 0xFF;
+        }
+        long[] sums = null;
+        for (int iteration = 0; iteration < MAX_ITERATIONS && k > 0; iteration++) {
+            AssignTask task = new AssignTask(this, centers, 0, size);
+            sums = size <= BINS_PER_TASK ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+            double moved = 0;
+            for (int i = 0; i < k; i++) {
+                long count = sums[4 * i + 3];
+                if (count == 0) {
+                    // Keeps its place; dropped from the palette if it stays empty
+                    continue;
+                }
+                double red = (double) sums[4 * i] / count;
+                double green = (double) sums[4 * i + 1] / count;
+                double blue = (double) sums[4 * i + 2] / count;
+                double dr = red - centers[3 * i];
+                double dg = green - centers[3 * i + 1];
+                double db = blue - centers[3 * i + 2];
+                moved = Math.max(moved, dr * dr + dg * dg + db * db);
+                centers[3 * i] = red;
+                centers[3 * i + 1] = green;
+                centers[3 * i + 2] = blue;
+            }
+            if (moved <= CONVERGED) {
+                break;
+            }
+        }
+        // Counts from the last assignment, taken before the final move
+        int[] rgb = new int[k];
+        long[] counts = new long[k];
+        for (int i = 0; i < k; i++) {
+            rgb[i] = (int) Math.round(centers[3 * i]) << 16 | (int) Math.round(centers[3 * i + 1]) << 8
+                   | (int) Math.round(centers[3 * i + 2]);
+            counts[i] = sums == null ? 0 : sums[4 * i + 3];
+        }
+        return new Palette(rgb, counts);
+    }
+    
+    /**
+     * Median cut, leaving each box as a range of order
+     * @return Number of boxes
+     */
+    private int cut(int colors) {
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        boxStarts = new int[colors];
+        boxEnds = new int[colors];
+        if (size == 0) {
+            return 0;
+        }
+        boxEnds[0] = size;
+        int boxes = 1;
+        int[] scratch = new int[size];
+        while (boxes < colors) {
+            // The box with the most pixels times its longest side
+            int best = -1;
+            int bestChannel = 0;
+            double bestScore = 0;
+            for (int i = 0; i < boxes; i++) {
+                int longest = 0;
+                int channel = 0;
+                for (int c = 0; c < 3; c++) {
+                    int min = ColorHistogram.SIDE;
+                    int max = -1;
+                    for (int j = boxStarts[i]; j < boxEnds[i]; j++) {
+                        int value = coordinates[c][order[j]];
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                    if (max - min > longest) {
+                        longest = max - min;
+                        channel = c;
+                    }
+                }
+                if (longest == 0) {
+                    // A single bin
+                    continue;
+                }
+                long count = 0;
+                for (int j = boxStarts[i]; j < boxEnds[i]; j++) {
+                    count += weights[order[j]];
+                }
+                double score = (double) count * longest;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                    bestChannel = channel;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int middle = split(scratch, boxStarts[best], boxEnds[best], coordinates[bestChannel]);
+            boxStarts[boxes] = middle;
+            boxEnds[boxes] = boxEnds[best];
+            boxEnds[best] = middle;
+            boxes++;
+        }
+        return boxes;
+    }
+    
+    /**
+     * Counting-sort order[start, end) by one channel and cut it at the pixel median
+     * The cut falls between two values of the channel, so both boxes shrink on it.
+     * @return Where the upper box starts
+     */
+    private int split(int[] scratch, int start, int end, byte[] channel) {
+        int[] positions = new int[ColorHistogram.SIDE + 1];
+        long[] valueWeights = new long[ColorHistogram.SIDE];
+        long total = 0;
+        for (int j = start; j < end; j++) {
+            int bin = order[j];
+            positions[channel[bin] + 1]++;
+            valueWeights[channel[bin]] += weights[bin];
+            total += weights[bin];
+        }
+        positions[0] = start;
+        for (int v = 1; v <= ColorHistogram.SIDE; v++) {
+            positions[v] += positions[v - 1];
+        }
+        int[] next = positions.clone();
+        for (int j = start; j < end; j++) {
+            int bin = order[j];
+            scratch[next[channel[bin]]++] = bin;
+        }
+        System.arraycopy(scratch, start, order, start, end - start);
+        
+        int median = 0;
+        long seen = 0;
+        while (2 * (seen + valueWeights[median]) < total) {
+            seen += valueWeights[median++];
+        }
+        // After the median value, unless nothing follows it
+        int cut = positions[median + 1];
+        return cut < end ? cut : positions[median];
+    }
+    
+    /**
+     * Splits a range of bins in halves, each leaf summing its bins into the nearest center
+     */
+    private static final class AssignTask extends RecursiveTask<long[]> {
+        
+        private final ColorQuantizer quantizer;
+        private final double[] centers;
+        private final int start;
+        private final int end;
+        
+        AssignTask(ColorQuantizer quantizer, double[] centers, int start, int end) {
+            this.quantizer = quantizer;
+            this.centers = centers;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (end - start > BINS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                AssignTask high = new AssignTask(quantizer, centers, middle, end);
+                high.fork();
+                long[] sums = new AssignTask(quantizer, centers, start, middle).compute();
+                long[] other = high.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += other[i];
+                }
+                return sums;
+            }
+            int k = centers.length / 3;
+            // Per center: weighted red, green and blue sums, then the count
+            long[] sums = new long[4 * k];
+            ColorQuantizer q = quantizer;
+            for (int bin = start; bin < end; bin++) {
+                int red = q.reds[bin];
+                int green = q.greens[bin];
+                int blue = q.blues[bin];
+                int nearest = 0;
+                double nearestDistance = Double.MAX_VALUE;
+                for (int i = 0; i < k; i++) {
+                    double dr = red - centers[3 * i];
+                    double dg = green - centers[3 * i + 1];
+                    double db = blue - centers[3 * i + 2];
+                    double distance = dr * dr + dg * dg + db * db;
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = i;
+                    }
+                }
+                long weight = q.weights[bin];
+                sums[4 * nearest] += red * weight;
+                sums[4 * nearest + 1] += green * weight;
+                sums[4 * nearest + 2] += blue * weight;
+                sums[4 * nearest + 3] += weight;
+            }
+            return sums;
+        }
+    }
+}
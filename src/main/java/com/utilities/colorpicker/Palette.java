@@ -0,0 +1,96 @@
+package com.utilities.colorpicker;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dominant colors of an image, most common first, with the share of the image each covers
+ */
+public final class Palette {
+    
+    private final int[] colors;
+    private final long[] counts;
+    private final long total;
+    
+    /**
+     * @param colors RGB colors
+     * @param counts Sampled pixels nearest each color; colors with none are left out
+     */
+    Palette(int[] colors, long[] counts) {
+        List<Integer> order = new ArrayList<>();
+        long sum = 0;
+        for (int i = 0; i < colors.length; i++) {
+            if (counts[i] > 0) {
+                order.add(i);
+                sum += counts[i];
+            }
+        }
+        order.sort((a, b) -> Long.compare(counts[b], counts[a]));
+        this.colors = new int[order.size()];
+        this.counts = new long[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            this.colors[i] = colors[order.get(i)] & 0xFFFFFF;
+            this.counts[i] = counts[order.get(i)];
+        }
+        this.total = sum;
+    }
+    
+    public int size() {
+        return colors.length;
+    }
+    
+    /**
+     * Get a color as 0xRRGGBB
+     */
+    public int getRgb(int index) {
+        return colors[index];
+    }
+    
+    public Color getColor(int index) {
+        return new Color(colors[index]);
+    }
+    
+    /**
+     * Get a color as #RRGGBB
+     */
+    public String getHex(int index) {
+        return String.format("#%06X", colors[index]);
+    }
+    
+    /**
+     * Get the fraction of the sampled pixels nearest a color
+     * @return Share between 0 and 1
+     */
+    public double getShare(int index) {
+        return total == 0 ? 0 : (double) counts[index] / total;
+    }
+    
+    /**
+     * Get the number of sampled pixels nearest a color
+     */
+    public long getCount(int index) {
+        return counts[index];
+    }
+    
+    public List<Color> getColors() {
+        List<Color> list = new ArrayList<>(colors.length);
+        for (int rgb : colors) {
+            list.add(new Color(rgb));
+        }
+        return Collections.unmodifiableList(list);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Palette[");
+        for (int i = 0; i < colors.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getHex(i)).append(String.format(" %.1f%%", getShare(i) * 100));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.utilities.colorpicker;
+
+/**
+ * Ways of reducing an image to a palette
+ */
+public enum QuantizationMethod {
+    /** Split the color space at population medians; fast and deterministic */
+    MEDIAN_CUT("Median Cut"),
+    /** Median cut refined by k-means; closer colors for a little more time */
+    K_MEANS("K-Means");
+    
+    private final String displayName;
+    
+    QuantizationMethod(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
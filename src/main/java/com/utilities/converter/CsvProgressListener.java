@@ -0,0 +1,15 @@
+package com.utilities.converter;
+
+/**
+ * Receives progress of a streaming CSV conversion
+ * Called on the thread that started the conversion, after each chunk is written
+ */
+public interface CsvProgressListener {
+    
+    /**
+     * Called as converted chunks are written, in file order
+     * @param bytesDone Input bytes converted and written so far
+     * @param totalBytes Size of the input file
+     */
+    void onProgress(long bytesDone, long totalBytes);
+}
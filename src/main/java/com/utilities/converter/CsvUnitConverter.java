@@ -0,0 +1,457 @@
+package com.utilities.converter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Streaming unit conversion of columns in large CSV files
+ * The input is memory-mapped chunk by chunk, split at line boundaries, and chunks
+ * are converted in parallel and written to the output in order. At most two chunks
+ * per thread are in flight, so memory use does not depend on the file size.
+ *
+ * Numbers are parsed straight from the mapped bytes and formatted through a reused
+ * StringBuilder, so no String is created per field. Fields that are not numbers
+ * (blank, "NA", ...) are copied unchanged, as are all other columns and the line
+ * endings. Quoted fields may contain delimiters but not line breaks.
+ */
+public class CsvUnitConverter {
+    
+    private static final Logger logger = Logger.getLogger(CsvUnitConverter.class.getName());
+    
+    public static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+    // Window mapped at a time while searching for the end of a line
+    private static final int BOUNDARY_WINDOW = 64 * 1024;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    private final UnitConverter converter;
+    // Conversion per column index, null for columns copied unchanged
+    private UnitConverter.Conversion[] columns = new UnitConverter.Conversion[0];
+    private byte delimiter = ',';
+    private boolean header = true;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkBytes = DEFAULT_CHUNK_BYTES;
+    
+    public CsvUnitConverter(UnitConverter converter) {
+        this.converter = converter;
+    }
+    
+    /**
+     * Convert a column between two units
+     * @param column Zero-based column index
+     * @param from Unit of the values in the input
+     * @param to Unit to write
+     * @throws IllegalArgumentException If the units measure different quantities
+     */
+    public void addColumn(int column, Unit from, Unit to) {
+        if (column < 0) {
+            throw new IllegalArgumentException("Invalid column: " + column);
+        }
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, column + 1);
+        }
+        columns[column] = converter.getConversion(from, to);
+    }
+    
+    /**
+     * Set the field delimiter
+     * @param delimiter An ASCII delimiter such as ',', ';' or '\t'
+     */
+    public void setDelimiter(char delimiter) {
+        if (delimiter > 127 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+    }
+    
+    /**
+     * Set whether the first line is a header, copied without conversion
+     * @param header True if the file starts with a header line
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+    
+    /**
+     * Set the target chunk size; chunks end at the first line break after it
+     * @param chunkBytes Approximate bytes per chunk
+     */
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = Math.max(1024, chunkBytes);
+    }
+    
+    /**
+     * Convert a CSV file
+     * @param input Input CSV file, ASCII-compatible encoding such as UTF-8
+     * @param output Output file, replaced if it exists
+     * @param listener Receives progress after each chunk; may be null
+     * @return Number of data lines processed
+     * @throws IOException If a file cannot be read or written
+     * @throws InterruptedIOException If the calling thread is interrupted; the output is incomplete
+     */
+    public long convert(File input, File output, CsvProgressListener listener) throws IOException {
+        if (input.getCanonicalFile().equals(output.getCanonicalFile())) {
+            throw new IllegalArgumentException("Input and output must be different files");
+        }
+        
+        long start = System.currentTimeMillis();
+        UnitConverter.Conversion[] conversions = columns.clone();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-convert");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int window = threads * 2;
+        Deque<Future<Chunk>> pending = new ArrayDeque<>(window);
+        long lines = 0;
+        long skipped = 0;
+        
+        try (RandomAccessFile in = new RandomAccessFile(input, "r");
+             FileOutputStream out = new FileOutputStream(output)) {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            long position = 0;
+            long written = 0;
+            boolean first = true;
+            
+            while (position < size || !pending.isEmpty()) {
+                // Keep a bounded window of chunks in flight, oldest written first
+                while (position < size && pending.size() < window) {
+                    long end = lineBoundary(channel, Math.min(size, position + chunkBytes), size);
+                    long chunkStart = position;
+                    boolean skipHeader = first && header;
+                    pending.add(executor.submit(() -> convertChunk(channel, chunkStart, end, skipHeader, conversions)));
+                    position = end;
+                    first = false;
+                }
+                
+                Chunk chunk = await(pending.poll());
+                out.write(chunk.bytes, 0, chunk.length);
+                lines += chunk.lines;
+                skipped += chunk.skipped;
+                written += chunk.inputLength;
+                if (listener != null) {
+                    listener.onProgress(written, size);
+                }
+            }
+            
+            long millis = System.currentTimeMillis() - start;
+            logger.info("Converted " + lines + " line(s) of " + input.getName() + " (" + size / 1024 + " KB) in "
+                    + millis + " ms" + (skipped > 0 ? ", " + skipped + " non-numeric field(s) copied" : ""));
+            return lines;
+            
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Find the start of the line following a position
+     * @return Offset just past the next line break at or after position, or size
+     */
+    private static long lineBoundary(FileChannel channel, long position, long size) throws IOException {
+        while (position < size) {
+            int length = (int) Math.min(BOUNDARY_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+    
+    private Chunk convertChunk(FileChannel channel, long start, long end, boolean skipHeader,
+                               UnitConverter.Conversion[] conversions) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ChunkWriter writer = new ChunkWriter(buffer, (int) (end - start), delimiter, conversions);
+        writer.run(skipHeader);
+        return new Chunk(writer.out, writer.length, end - start, writer.lines, writer.skipped);
+    }
+    
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV conversion cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+    
+    /**
+     * Converted output of one chunk
+     */
+    private static final class Chunk {
+        
+        final byte[] bytes;
+        final int length;
+        final long inputLength;
+        final long lines;
+        final long skipped;
+        
+        Chunk(byte[] bytes, int length, long inputLength, long lines, long skipped) {
+            this.bytes = bytes;
+            this.length = length;
+            this.inputLength = inputLength;
+            this.lines = lines;
+            this.skipped = skipped;
+        }
+    }
+    
+    /**
+     * Converts the lines of one mapped chunk into a byte array
+     */
+    private static final class ChunkWriter {
+        
+        private final MappedByteBuffer in;
+        private final int size;
+        private final byte delimiter;
+        private final UnitConverter.Conversion[] conversions;
+        private final StringBuilder number = new StringBuilder(32);
+        
+        byte[] out;
+        int length = 0;
+        long lines = 0;
+        long skipped = 0;
+        // Result of the last successful parse, and whether the number was quoted
+        private double value;
+        private boolean quotedValue;
+        
+        ChunkWriter(MappedByteBuffer in, int size, byte delimiter, UnitConverter.Conversion[] conversions) {
+            this.in = in;
+            this.size = size;
+            this.delimiter = delimiter;
+            this.conversions = conversions;
+            // Converted numbers are usually a little longer than the input
+            this.out = new byte[size + size / 4 + 64];
+        }
+        
+        void run(boolean skipHeader) {
+            int position = 0;
+            while (position < size) {
+                int lineEnd = position;
+                while (lineEnd < size && in.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > position && in.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                int next = lineEnd < size ? lineEnd + 1 : size;
+                
+                if (skipHeader) {
+                    copy(position, contentEnd);
+                    skipHeader = false;
+                } else {
+                    convertLine(position, contentEnd);
+                    lines++;
+                }
+                copy(contentEnd, next);
+                position = next;
+            }
+        }
+        
+        private void convertLine(int start, int end) {
+            int column = 0;
+            int fieldStart = start;
+            boolean quoted = false;
+            for (int i = start; i <= end; i++) {
+                byte b = i < end ? in.get(i) : delimiter;
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == delimiter && (!quoted || i == end)) {
+                    convertField(column++, fieldStart, i);
+                    if (i < end) {
+                        put(delimiter);
+                    }
+                    fieldStart = i + 1;
+                }
+            }
+        }
+        
+        private void convertField(int column, int start, int end) {
+            UnitConverter.Conversion conversion = column < conversions.length ? conversions[column] : null;
+            if (conversion == null) {
+                copy(start, end);
+            } else if (parse(start, end)) {
+                number.setLength(0);
+                number.append(conversion.apply(value));
+                ensure(number.length() + 2);
+                if (quotedValue) {
+                    out[length++] = '"';
+                }
+                for (int i = 0; i < number.length(); i++) {
+                    out[length++] = (byte) number.charAt(i);
+                }
+                if (quotedValue) {
+                    out[length++] = '"';
+                }
+            } else {
+                copy(start, end);
+                if (end > start) {
+                    skipped++;
+                }
+            }
+        }
+        
+        /**
+         * Parse a decimal number in [start, end) into value
+         * Spaces and tabs around the number, and one pair of quotes, are ignored.
+         * Up to 15 significant digits with a small exponent are converted exactly with one
+         * multiplication or division; anything longer falls back to Double.parseDouble.
+         */
+        private boolean parse(int start, int end) {
+            while (start < end && isBlank(in.get(start))) {
+                start++;
+            }
+            while (end > start && isBlank(in.get(end - 1))) {
+                end--;
+            }
+            quotedValue = end - start >= 2 && in.get(start) == '"' && in.get(end - 1) == '"';
+            if (quotedValue) {
+                start++;
+                end--;
+            }
+            
+            int i = start;
+            boolean negative = false;
+            if (i < end && (in.get(i) == '-' || in.get(i) == '+')) {
+                negative = in.get(i) == '-';
+                i++;
+            }
+            
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            boolean exact = true;
+            boolean fraction = false;
+            for (; i < end; i++) {
+                byte b = in.get(i);
+                if (b >= '0' && b <= '9') {
+                    any = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                        if (fraction) {
+                            exponent--;
+                        }
+                    } else {
+                        exact = false;
+                        if (!fraction) {
+                            exponent++;
+                        }
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+            if (!any) {
+                return false;
+            }
+            
+            if (i < end && (in.get(i) == 'e' || in.get(i) == 'E')) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (in.get(i) == '-' || in.get(i) == '+')) {
+                    negativeExponent = in.get(i) == '-';
+                    i++;
+                }
+                int explicit = 0;
+                boolean expDigits = false;
+                for (; i < end && in.get(i) >= '0' && in.get(i) <= '9'; i++) {
+                    explicit = Math.min(explicit * 10 + (in.get(i) - '0'), 100000);
+                    expDigits = true;
+                }
+                if (!expDigits) {
+                    return false;
+                }
+                exponent += negativeExponent ? -explicit : explicit;
+            }
+            if (i != end) {
+                return false;
+            }
+            
+            if (exact && digits <= 15) {
+                if (exponent == 0) {
+                    value = mantissa;
+                } else if (exponent > 0 && exponent <= 22) {
+                    value = mantissa * POWERS_OF_TEN[exponent];
+                } else if (exponent < 0 && exponent >= -22) {
+                    value = mantissa / POWERS_OF_TEN[-exponent];
+                } else {
+                    return parseSlow(start, end);
+                }
+                if (negative) {
+                    value = -value;
+                }
+                return true;
+            }
+            return parseSlow(start, end);
+        }
+        
+        private boolean parseSlow(int start, int end) {
+            byte[] text = new byte[end - start];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = in.get(start + i);
+            }
+            try {
+                value = Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        
+        private void copy(int start, int end) {
+            ensure(end - start);
+            for (int i = start; i < end; i++) {
+                out[length++] = in.get(i);
+            }
+        }
+        
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+        
+        private void put(byte b) {
+            ensure(1);
+            out[length++] = b;
+        }
+        
+        private void ensure(int extra) {
+            if (length + extra > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, length + extra));
+            }
+        }
+    }
+}
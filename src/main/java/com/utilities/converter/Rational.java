@@ -0,0 +1,128 @@
+package com.utilities.converter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Exact fraction used to define and compose conversion factors
+ * Always reduced, with a positive denominator.
+ */
+final class Rational {
+    
+    static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+    static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+    
+    // Enough digits that rounding to double is correct
+    private static final MathContext DOUBLE_CONTEXT = new MathContext(40);
+    
+    private final BigInteger numerator;
+    private final BigInteger denominator;
+    
+    private Rational(BigInteger numerator, BigInteger denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+    
+    static Rational of(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("Zero denominator");
+        }
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+            numerator = numerator.divide(gcd);
+            denominator = denominator.divide(gcd);
+        }
+        return new Rational(numerator, denominator);
+    }
+    
+    static Rational of(BigDecimal value) {
+        if (value.scale() <= 0) {
+            return new Rational(value.toBigIntegerExact(), BigInteger.ONE);
+        }
+        return of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+    }
+    
+    /**
+     * Parse an exact decimal ("0.3048", "1.602176634E-19") or a fraction of two decimals ("5/9")
+     * @param text Value text
+     * @return The exact value
+     * @throws NumberFormatException If the text is not a valid value
+     */
+    static Rational parse(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return of(new BigDecimal(text.trim()));
+        }
+        return of(new BigDecimal(text.substring(0, slash).trim()))
+                .divide(of(new BigDecimal(text.substring(slash + 1).trim())));
+    }
+    
+    Rational add(Rational other) {
+        return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                  denominator.multiply(other.denominator));
+    }
+    
+    Rational subtract(Rational other) {
+        return add(other.negate());
+    }
+    
+    Rational multiply(Rational other) {
+        return of(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+    }
+    
+    Rational divide(Rational other) {
+        return of(numerator.multiply(other.denominator), denominator.multiply(other.numerator));
+    }
+    
+    Rational negate() {
+        return new Rational(numerator.negate(), denominator);
+    }
+    
+    boolean isZero() {
+        return numerator.signum() == 0;
+    }
+    
+    BigInteger getNumerator() {
+        return numerator;
+    }
+    
+    BigInteger getDenominator() {
+        return denominator;
+    }
+    
+    /**
+     * Round to the nearest double
+     * @return The value as a double
+     */
+    double doubleValue() {
+        return toBigDecimal(DOUBLE_CONTEXT).doubleValue();
+    }
+    
+    BigDecimal toBigDecimal(MathContext context) {
+        return new BigDecimal(numerator).divide(new BigDecimal(denominator), context);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        Rational other = (Rational) o;
+        return numerator.equals(other.numerator) && denominator.equals(other.denominator);
+    }
+    
+    @Override
+    public int hashCode() {
+        return numerator.hashCode() * 31 + denominator.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return denominator.equals(BigInteger.ONE) ? numerator.toString() : numerator + "/" + denominator;
+    }
+}
@@ -0,0 +1,188 @@
+package com.utilities.converter;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Supported units with their exact definition relative to the base unit of their category
+ * A value v in this unit is (v * scale + offset) in the base unit. Scales and offsets
+ * are exact decimals or fractions, so composed factors carry no rounding error.
+ *
+ * Base units: metre, kilogram, kelvin, square metre, cubic metre, second,
+ * metre per second, joule, pascal and byte.
+ */
+public enum Unit {
+    // Length
+    NANOMETER(UnitCategory.LENGTH, "nm", "Nanometer", "1E-9"),
+    MICROMETER(UnitCategory.LENGTH, "\u00b5m", "Micrometer", "1E-6"),
+    MILLIMETER(UnitCategory.LENGTH, "mm", "Millimeter", "0.001"),
+    CENTIMETER(UnitCategory.LENGTH, "cm", "Centimeter", "0.01"),
+    METER(UnitCategory.LENGTH, "m", "Meter", "1"),
+    KILOMETER(UnitCategory.LENGTH, "km", "Kilometer", "1000"),
+    INCH(UnitCategory.LENGTH, "in", "Inch", "0.0254"),
+    FOOT(UnitCategory.LENGTH, "ft", "Foot", "0.3048"),
+    YARD(UnitCategory.LENGTH, "yd", "Yard", "0.9144"),
+    MILE(UnitCategory.LENGTH, "mi", "Mile", "1609.344"),
+    NAUTICAL_MILE(UnitCategory.LENGTH, "nmi", "Nautical mile", "1852"),
+    
+    // Weight
+    MILLIGRAM(UnitCategory.WEIGHT, "mg", "Milligram", "1E-6"),
+    GRAM(UnitCategory.WEIGHT, "g", "Gram", "0.001"),
+    KILOGRAM(UnitCategory.WEIGHT, "kg", "Kilogram", "1"),
+    TONNE(UnitCategory.WEIGHT, "t", "Tonne", "1000"),
+    OUNCE(UnitCategory.WEIGHT, "oz", "Ounce", "0.028349523125"),
+    POUND(UnitCategory.WEIGHT, "lb", "Pound", "0.45359237"),
+    STONE(UnitCategory.WEIGHT, "st", "Stone", "6.35029318"),
+    SHORT_TON(UnitCategory.WEIGHT, "ton", "Short ton (US)", "907.18474"),
+    LONG_TON(UnitCategory.WEIGHT, "LT", "Long ton (UK)", "1016.0469088"),
+    
+    // Temperature
+    CELSIUS(UnitCategory.TEMPERATURE, "\u00b0C", "Celsius", "1", "273.15"),
+    FAHRENHEIT(UnitCategory.TEMPERATURE, "\u00b0F", "Fahrenheit", "5/9", "45967/180"),
+    KELVIN(UnitCategory.TEMPERATURE, "K", "Kelvin", "1"),
+    RANKINE(UnitCategory.TEMPERATURE, "\u00b0R", "Rankine", "5/9"),
+    
+    // Area
+    SQUARE_MILLIMETER(UnitCategory.AREA, "mm\u00b2", "Square millimeter", "1E-6"),
+    SQUARE_CENTIMETER(UnitCategory.AREA, "cm\u00b2", "Square centimeter", "0.0001"),
+    SQUARE_METER(UnitCategory.AREA, "m\u00b2", "Square meter", "1"),
+    HECTARE(UnitCategory.AREA, "ha", "Hectare", "10000"),
+    SQUARE_KILOMETER(UnitCategory.AREA, "km\u00b2", "Square kilometer", "1000000"),
+    SQUARE_INCH(UnitCategory.AREA, "in\u00b2", "Square inch", "0.00064516"),
+    SQUARE_FOOT(UnitCategory.AREA, "ft\u00b2", "Square foot", "0.09290304"),
+    SQUARE_YARD(UnitCategory.AREA, "yd\u00b2", "Square yard", "0.83612736"),
+    ACRE(UnitCategory.AREA, "ac", "Acre", "4046.8564224"),
+    SQUARE_MILE(UnitCategory.AREA, "mi\u00b2", "Square mile", "2589988.110336"),
+    
+    // Volume
+    MILLILITER(UnitCategory.VOLUME, "mL", "Milliliter", "1E-6"),
+    LITER(UnitCategory.VOLUME, "L", "Liter", "0.001"),
+    CUBIC_CENTIMETER(UnitCategory.VOLUME, "cm\u00b3", "Cubic centimeter", "1E-6"),
+    CUBIC_METER(UnitCategory.VOLUME, "m\u00b3", "Cubic meter", "1"),
+    CUBIC_INCH(UnitCategory.VOLUME, "in\u00b3", "Cubic inch", "0.000016387064"),
+    CUBIC_FOOT(UnitCategory.VOLUME, "ft\u00b3", "Cubic foot", "0.028316846592"),
+    US_TEASPOON(UnitCategory.VOLUME, "tsp", "Teaspoon (US)", "0.00000492892159375"),
+    US_TABLESPOON(UnitCategory.VOLUME, "tbsp", "Tablespoon (US)", "0.00001478676478125"),
+    US_FLUID_OUNCE(UnitCategory.VOLUME, "fl oz", "Fluid ounce (US)", "0.0000295735295625"),
+    US_CUP(UnitCategory.VOLUME, "cup", "Cup (US)", "0.0002365882365"),
+    US_PINT(UnitCategory.VOLUME, "pt", "Pint (US)", "0.000473176473"),
+    US_QUART(UnitCategory.VOLUME, "qt", "Quart (US)", "0.000946352946"),
+    US_GALLON(UnitCategory.VOLUME, "gal", "Gallon (US)", "0.003785411784"),
+    IMPERIAL_GALLON(UnitCategory.VOLUME, "imp gal", "Gallon (imperial)", "0.00454609"),
+    
+    // Time
+    NANOSECOND(UnitCategory.TIME, "ns", "Nanosecond", "1E-9"),
+    MICROSECOND(UnitCategory.TIME, "\u00b5s", "Microsecond", "1E-6"),
+    MILLISECOND(UnitCategory.TIME, "ms", "Millisecond", "0.001"),
+    SECOND(UnitCategory.TIME, "s", "Second", "1"),
+    MINUTE(UnitCategory.TIME, "min", "Minute", "60"),
+    HOUR(UnitCategory.TIME, "h", "Hour", "3600"),
+    DAY(UnitCategory.TIME, "d", "Day", "86400"),
+    WEEK(UnitCategory.TIME, "wk", "Week", "604800"),
+    YEAR(UnitCategory.TIME, "yr", "Year (Julian)", "31557600"),
+    
+    // Speed
+    METER_PER_SECOND(UnitCategory.SPEED, "m/s", "Meter per second", "1"),
+    KILOMETER_PER_HOUR(UnitCategory.SPEED, "km/h", "Kilometer per hour", "5/18"),
+    MILE_PER_HOUR(UnitCategory.SPEED, "mph", "Mile per hour", "0.44704"),
+    FOOT_PER_SECOND(UnitCategory.SPEED, "ft/s", "Foot per second", "0.3048"),
+    KNOT(UnitCategory.SPEED, "kn", "Knot", "1852/3600"),
+    
+    // Energy
+    ELECTRONVOLT(UnitCategory.ENERGY, "eV", "Electronvolt", "1.602176634E-19"),
+    JOULE(UnitCategory.ENERGY, "J", "Joule", "1"),
+    KILOJOULE(UnitCategory.ENERGY, "kJ", "Kilojoule", "1000"),
+    CALORIE(UnitCategory.ENERGY, "cal", "Calorie", "4.184"),
+    KILOCALORIE(UnitCategory.ENERGY, "kcal", "Kilocalorie", "4184"),
+    WATT_HOUR(UnitCategory.ENERGY, "Wh", "Watt hour", "3600"),
+    KILOWATT_HOUR(UnitCategory.ENERGY, "kWh", "Kilowatt hour", "3600000"),
+    BTU(UnitCategory.ENERGY, "BTU", "British thermal unit", "1055.05585262"),
+    
+    // Pressure
+    PASCAL(UnitCategory.PRESSURE, "Pa", "Pascal", "1"),
+    KILOPASCAL(UnitCategory.PRESSURE, "kPa", "Kilopascal", "1000"),
+    MEGAPASCAL(UnitCategory.PRESSURE, "MPa", "Megapascal", "1000000"),
+    MILLIBAR(UnitCategory.PRESSURE, "mbar", "Millibar", "100"),
+    BAR(UnitCategory.PRESSURE, "bar", "Bar", "100000"),
+    ATMOSPHERE(UnitCategory.PRESSURE, "atm", "Atmosphere", "101325"),
+    TORR(UnitCategory.PRESSURE, "Torr", "Torr", "101325/760"),
+    MILLIMETER_OF_MERCURY(UnitCategory.PRESSURE, "mmHg", "Millimeter of mercury", "133.322387415"),
+    INCH_OF_MERCURY(UnitCategory.PRESSURE, "inHg", "Inch of mercury", "3386.389"),
+    // Pound-force (0.45359237 kg * 9.80665 m/s^2) per square inch
+    PSI(UnitCategory.PRESSURE, "psi", "Pound per square inch", "4.4482216152605/0.00064516"),
+    
+    // Data
+    BIT(UnitCategory.DATA, "bit", "Bit", "0.125"),
+    BYTE(UnitCategory.DATA, "B", "Byte", "1"),
+    KILOBYTE(UnitCategory.DATA, "kB", "Kilobyte", "1000"),
+    MEGABYTE(UnitCategory.DATA, "MB", "Megabyte", "1E6"),
+    GIGABYTE(UnitCategory.DATA, "GB", "Gigabyte", "1E9"),
+    TERABYTE(UnitCategory.DATA, "TB", "Terabyte", "1E12"),
+    KIBIBYTE(UnitCategory.DATA, "KiB", "Kibibyte", "1024"),
+    MEBIBYTE(UnitCategory.DATA, "MiB", "Mebibyte", "1048576"),
+    GIBIBYTE(UnitCategory.DATA, "GiB", "Gibibyte", "1073741824"),
+    TEBIBYTE(UnitCategory.DATA, "TiB", "Tebibyte", "1099511627776");
+    
+    private static final Map<String, Unit> BY_SYMBOL = new HashMap<>();
+    
+    static {
+        for (Unit unit : values()) {
+            BY_SYMBOL.put(unit.symbol, unit);
+        }
+    }
+    
+    private final UnitCategory category;
+    private final String symbol;
+    private final String displayName;
+    final Rational scale;
+    final Rational offset;
+    
+    Unit(UnitCategory category, String symbol, String displayName, String scale) {
+        this(category, symbol, displayName, scale, "0");
+    }
+    
+    Unit(UnitCategory category, String symbol, String displayName, String scale, String offset) {
+        this.category = category;
+        this.symbol = symbol;
+        this.displayName = displayName;
+        this.scale = Rational.parse(scale);
+        this.offset = Rational.parse(offset);
+    }
+    
+    public UnitCategory getCategory() {
+        return category;
+    }
+    
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Look up a unit by its symbol ("km", "\u00b0F") or constant name ("kilometer")
+     * @param name Symbol or name; names are case-insensitive
+     * @return The unit
+     * @throws IllegalArgumentException If no unit matches
+     */
+    public static Unit fromSymbol(String name) {
+        String trimmed = name.trim();
+        Unit unit = BY_SYMBOL.get(trimmed);
+        if (unit != null) {
+            return unit;
+        }
+        try {
+            return valueOf(trimmed.toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown unit: " + name);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return displayName + " (" + symbol + ")";
+    }
+}
@@ -0,0 +1,32 @@
+package com.utilities.converter;
+
+/**
+ * Physical quantities the converter supports; units convert only within a category
+ */
+public enum UnitCategory {
+    LENGTH("Length"),
+    WEIGHT("Weight"),
+    TEMPERATURE("Temperature"),
+    AREA("Area"),
+    VOLUME("Volume"),
+    TIME("Time"),
+    SPEED("Speed"),
+    ENERGY("Energy"),
+    PRESSURE("Pressure"),
+    DATA("Data");
+    
+    private final String displayName;
+    
+    UnitCategory(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
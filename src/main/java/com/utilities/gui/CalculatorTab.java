@@ -1,13 +1,408 @@
 package com.utilities.gui;
 
+import com.utilities.calculator.AngleMode;
 import com.utilities.calculator.Calculator;
+import com.utilities.calculator.CompiledExpression;
+import com.utilities.utils.ErrorDialog;
+
 import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Calculator Tab placeholder
+ * Calculator Tab - TI-84 style home screen, Y= graphs and function tables
  */
 public class CalculatorTab extends JPanel {
+    
+    // The TI-84 displays ten significant digits
+    private static final MathContext DISPLAY_PRECISION = new MathContext(10);
+    
+    private Calculator calculator;
+    private JLabel statusLabel;
+    
+    // UI Components
+    private JTextArea historyArea;
+    private JTextField entryField;
+    private JComboBox<AngleMode> angleModeBox;
+    private JCheckBox preciseBox;
+    private JSpinner digitsSpinner;
+    private JButton enterButton;
+    private JButton clearButton;
+    private JTextField[] functionFields;
+    private GraphPanel graphPanel;
+    private JButton zoomStandardButton;
+    private JTextField tableStartField;
+    private JTextField tableStepField;
+    private JSpinner tableRowsSpinner;
+    private FunctionTableModel tableModel;
+    private List<CompiledExpression> functions = new ArrayList<>();
+    // Set while a precise entry is evaluated in the background
+    private boolean evaluating;
+    
+    // Previous entries, recalled with the up and down arrows
+    private final List<String> entries = new ArrayList<>();
+    private int recallIndex;
+    
     public CalculatorTab(Calculator calculator, JLabel statusLabel) {
-        add(new JLabel("Calculator functionality coming soon..."));
+        this.calculator = calculator;
+        this.statusLabel = statusLabel;
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        updateFunctions();
+    }
+    
+    private void initializeComponents() {
+        historyArea = new JTextArea();
+        historyArea.setEditable(false);
+        historyArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        historyArea.setBackground(new Color(232, 240, 228));
+        
+        entryField = new JTextField();
+        entryField.setFont(new Font("Monospaced", Font.BOLD, 16));
+        
+        angleModeBox = new JComboBox<>(AngleMode.values());
+        angleModeBox.setSelectedItem(calculator.getAngleMode());
+        
+        preciseBox = new JCheckBox("Precise");
+        preciseBox.setToolTipText("Evaluate in BigDecimal at the chosen number of significant digits");
+        digitsSpinner = new JSpinner(new SpinnerNumberModel(50, 1, 10000, 10));
+        digitsSpinner.setEnabled(false);
+        
+        enterButton = createStyledButton("Enter", new Color(70, 130, 180));
+        clearButton = createStyledButton("Clear", new Color(220, 20, 60));
+        
+        functionFields = new JTextField[GraphPanel.FUNCTION_COLORS.length];
+        for (int i = 0; i < functionFields.length; i++) {
+            functionFields[i] = new JTextField(i == 0 ? "sin(X)" : "", 16);
+            functionFields[i].setFont(new Font("Monospaced", Font.PLAIN, 14));
+        }
+        graphPanel = new GraphPanel();
+        zoomStandardButton = createStyledButton("ZStandard", new Color(70, 130, 180));
+        
+        tableStartField = new JTextField("0", 6);
+        tableStepField = new JTextField("1", 6);
+        tableRowsSpinner = new JSpinner(new SpinnerNumberModel(1000, 1, 1_000_000, 100));
+        tableModel = new FunctionTableModel();
+    }
+    
+    private JButton createStyledButton(String text, Color backgroundColor) {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(100, 35));
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(backgroundColor);
+        button.setForeground(Color.BLACK);
+        button.setFocusPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        JPanel screenPanel = new JPanel(new BorderLayout());
+        screenPanel.setBorder(new TitledBorder("Home Screen"));
+        screenPanel.add(new JScrollPane(historyArea), BorderLayout.CENTER);
+        
+        JPanel entryPanel = new JPanel(new BorderLayout(10, 10));
+        entryPanel.setBorder(new TitledBorder("Entry (use ->A to store, Ans for the last result)"));
+        entryPanel.add(entryField, BorderLayout.CENTER);
+        
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        controlPanel.add(new JLabel("Angle:"));
+        controlPanel.add(angleModeBox);
+        controlPanel.add(preciseBox);
+        controlPanel.add(new JLabel("Digits:"));
+        controlPanel.add(digitsSpinner);
+        controlPanel.add(enterButton);
+        controlPanel.add(clearButton);
+        entryPanel.add(controlPanel, BorderLayout.EAST);
+        
+        JPanel homePanel = new JPanel(new BorderLayout(10, 10));
+        homePanel.add(screenPanel, BorderLayout.CENTER);
+        homePanel.add(entryPanel, BorderLayout.SOUTH);
+        
+        // Y= editor above the graph; the table uses the same functions
+        JPanel functionPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        functionPanel.setBorder(new TitledBorder("Y= (drag to pan, scroll to zoom)"));
+        for (int i = 0; i < functionFields.length; i++) {
+            JLabel label = new JLabel("Y" + (i + 1) + "=");
+            label.setForeground(GraphPanel.FUNCTION_COLORS[i]);
+            functionPanel.add(label);
+            functionPanel.add(functionFields[i]);
+        }
+        functionPanel.add(zoomStandardButton);
+        
+        JPanel graphScreen = new JPanel(new BorderLayout(10, 10));
+        graphScreen.add(functionPanel, BorderLayout.NORTH);
+        graphScreen.add(graphPanel, BorderLayout.CENTER);
+        
+        JPanel tableSetup = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        tableSetup.setBorder(new TitledBorder("Table Setup (functions from Y=)"));
+        tableSetup.add(new JLabel("TblStart:"));
+        tableSetup.add(tableStartField);
+        tableSetup.add(new JLabel("\u0394Tbl:"));
+        tableSetup.add(tableStepField);
+        tableSetup.add(new JLabel("Rows:"));
+        tableSetup.add(tableRowsSpinner);
+        
+        JTable table = new JTable(tableModel);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        JPanel tableScreen = new JPanel(new BorderLayout(10, 10));
+        tableScreen.add(tableSetup, BorderLayout.NORTH);
+        tableScreen.add(new JScrollPane(table), BorderLayout.CENTER);
+        
+        JTabbedPane screens = new JTabbedPane();
+        screens.addTab("Home", homePanel);
+        screens.addTab("Graph", graphScreen);
+        screens.addTab("Table", tableScreen);
+        add(screens, BorderLayout.CENTER);
+    }
+    
+    private void setupEventHandlers() {
+        entryField.addActionListener(e -> evaluateEntry());
+        enterButton.addActionListener(e -> evaluateEntry());
+        clearButton.addActionListener(e -> {
+            historyArea.setText("");
+            entryField.setText("");
+            entryField.requestFocusInWindow();
+        });
+        preciseBox.addActionListener(e -> digitsSpinner.setEnabled(preciseBox.isSelected()));
+        angleModeBox.addActionListener(e -> {
+            calculator.setAngleMode((AngleMode) angleModeBox.getSelectedItem());
+            statusLabel.setText("Angle mode: " + calculator.getAngleMode().getDisplayName());
+            updateFunctions();
+        });
+        DocumentListener functionListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateFunctions();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateFunctions();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                updateFunctions();
+            }
+        };
+        for (JTextField field : functionFields) {
+            field.getDocument().addDocumentListener(functionListener);
+        }
+        tableStartField.addActionListener(e -> updateTable());
+        tableStepField.addActionListener(e -> updateTable());
+        tableRowsSpinner.addChangeListener(e -> updateTable());
+        zoomStandardButton.addActionListener(e -> graphPanel.resetWindow());
+        entryField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_UP && recallIndex > 0) {
+                    entryField.setText(entries.get(--recallIndex));
+                } else if (e.getKeyCode() == KeyEvent.VK_DOWN && recallIndex < entries.size()) {
+                    recallIndex++;
+                    entryField.setText(recallIndex == entries.size() ? "" : entries.get(recallIndex));
+                }
+            }
+        });
+    }
+    
+    private void evaluateEntry() {
+        String entry = entryField.getText().trim();
+        if (entry.isEmpty() || evaluating) {
+            return;
+        }
+        entries.add(entry);
+        recallIndex = entries.size();
+        
+        historyArea.append(entry + "\n");
+        if (preciseBox.isSelected()) {
+            evaluatePrecise(entry, new MathContext((Integer) digitsSpinner.getValue()));
+            return;
+        }
+        try {
+            showResult(format(calculator.evaluate(entry)));
+        } catch (RuntimeException e) {
+            showError(e);
+        }
+    }
+    
+    // Thousands of digits can take seconds, so precise entries run off the event thread
+    private void evaluatePrecise(String entry, MathContext context) {
+        setEvaluating(true);
+        statusLabel.setText("Evaluating to " + context.getPrecision() + " digits...");
+        long start = System.currentTimeMillis();
+        
+        SwingWorker<BigDecimal, Void> worker = new SwingWorker<BigDecimal, Void>() {
+            @Override
+            protected BigDecimal doInBackground() {
+                return calculator.evaluate(entry, context);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    showResult(format(get()));
+                    statusLabel.setText("Ready (" + (System.currentTimeMillis() - start) + " ms)");
+                } catch (ExecutionException e) {
+                    showError(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    setEvaluating(false);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void setEvaluating(boolean evaluating) {
+        this.evaluating = evaluating;
+        entryField.setEditable(!evaluating);
+        enterButton.setEnabled(!evaluating);
+        if (!evaluating) {
+            entryField.requestFocusInWindow();
+        }
+    }
+    
+    private void showResult(String result) {
+        historyArea.append(String.format("%40s%n", result));
+        statusLabel.setText("Ready");
+        entryField.setText("");
+        historyArea.setCaretPosition(historyArea.getDocument().getLength());
+    }
+    
+    private void showError(Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            // Keep the entry so it can be corrected
+            historyArea.append(String.format("%40s%n", "ERR: " + error.getMessage()));
+            statusLabel.setText("Syntax error");
+        } else if (error instanceof ArithmeticException) {
+            historyArea.append(String.format("%40s%n", "ERR: " + error.getMessage()));
+            statusLabel.setText("Math error");
+        } else {
+            ErrorDialog.showError(this, "Failed to evaluate entry",
+                    error instanceof Exception ? (Exception) error : new Exception(error));
+            statusLabel.setText("Error evaluating entry");
+        }
+        historyArea.setCaretPosition(historyArea.getDocument().getLength());
+    }
+    
+    // Recompile the Y= functions; a function that does not parse is left out until fixed
+    private void updateFunctions() {
+        List<CompiledExpression> compiled = new ArrayList<>();
+        String error = null;
+        for (int i = 0; i < functionFields.length; i++) {
+            String text = functionFields[i].getText().trim();
+            CompiledExpression function = null;
+            if (!text.isEmpty()) {
+                try {
+                    function = calculator.compileFunction(text);
+                } catch (IllegalArgumentException e) {
+                    error = "Y" + (i + 1) + ": " + e.getMessage();
+                }
+            }
+            compiled.add(function);
+        }
+        functions = compiled;
+        statusLabel.setText(error == null ? "Ready" : error);
+        graphPanel.setFunctions(functions);
+        updateTable();
+    }
+    
+    private void updateTable() {
+        try {
+            double start = Double.parseDouble(tableStartField.getText().trim());
+            double step = Double.parseDouble(tableStepField.getText().trim());
+            tableModel.update(functions, start, step, (Integer) tableRowsSpinner.getValue());
+        } catch (NumberFormatException e) {
+            statusLabel.setText("Invalid table setup: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Rows of X and each Y= function, filled by one batch evaluation per function
+     */
+    private static class FunctionTableModel extends AbstractTableModel {
+        
+        private List<CompiledExpression> functions = new ArrayList<>();
+        private double[] inputs = new double[0];
+        private double[][] outputs = new double[0][];
+        
+        void update(List<CompiledExpression> functions, double start, double step, int rows) {
+            this.functions = functions;
+            inputs = new double[rows];
+            for (int i = 0; i < rows; i++) {
+                inputs[i] = start + i * step;
+            }
+            outputs = new double[functions.size()][];
+            for (int f = 0; f < outputs.length; f++) {
+                if (functions.get(f) != null) {
+                    outputs[f] = new double[rows];
+                    functions.get(f).evaluateAll(inputs, outputs[f]);
+                }
+            }
+            fireTableStructureChanged();
+        }
+        
+        @Override
+        public int getRowCount() {
+            return inputs.length;
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return outputs.length + 1;
+        }
+        
+        @Override
+        public String getColumnName(int column) {
+            return column == 0 ? "X" : "Y" + column;
+        }
+        
+        @Override
+        public Object getValueAt(int row, int column) {
+            if (column == 0) {
+                return format(inputs[row]);
+            }
+            double[] values = outputs[column - 1];
+            return values == null ? "" : Double.isNaN(values[row]) ? "ERROR" : format(values[row]);
+        }
+    }
+    
+    private static String format(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        // Plain digits unless the exponent would pad the number with zeros
+        int exponent = stripped.precision() - stripped.scale() - 1;
+        if (stripped.signum() != 0 && (exponent < -6 || exponent >= Math.max(21, stripped.precision()))) {
+            return stripped.toString().replace("E+", "E");
+        }
+        return stripped.toPlainString();
+    }
+    
+    private static String format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude != 0 && (magnitude < 1e-3 || magnitude >= 1e10)) {
+            return new BigDecimal(value).round(DISPLAY_PRECISION).stripTrailingZeros().toString().replace("E+", "E");
+        }
+        return new BigDecimal(value).round(DISPLAY_PRECISION).stripTrailingZeros().toPlainString();
     }
 }
@@ -1,13 +1,376 @@
 package com.utilities.gui;
 
+import com.utilities.colorpicker.ColorConverter;
+import com.utilities.colorpicker.ColorIndex;
 import com.utilities.colorpicker.ColorPicker;
+import com.utilities.colorpicker.Palette;
+import com.utilities.colorpicker.QuantizationMethod;
+import com.utilities.utils.ErrorDialog;
+
+import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 
 /**
- * Color Picker Tab placeholder
+ * Color Picker Tab - dominant colors of an image, color conversions and nearest named colors
  */
 public class ColorPickerTab extends JPanel {
-    public ColorPickerTab(ColorPicker colorPicker, JLabel statusLabel) {
-        add(new JLabel("Color Picker functionality coming soon..."));
+    
+    // Longest side of the preview; large images are drawn once at this size
+    private static final int PREVIEW_SIZE = 480;
+    
+    private ColorPicker colorPicker;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    
+    // UI Components
+    private JButton openImageButton;
+    private JSpinner colorsSpinner;
+    private JComboBox<QuantizationMethod> methodBox;
+    private JButton extractButton;
+    private JButton mapButton;
+    private JLabel previewLabel;
+    private JPanel palettePanel;
+    private JTextField hexField;
+    private JButton chooseColorButton;
+    private JButton loadNamesButton;
+    private JLabel colorSwatch;
+    private JLabel colorInfoLabel;
+    
+    private BufferedImage image;
+    private String imageName;
+    private ImageIcon originalPreview;
+    private Palette palette;
+    private ColorIndex namedColors;
+    private String namedColorsName = "CSS";
+    
+    public ColorPickerTab(ColorPicker colorPicker, JLabel statusLabel, JProgressBar progressBar) {
+        this.colorPicker = colorPicker;
+        this.statusLabel = statusLabel;
+        this.progressBar = progressBar;
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+    }
+    
+    private void initializeComponents() {
+        openImageButton = createStyledButton("Open Image...", new Color(70, 130, 180));
+        colorsSpinner = new JSpinner(new SpinnerNumberModel(ColorPicker.DEFAULT_COLORS, 1, ColorPicker.MAX_COLORS, 1));
+        methodBox = new JComboBox<>(QuantizationMethod.values());
+        methodBox.setSelectedItem(QuantizationMethod.K_MEANS);
+        extractButton = createStyledButton("Extract Palette", new Color(34, 139, 34));
+        extractButton.setEnabled(false);
+        mapButton = createStyledButton("Map to Palette", new Color(255, 140, 0));
+        mapButton.setEnabled(false);
+        
+        hexField = new JTextField("#4682B4", 8);
+        hexField.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        chooseColorButton = createStyledButton("Choose...", new Color(70, 130, 180));
+        loadNamesButton = createStyledButton("Load Names...", new Color(128, 128, 128));
+        colorSwatch = new JLabel();
+        colorSwatch.setOpaque(true);
+        colorSwatch.setPreferredSize(new Dimension(48, 24));
+        colorSwatch.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+        colorInfoLabel = new JLabel(" ");
+        colorInfoLabel.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        namedColors = colorPicker.getNamedColors();
+        
+        previewLabel = new JLabel("Open an image to extract its colors", SwingConstants.CENTER);
+        palettePanel = new JPanel(new GridLayout(0, 1, 0, 4));
+    }
+    
+    private JButton createStyledButton(String text, Color backgroundColor) {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(140, 35));
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(backgroundColor);
+        button.setForeground(Color.BLACK);
+        button.setFocusPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        // Control panel
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        controlPanel.setBorder(new TitledBorder("Controls"));
+        controlPanel.add(openImageButton);
+        controlPanel.add(new JLabel("Colors:"));
+        controlPanel.add(colorsSpinner);
+        controlPanel.add(new JLabel("Method:"));
+        controlPanel.add(methodBox);
+        controlPanel.add(extractButton);
+        controlPanel.add(mapButton);
+        
+        // Image panel
+        JPanel imagePanel = new JPanel(new BorderLayout());
+        imagePanel.setBorder(new TitledBorder("Image"));
+        imagePanel.add(previewLabel, BorderLayout.CENTER);
+        
+        // Palette panel
+        JPanel paletteHolder = new JPanel(new BorderLayout());
+        paletteHolder.setBorder(new TitledBorder("Palette"));
+        paletteHolder.setPreferredSize(new Dimension(260, 0));
+        paletteHolder.add(new JScrollPane(palettePanel), BorderLayout.CENTER);
+        
+        // Color panel
+        JPanel colorPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        colorPanel.setBorder(new TitledBorder("Color"));
+        colorPanel.add(new JLabel("Hex:"));
+        colorPanel.add(hexField);
+        colorPanel.add(chooseColorButton);
+        colorPanel.add(loadNamesButton);
+        colorPanel.add(colorSwatch);
+        colorPanel.add(colorInfoLabel);
+        
+        add(controlPanel, BorderLayout.NORTH);
+        add(imagePanel, BorderLayout.CENTER);
+        add(paletteHolder, BorderLayout.EAST);
+        add(colorPanel, BorderLayout.SOUTH);
+        showColor();
+    }
+    
+    private void setupEventHandlers() {
+        openImageButton.addActionListener(e -> openImage());
+        extractButton.addActionListener(e -> extractPalette());
+        mapButton.addActionListener(e -> mapToPalette());
+        hexField.addActionListener(e -> showColor());
+        chooseColorButton.addActionListener(e -> chooseColor());
+        loadNamesButton.addActionListener(e -> loadNames());
+    }
+    
+    private void openImage() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Loading image...");
+        statusLabel.setText("Loading: " + file.getName());
+        openImageButton.setEnabled(false);
+        
+        SwingWorker<BufferedImage[], Void> worker = new SwingWorker<BufferedImage[], Void>() {
+            @Override
+            protected BufferedImage[] doInBackground() throws Exception {
+                BufferedImage loaded = ImageIO.read(file);
+                if (loaded == null) {
+                    throw new IOException("Unsupported image format: " + file.getName());
+                }
+                return new BufferedImage[] {loaded, preview(loaded)};
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    BufferedImage[] images = get();
+                    image = images[0];
+                    imageName = file.getName();
+                    originalPreview = new ImageIcon(images[1]);
+                    previewLabel.setText(null);
+                    previewLabel.setIcon(originalPreview);
+                    palette = null;
+                    extractButton.setEnabled(true);
+                    mapButton.setEnabled(false);
+                    statusLabel.setText(String.format("Loaded: %s (%d x %d)", imageName, image.getWidth(), image.getHeight()));
+                    extractPalette();
+                } catch (Exception e) {
+                    ErrorDialog.showError(ColorPickerTab.this, "Failed to load image: " + file.getName(), e);
+                    statusLabel.setText("Error loading image");
+                } finally {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setVisible(false);
+                    openImageButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void extractPalette() {
+        if (image == null) {
+            return;
+        }
+        BufferedImage source = image;
+        int colors = (Integer) colorsSpinner.getValue();
+        QuantizationMethod method = (QuantizationMethod) methodBox.getSelectedItem();
+        statusLabel.setText("Extracting palette: " + imageName);
+        extractButton.setEnabled(false);
+        
+        SwingWorker<Palette, Void> worker = new SwingWorker<Palette, Void>() {
+            private long millis;
+            
+            @Override
+            protected Palette doInBackground() {
+                long start = System.currentTimeMillis();
+                Palette palette = colorPicker.extractPalette(source, colors, method);
+                millis = System.currentTimeMillis() - start;
+                return palette;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    palette = get();
+                    previewLabel.setIcon(originalPreview);
+                    showPalette(palette);
+                    mapButton.setEnabled(palette.size() > 0);
+                    statusLabel.setText(String.format("%d colors of %s by %s in %d ms",
+                                                      palette.size(), imageName, method.getDisplayName(), millis));
+                } catch (Exception e) {
+                    ErrorDialog.showError(ColorPickerTab.this, "Failed to extract palette", e);
+                    statusLabel.setText("Error extracting palette");
+                } finally {
+                    extractButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void showPalette(Palette palette) {
+        palettePanel.removeAll();
+        for (int i = 0; i < palette.size(); i++) {
+            JPanel row = new JPanel(new BorderLayout(8, 0));
+            JLabel swatch = new JLabel();
+            swatch.setOpaque(true);
+            swatch.setBackground(palette.getColor(i));
+            swatch.setPreferredSize(new Dimension(48, 24));
+            swatch.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+            int rgb = palette.getRgb(i);
+            JLabel text = new JLabel(String.format("%s  %5.1f%%  %s", palette.getHex(i), palette.getShare(i) * 100,
+                                                   namedColors.nearestName(rgb)));
+            text.setFont(new Font("Monospaced", Font.PLAIN, 13));
+            row.add(swatch, BorderLayout.WEST);
+            row.add(text, BorderLayout.CENTER);
+            row.setToolTipText("Click to show this color's values");
+            row.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    hexField.setText(ColorConverter.toHex(rgb));
+                    showColor();
+                }
+            });
+            palettePanel.add(row);
+        }
+        palettePanel.revalidate();
+        palettePanel.repaint();
+    }
+    
+    private void mapToPalette() {
+        if (image == null || palette == null || palette.size() == 0) {
+            return;
+        }
+        BufferedImage source = image;
+        ColorIndex index = ColorIndex.of(palette);
+        statusLabel.setText("Mapping " + imageName + " to " + palette.size() + " colors");
+        mapButton.setEnabled(false);
+        
+        SwingWorker<BufferedImage, Void> worker = new SwingWorker<BufferedImage, Void>() {
+            private long millis;
+            
+            @Override
+            protected BufferedImage doInBackground() {
+                long start = System.currentTimeMillis();
+                BufferedImage mapped = colorPicker.mapToColors(source, index);
+                millis = System.currentTimeMillis() - start;
+                return preview(mapped);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    previewLabel.setIcon(new ImageIcon(get()));
+                    statusLabel.setText(String.format("Mapped %s to %d colors in %d ms", imageName, index.size(), millis));
+                } catch (Exception e) {
+                    ErrorDialog.showError(ColorPickerTab.this, "Failed to map image", e);
+                    statusLabel.setText("Error mapping image");
+                } finally {
+                    mapButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void chooseColor() {
+        Color initial = colorSwatch.getBackground();
+        Color chosen = JColorChooser.showDialog(this, "Choose Color", initial);
+        if (chosen != null) {
+            hexField.setText(ColorConverter.toHex(chosen.getRGB()));
+            showColor();
+        }
+    }
+    
+    private void loadNames() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Load Named Colors (name and #RRGGBB per line)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        try {
+            namedColors = colorPicker.loadColorIndex(file);
+            namedColorsName = file.getName();
+            statusLabel.setText(String.format("Loaded %d named colors from %s", namedColors.size(), namedColorsName));
+            showColor();
+            if (palette != null) {
+                showPalette(palette);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            ErrorDialog.showError(this, "Failed to load named colors: " + file.getName(), e);
+        }
+    }
+    
+    /**
+     * Show the hex field's color as RGB and HSL, with its nearest named color
+     */
+    private void showColor() {
+        int rgb;
+        try {
+            rgb = ColorConverter.parseHex(hexField.getText());
+        } catch (IllegalArgumentException e) {
+            colorInfoLabel.setText("Enter a color as #RRGGBB or #RGB");
+            return;
+        }
+        float[] hsl = ColorConverter.toHsl(rgb);
+        int nearest = namedColors.nearest(rgb);
+        hexField.setText(ColorConverter.toHex(rgb));
+        colorSwatch.setBackground(new Color(rgb));
+        colorInfoLabel.setText(String.format("rgb(%d, %d, %d)  hsl(%.0f, %.0f%%, %.0f%%)  %s: %s %s (\u0394E %.1f)",
+                                             rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF,
+                                             hsl[0], hsl[1] * 100, hsl[2] * 100, namedColorsName,
+                                             namedColors.getName(nearest), namedColors.getHex(nearest),
+                                             namedColors.distance(rgb, nearest)));
+    }
+    
+    /**
+     * Scale an image down to fit the preview, once, rather than on every repaint
+     */
+    private static BufferedImage preview(BufferedImage image) {
+        double scale = Math.min(1.0, (double) PREVIEW_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = preview.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return preview;
     }
 }
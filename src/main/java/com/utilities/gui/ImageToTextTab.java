@@ -1,5 +1,6 @@
 package com.utilities.gui;
 
+import com.utilities.ocr.OCRResult;
 import com.utilities.ocr.OCRService;
 import com.utilities.utils.ErrorDialog;
 
@@ -17,6 +18,8 @@ import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.imageio.ImageIO;
 
 /**
@@ -34,6 +37,7 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
     private JButton copyButton;
     private JButton clearButton;
     private JLabel dropZoneLabel;
+    private JLabel readinessLabel;
     
     public ImageToTextTab(OCRService ocrService, JLabel statusLabel, JProgressBar progressBar) {
         this.ocrService = ocrService;
@@ -44,6 +48,7 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         setupLayout();
         setupEventHandlers();
         setupDragAndDrop();
+        trackReadiness();
     }
     
     private void initializeComponents() {
@@ -64,6 +69,10 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         copyButton.setEnabled(false);
         clearButton.setEnabled(false);
         
+        // OCR engine readiness
+        readinessLabel = new JLabel();
+        readinessLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        
         // Text area
         textArea = new JTextArea();
         textArea.setEditable(false);
@@ -100,6 +109,7 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         controlPanel.add(uploadButton);
         controlPanel.add(copyButton);
         controlPanel.add(clearButton);
+        controlPanel.add(readinessLabel);
         
         // Text panel
         JPanel textPanel = new JPanel(new BorderLayout());
@@ -129,6 +139,29 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         new DropTarget(dropZoneLabel, this);
     }
     
+    /**
+     * Show the engine state and refresh it when background initialization finishes
+     */
+    private void trackReadiness() {
+        updateReadiness();
+        ocrService.initializeAsync().whenComplete((available, error) ->
+            SwingUtilities.invokeLater(this::updateReadiness));
+    }
+    
+    private void updateReadiness() {
+        if (ocrService.isAvailable()) {
+            readinessLabel.setText("OCR engine ready (started in " + ocrService.getInitializationMillis() + " ms)");
+            readinessLabel.setForeground(new Color(34, 139, 34));
+        } else if (ocrService.hasFailed()) {
+            readinessLabel.setText("OCR engine unavailable");
+            readinessLabel.setForeground(new Color(220, 20, 60));
+        } else {
+            readinessLabel.setText("OCR engine starting...");
+            readinessLabel.setForeground(new Color(70, 130, 180));
+        }
+        readinessLabel.setToolTipText(ocrService.getStatus());
+    }
+    
     private void openFileChooser() {
         JFileChooser fileChooser = new JFileChooser();
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
@@ -142,8 +175,9 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         }
     }
     
-    private void processImage(File imageFile) {
-        if (!ocrService.isAvailable()) {
+    private boolean checkOcrAvailable() {
+        // While engines are still loading, the background worker waits for them
+        if (ocrService.hasFailed()) {
             ErrorDialog.showError(this, 
                 "OCR not available.\n\n" +
                 "This could be due to:\n" +
@@ -153,6 +187,13 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
                 "Please check the console for detailed error messages.\n" +
                 "Other features (PDF text extraction, Unit Converter, Calculator, etc.) will still work.",
                 ocrService.getLastError() != null ? new Exception(ocrService.getLastError()) : null);
+            return false;
+        }
+        return true;
+    }
+    
+    private void processImage(File imageFile) {
+        if (!checkOcrAvailable()) {
             return;
         }
         
@@ -197,6 +238,83 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
         worker.execute();
     }
     
+    /**
+     * Run batch OCR over several files or directories, appending each result as it arrives
+     */
+    private void processImages(List<File> inputs) {
+        if (!checkOcrAvailable()) {
+            return;
+        }
+        
+        List<File> imageFiles = new ArrayList<>();
+        List<File> directories = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                directories.add(input);
+            } else if (OCRService.isImageFile(input)) {
+                imageFiles.add(input);
+            }
+        }
+        
+        textArea.setText("");
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Processing images...");
+        statusLabel.setText("Extracting text from " + inputs.size() + " item(s)...");
+        uploadButton.setEnabled(false);
+        
+        SwingWorker<Integer, OCRResult> worker = new SwingWorker<Integer, OCRResult>() {
+            private int failures = 0;
+            
+            @Override
+            protected Integer doInBackground() throws Exception {
+                int processed = 0;
+                if (!imageFiles.isEmpty()) {
+                    processed += ocrService.extractTextFromFiles(imageFiles, this::publish);
+                }
+                for (File directory : directories) {
+                    processed += ocrService.extractTextFromDirectory(directory, this::publish);
+                }
+                return processed;
+            }
+            
+            @Override
+            protected void process(List<OCRResult> results) {
+                StringBuilder sb = new StringBuilder();
+                for (OCRResult result : results) {
+                    sb.append("===== ").append(result.getFile().getName()).append(" =====\n");
+                    if (result.isSuccess()) {
+                        sb.append(result.getText()).append("\n");
+                    } else {
+                        failures++;
+                        sb.append("[Error: ").append(result.getError().getMessage()).append("]\n\n");
+                    }
+                }
+                textArea.append(sb.toString());
+                progressBar.setString("Processed " + (results.get(results.size() - 1).getIndex() + 1) + " image(s)...");
+                copyButton.setEnabled(true);
+                clearButton.setEnabled(true);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    int processed = get();
+                    statusLabel.setText("Extracted text from " + (processed - failures) + " of " + processed + " image(s)");
+                } catch (Exception e) {
+                    ErrorDialog.showError(ImageToTextTab.this, "Batch text extraction failed", e);
+                    statusLabel.setText("Error extracting text");
+                } finally {
+                    textArea.setCaretPosition(0);
+                    progressBar.setVisible(false);
+                    uploadButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
     private void copyToClipboard() {
         String text = textArea.getText();
         if (text != null && !text.trim().isEmpty()) {
@@ -254,13 +372,12 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
                 @SuppressWarnings("unchecked")
                 java.util.List<File> files = (java.util.List<File>) dtde.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
                 
-                if (files.size() > 0) {
-                    File file = files.get(0);
-                    if (isImageFile(file)) {
-                        processImage(file);
-                    } else {
-                        ErrorDialog.showError(this, "Please drop an image file (PNG, JPG, JPEG, GIF, BMP, TIFF)");
-                    }
+                if (files.size() == 1 && isImageFile(files.get(0))) {
+                    processImage(files.get(0));
+                } else if (files.stream().anyMatch(file -> file.isDirectory() || isImageFile(file))) {
+                    processImages(files);
+                } else if (files.size() > 0) {
+                    ErrorDialog.showError(this, "Please drop an image file (PNG, JPG, JPEG, GIF, BMP, TIFF)");
                 }
                 
                 dtde.dropComplete(true);
@@ -280,9 +397,6 @@ public class ImageToTextTab extends JPanel implements DropTargetListener {
     }
     
     private boolean isImageFile(File file) {
-        String name = file.getName().toLowerCase();
-        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg") ||
-               name.endsWith(".gif") || name.endsWith(".bmp") || name.endsWith(".tiff") ||
-               name.endsWith(".tif");
+        return OCRService.isImageFile(file);
     }
 }
@@ -0,0 +1,78 @@
+package com.utilities.gui;
+
+import com.utilities.utils.ErrorDialog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tab that builds its content, and the service behind it, when first selected
+ * Until then it holds only a placeholder label, so tools that are never opened cost neither
+ * their service nor their components. Building is queued on the event thread so the
+ * placeholder can be painted first.
+ */
+class LazyTab extends JPanel {
+    
+    private static final Logger logger = Logger.getLogger(LazyTab.class.getName());
+    
+    private final String title;
+    private final Supplier<JComponent> factory;
+    private boolean scheduled;
+    
+    /**
+     * @param title Tab title, for the placeholder and the log
+     * @param factory Creates the tab content and any service it needs; called once, on the event thread
+     */
+    LazyTab(String title, Supplier<JComponent> factory) {
+        super(new BorderLayout());
+        this.title = title;
+        this.factory = factory;
+        add(new JLabel("Loading " + title + "...", SwingConstants.CENTER), BorderLayout.CENTER);
+    }
+    
+    /**
+     * Build the selected tab of a tabbed pane now and whenever the selection changes
+     */
+    static void install(JTabbedPane tabbedPane) {
+        tabbedPane.addChangeListener(e -> buildSelected(tabbedPane));
+        buildSelected(tabbedPane);
+    }
+    
+    private static void buildSelected(JTabbedPane tabbedPane) {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (selected instanceof LazyTab) {
+            ((LazyTab) selected).buildLater();
+        }
+    }
+    
+    /**
+     * Queue building the content, unless it is built or queued already
+     */
+    void buildLater() {
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::build);
+        }
+    }
+    
+    private void build() {
+        long start = System.nanoTime();
+        JComponent content;
+        try {
+            content = factory.get();
+            logger.info("Opened " + title + " tab in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException | LinkageError e) {
+            // Missing native libraries surface as linkage errors
+            logger.log(Level.WARNING, "Failed to open " + title + " tab", e);
+            ErrorDialog.showError(this, "Failed to open " + title, e instanceof Exception ? (Exception) e : new Exception(e));
+            content = new JLabel(title + " is unavailable", SwingConstants.CENTER);
+        }
+        removeAll();
+        add(content, BorderLayout.CENTER);
+        revalidate();
+        repaint();
+    }
+}
@@ -6,32 +6,35 @@ import com.utilities.converter.UnitConverter;
 import com.utilities.calculator.Calculator;
 import com.utilities.texttools.TextTools;
 import com.utilities.colorpicker.ColorPicker;
-import com.utilities.utils.ErrorDialog;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.logging.Logger;
 
 /**
  * Main Window for the Utilities Application
  * Manages the tabbed interface and coordinates between different utility modules
+ * Tabs and their services are created when a tab is first selected, starting with the
+ * selected tab once the window is open; startup phases are timed in the log.
  */
 public class MainWindow extends JFrame {
     
+    private static final Logger logger = Logger.getLogger(MainWindow.class.getName());
+    
     private JTabbedPane tabbedPane;
     private JLabel statusLabel;
     private JProgressBar progressBar;
     
-    // Service instances
+    // Shared service instances, created on first use; other services belong to their tabs
     private OCRService ocrService;
     private PDFService pdfService;
-    private UnitConverter unitConverter;
-    private Calculator calculator;
-    private TextTools textTools;
-    private ColorPicker colorPicker;
+    
+    private final long startNanos = System.nanoTime();
     
     public MainWindow() {
-        initializeServices();
         initializeComponents();
         setupLayout();
         setupEventHandlers();
@@ -41,19 +44,25 @@ public class MainWindow extends JFrame {
         setSize(1000, 700);
         setLocationRelativeTo(null);
         setResizable(true);
+        logger.info("Main window constructed in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
     }
     
-    private void initializeServices() {
-        try {
+    /**
+     * Get the OCR service; no engine loads until the Image to Text tab opens or OCR is requested
+     */
+    private OCRService getOcrService() {
+        if (ocrService == null) {
             ocrService = new OCRService();
+        }
+        return ocrService;
+    }
+    
+    private PDFService getPdfService() {
+        if (pdfService == null) {
             pdfService = new PDFService();
-            unitConverter = new UnitConverter();
-            calculator = new Calculator();
-            textTools = new TextTools();
-            colorPicker = new ColorPicker();
-        } catch (Exception e) {
-            ErrorDialog.showError(this, "Failed to initialize services", e);
+            pdfService.setOcrService(getOcrService());
         }
+        return pdfService;
     }
     
     private void initializeComponents() {
@@ -68,30 +77,36 @@ public class MainWindow extends JFrame {
     }
     
     private void initializeTabs() {
-        // Image to Text tab
-        ImageToTextTab imageTab = new ImageToTextTab(ocrService, statusLabel, progressBar);
-        String ocrStatus = ocrService.isAvailable() ? "OCR Ready" : "OCR Unavailable";
-        tabbedPane.addTab("Image to Text", null, imageTab, "Extract text from images using OCR - " + ocrStatus);
+        // Image to Text tab; opening it starts loading the engines in the background
+        tabbedPane.addTab("Image to Text", null, new LazyTab("Image to Text", () -> {
+            ImageToTextTab imageTab = new ImageToTextTab(getOcrService(), statusLabel, progressBar);
+            int imageTabIndex = tabbedPane.indexOfTab("Image to Text");
+            tabbedPane.setToolTipTextAt(imageTabIndex, "Extract text from images using OCR - OCR Starting");
+            getOcrService().initializeAsync().thenAccept(available -> SwingUtilities.invokeLater(() ->
+                tabbedPane.setToolTipTextAt(imageTabIndex, "Extract text from images using OCR - "
+                    + (available ? "OCR Ready" : "OCR Unavailable"))));
+            return imageTab;
+        }), "Extract text from images using OCR");
         
         // PDF to Text tab
-        PDFToTextTab pdfTab = new PDFToTextTab(pdfService, statusLabel, progressBar);
-        tabbedPane.addTab("PDF to Text", null, pdfTab, "Extract text from PDF documents");
+        tabbedPane.addTab("PDF to Text", null, new LazyTab("PDF to Text", () ->
+            new PDFToTextTab(getPdfService(), statusLabel, progressBar)), "Extract text from PDF documents");
         
         // Unit Converter tab
-        UnitConverterTab converterTab = new UnitConverterTab(unitConverter, statusLabel);
-        tabbedPane.addTab("Unit Converter", null, converterTab, "Convert between different units");
+        tabbedPane.addTab("Unit Converter", null, new LazyTab("Unit Converter", () ->
+            new UnitConverterTab(new UnitConverter(), statusLabel, progressBar)), "Convert between different units");
         
         // Calculator tab
-        CalculatorTab calcTab = new CalculatorTab(calculator, statusLabel);
-        tabbedPane.addTab("TI-84 Calculator", null, calcTab, "Full-featured calculator replica");
+        tabbedPane.addTab("TI-84 Calculator", null, new LazyTab("TI-84 Calculator", () ->
+            new CalculatorTab(new Calculator(), statusLabel)), "Full-featured calculator replica");
         
         // Text Tools tab
-        TextToolsTab textTab = new TextToolsTab(textTools, statusLabel);
-        tabbedPane.addTab("Text Tools", null, textTab, "Text manipulation and analysis tools");
+        tabbedPane.addTab("Text Tools", null, new LazyTab("Text Tools", () ->
+            new TextToolsTab(new TextTools(), statusLabel, progressBar)), "Text manipulation and analysis tools");
         
         // Color Picker tab
-        ColorPickerTab colorTab = new ColorPickerTab(colorPicker, statusLabel);
-        tabbedPane.addTab("Color Picker", null, colorTab, "Color picker and converter");
+        tabbedPane.addTab("Color Picker", null, new LazyTab("Color Picker", () ->
+            new ColorPickerTab(new ColorPicker(), statusLabel, progressBar)), "Palette extraction and color tools");
     }
     
     private void setupLayout() {
@@ -109,7 +124,13 @@ public class MainWindow extends JFrame {
     }
     
     private void setupEventHandlers() {
-        // Add any global event handlers here
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                logger.info("Window opened " + (System.nanoTime() - startNanos) / 1_000_000 + " ms after startup");
+                LazyTab.install(tabbedPane);
+            }
+        });
     }
     
     @Override
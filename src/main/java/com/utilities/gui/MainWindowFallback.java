@@ -5,31 +5,33 @@ import com.utilities.converter.UnitConverter;
 import com.utilities.calculator.Calculator;
 import com.utilities.texttools.TextTools;
 import com.utilities.colorpicker.ColorPicker;
-import com.utilities.utils.ErrorDialog;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.logging.Logger;
 
 /**
  * Fallback Main Window for systems with OCR compatibility issues
  * This version disables OCR functionality but keeps all other features
+ * Tabs and their services are created when a tab is first selected, as in MainWindow.
  */
 public class MainWindowFallback extends JFrame {
     
+    private static final Logger logger = Logger.getLogger(MainWindowFallback.class.getName());
+    
     private JTabbedPane tabbedPane;
     private JLabel statusLabel;
     private JProgressBar progressBar;
     
-    // Service instances (excluding OCR)
+    // Created with the PDF tab, and cleaned up on dispose; other services belong to their tabs
     private PDFService pdfService;
-    private UnitConverter unitConverter;
-    private Calculator calculator;
-    private TextTools textTools;
-    private ColorPicker colorPicker;
+    
+    private final long startNanos = System.nanoTime();
     
     public MainWindowFallback() {
-        initializeServices();
         initializeComponents();
         setupLayout();
         setupEventHandlers();
@@ -39,18 +41,7 @@ public class MainWindowFallback extends JFrame {
         setSize(1000, 700);
         setLocationRelativeTo(null);
         setResizable(true);
-    }
-    
-    private void initializeServices() {
-        try {
-            pdfService = new PDFService();
-            unitConverter = new UnitConverter();
-            calculator = new Calculator();
-            textTools = new TextTools();
-            colorPicker = new ColorPicker();
-        } catch (Exception e) {
-            ErrorDialog.showError(this, "Failed to initialize services", e);
-        }
+        logger.info("Main window constructed in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
     }
     
     private void initializeComponents() {
@@ -77,24 +68,26 @@ public class MainWindowFallback extends JFrame {
         tabbedPane.addTab("Image to Text", null, imageTab, "OCR disabled - Architecture compatibility issue");
         
         // PDF to Text tab
-        PDFToTextTab pdfTab = new PDFToTextTab(pdfService, statusLabel, progressBar);
-        tabbedPane.addTab("PDF to Text", null, pdfTab, "Extract text from PDF documents");
+        tabbedPane.addTab("PDF to Text", null, new LazyTab("PDF to Text", () -> {
+            pdfService = new PDFService();
+            return new PDFToTextTab(pdfService, statusLabel, progressBar);
+        }), "Extract text from PDF documents");
         
         // Unit Converter tab
-        UnitConverterTab converterTab = new UnitConverterTab(unitConverter, statusLabel);
-        tabbedPane.addTab("Unit Converter", null, converterTab, "Convert between different units");
+        tabbedPane.addTab("Unit Converter", null, new LazyTab("Unit Converter", () ->
+            new UnitConverterTab(new UnitConverter(), statusLabel, progressBar)), "Convert between different units");
         
         // Calculator tab
-        CalculatorTab calcTab = new CalculatorTab(calculator, statusLabel);
-        tabbedPane.addTab("TI-84 Calculator", null, calcTab, "Full-featured calculator replica");
+        tabbedPane.addTab("TI-84 Calculator", null, new LazyTab("TI-84 Calculator", () ->
+            new CalculatorTab(new Calculator(), statusLabel)), "Full-featured calculator replica");
         
         // Text Tools tab
-        TextToolsTab textTab = new TextToolsTab(textTools, statusLabel);
-        tabbedPane.addTab("Text Tools", null, textTab, "Text manipulation and analysis tools");
+        tabbedPane.addTab("Text Tools", null, new LazyTab("Text Tools", () ->
+            new TextToolsTab(new TextTools(), statusLabel, progressBar)), "Text manipulation and analysis tools");
         
         // Color Picker tab
-        ColorPickerTab colorTab = new ColorPickerTab(colorPicker, statusLabel);
-        tabbedPane.addTab("Color Picker", null, colorTab, "Color picker and converter");
+        tabbedPane.addTab("Color Picker", null, new LazyTab("Color Picker", () ->
+            new ColorPickerTab(new ColorPicker(), statusLabel, progressBar)), "Palette extraction and color tools");
     }
     
     private void setupLayout() {
@@ -112,7 +105,13 @@ public class MainWindowFallback extends JFrame {
     }
     
     private void setupEventHandlers() {
-        // Add any global event handlers here
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                logger.info("Window opened " + (System.nanoTime() - startNanos) / 1_000_000 + " ms after startup");
+                LazyTab.install(tabbedPane);
+            }
+        });
     }
     
     @Override
@@ -1,13 +1,646 @@
 package com.utilities.gui;
 
+import com.utilities.texttools.ReplaceRule;
+import com.utilities.texttools.TextDiff;
+import com.utilities.texttools.TextReplacer;
+import com.utilities.texttools.TextStatistics;
 import com.utilities.texttools.TextTools;
+import com.utilities.texttools.TextTransform;
+import com.utilities.texttools.TextTransformer;
+import com.utilities.utils.ErrorDialog;
+
 import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 /**
- * Text Tools Tab placeholder
+ * Text Tools Tab - live statistics, transforms and find and replace of typed text,
+ * the same streamed over large files, and line diffs of files
  */
 public class TextToolsTab extends JPanel {
-    public TextToolsTab(TextTools textTools, JLabel statusLabel) {
-        add(new JLabel("Text Tools functionality coming soon..."));
+    
+    // Statistics are recounted this long after the last edit
+    private static final int RECOUNT_DELAY_MILLIS = 250;
+    // Longest diff shown; the rest is summarized
+    private static final int MAX_DIFF_CHARS = 2 * 1024 * 1024;
+    private static final String[] STATISTICS = {
+        "Characters", "Excluding whitespace", "Words", "Lines", "Sentences", "Longest line", "Average word length", "Size"
+    };
+    
+    private TextTools textTools;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    
+    // UI Components
+    private JTextArea textArea;
+    private JButton analyzeFileButton;
+    private JButton clearButton;
+    private JButton compareFilesButton;
+    private JComboBox<TextTransform> transformBox;
+    private JButton applyButton;
+    private JButton transformFileButton;
+    private JTextField findField;
+    private JTextField replaceField;
+    private JCheckBox regexCheckBox;
+    private JButton addRuleButton;
+    private JButton removeRuleButton;
+    private JButton replaceAllButton;
+    private JButton replaceFileButton;
+    private DefaultListModel<ReplaceRule> ruleModel;
+    private JList<ReplaceRule> ruleList;
+    private JPanel statisticsPanel;
+    private TitledBorder statisticsBorder;
+    private JLabel[] statisticLabels;
+    private Timer recountTimer;
+    private SwingWorker<TextStatistics, Integer> fileWorker;
+    // Reused, so transforming the text area again allocates only the result
+    private final Map<TextTransform, TextTransformer> transformers = new EnumMap<>(TextTransform.class);
+    
+    public TextToolsTab(TextTools textTools, JLabel statusLabel, JProgressBar progressBar) {
+        this.textTools = textTools;
+        this.statusLabel = statusLabel;
+        this.progressBar = progressBar;
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        recountText();
+    }
+    
+    private void initializeComponents() {
+        textArea = new JTextArea();
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        textArea.setLineWrap(true);
+        textArea.setWrapStyleWord(true);
+        
+        analyzeFileButton = createStyledButton("Analyze File...", new Color(70, 130, 180));
+        clearButton = createStyledButton("Clear", new Color(220, 20, 60));
+        compareFilesButton = createStyledButton("Compare Files...", new Color(70, 130, 180));
+        
+        transformBox = new JComboBox<>(TextTransform.values());
+        applyButton = createStyledButton("Apply", new Color(34, 139, 34));
+        transformFileButton = createStyledButton("Transform File...", new Color(70, 130, 180));
+        
+        findField = new JTextField(20);
+        replaceField = new JTextField(20);
+        regexCheckBox = new JCheckBox("Regex");
+        addRuleButton = createStyledButton("Add Rule", new Color(70, 130, 180));
+        removeRuleButton = createStyledButton("Remove Rule", new Color(220, 20, 60));
+        replaceAllButton = createStyledButton("Replace All", new Color(34, 139, 34));
+        replaceFileButton = createStyledButton("Replace in File...", new Color(70, 130, 180));
+        ruleModel = new DefaultListModel<>();
+        ruleList = new JList<>(ruleModel);
+        ruleList.setVisibleRowCount(3);
+        ruleList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        
+        statisticLabels = new JLabel[STATISTICS.length];
+        for (int i = 0; i < statisticLabels.length; i++) {
+            statisticLabels[i] = new JLabel("0", SwingConstants.RIGHT);
+            statisticLabels[i].setFont(new Font("Monospaced", Font.BOLD, 13));
+        }
+        
+        recountTimer = new Timer(RECOUNT_DELAY_MILLIS, e -> recountText());
+        recountTimer.setRepeats(false);
+    }
+    
+    private JButton createStyledButton(String text, Color backgroundColor) {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(140, 35));
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(backgroundColor);
+        button.setForeground(Color.BLACK);
+        button.setFocusPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        // Control panel
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        controlPanel.setBorder(new TitledBorder("Controls"));
+        controlPanel.add(analyzeFileButton);
+        controlPanel.add(clearButton);
+        controlPanel.add(compareFilesButton);
+        controlPanel.add(new JLabel("Transform:"));
+        controlPanel.add(transformBox);
+        controlPanel.add(applyButton);
+        controlPanel.add(transformFileButton);
+        
+        // Text panel
+        JPanel textPanel = new JPanel(new BorderLayout());
+        textPanel.setBorder(new TitledBorder("Text"));
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setBorder(BorderFactory.createLoweredBevelBorder());
+        textPanel.add(scrollPane, BorderLayout.CENTER);
+        
+        // Find and replace panel
+        JPanel replacePanel = new JPanel(new BorderLayout(10, 5));
+        replacePanel.setBorder(new TitledBorder("Find and Replace"));
+        JPanel fieldsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        fieldsPanel.add(new JLabel("Find:"));
+        fieldsPanel.add(findField);
+        fieldsPanel.add(new JLabel("Replace with:"));
+        fieldsPanel.add(replaceField);
+        fieldsPanel.add(regexCheckBox);
+        JPanel replaceButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        replaceButtons.add(addRuleButton);
+        replaceButtons.add(removeRuleButton);
+        replaceButtons.add(replaceAllButton);
+        replaceButtons.add(replaceFileButton);
+        replacePanel.add(fieldsPanel, BorderLayout.NORTH);
+        replacePanel.add(new JScrollPane(ruleList), BorderLayout.CENTER);
+        replacePanel.add(replaceButtons, BorderLayout.SOUTH);
+        textPanel.add(replacePanel, BorderLayout.SOUTH);
+        
+        // Statistics panel
+        statisticsPanel = new JPanel(new GridLayout(STATISTICS.length, 2, 10, 4));
+        statisticsBorder = new TitledBorder("Statistics");
+        statisticsPanel.setBorder(BorderFactory.createCompoundBorder(statisticsBorder, new EmptyBorder(5, 10, 5, 10)));
+        for (int i = 0; i < STATISTICS.length; i++) {
+            statisticsPanel.add(new JLabel(STATISTICS[i] + ":"));
+            statisticsPanel.add(statisticLabels[i]);
+        }
+        JPanel statisticsHolder = new JPanel(new BorderLayout());
+        statisticsHolder.setPreferredSize(new Dimension(300, 0));
+        statisticsHolder.add(statisticsPanel, BorderLayout.NORTH);
+        
+        add(controlPanel, BorderLayout.NORTH);
+        add(textPanel, BorderLayout.CENTER);
+        add(statisticsHolder, BorderLayout.EAST);
+    }
+    
+    private void setupEventHandlers() {
+        textArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                recountTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                recountTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not change the text
+            }
+        });
+        analyzeFileButton.addActionListener(e -> analyzeFile());
+        clearButton.addActionListener(e -> textArea.setText(""));
+        compareFilesButton.addActionListener(e -> compareFiles());
+        applyButton.addActionListener(e -> applyTransform());
+        transformFileButton.addActionListener(e -> transformFile());
+        addRuleButton.addActionListener(e -> addRule());
+        removeRuleButton.addActionListener(e -> {
+            int index = ruleList.getSelectedIndex();
+            if (index >= 0) {
+                ruleModel.remove(index);
+            }
+        });
+        replaceAllButton.addActionListener(e -> replaceAll());
+        replaceFileButton.addActionListener(e -> replaceInFile());
+    }
+    
+    /**
+     * Count the text area; reads the document through a Segment, so the text is not copied
+     */
+    private void recountText() {
+        Document document = textArea.getDocument();
+        Segment segment = new Segment();
+        try {
+            document.getText(0, document.getLength(), segment);
+        } catch (BadLocationException e) {
+            return;
+        }
+        showStatistics("Statistics", textTools.analyze(segment));
+    }
+    
+    private void applyTransform() {
+        TextTransform transform = (TextTransform) transformBox.getSelectedItem();
+        Document document = textArea.getDocument();
+        Segment segment = new Segment();
+        try {
+            document.getText(0, document.getLength(), segment);
+        } catch (BadLocationException e) {
+            return;
+        }
+        TextTransformer transformer = transformers.computeIfAbsent(transform, TextTransformer::new);
+        textArea.setText(transformer.apply(segment).toString());
+        statusLabel.setText("Applied: " + transform.getDisplayName());
+    }
+    
+    private void transformFile() {
+        TextTransform transform = (TextTransform) transformBox.getSelectedItem();
+        JFileChooser inputChooser = new JFileChooser();
+        if (inputChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File input = inputChooser.getSelectedFile();
+        File output = chooseOutput(input, "-transformed");
+        if (output == null) {
+            return;
+        }
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setMinimum(0);
+        progressBar.setMaximum(100);
+        progressBar.setValue(0);
+        progressBar.setString("Transforming...");
+        statusLabel.setText("Applying " + transform.getDisplayName() + " to: " + input.getName());
+        transformFileButton.setEnabled(false);
+        
+        SwingWorker<Long, Integer> worker = new SwingWorker<Long, Integer>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return textTools.transform(input, output, (done, total) ->
+                    publish(total == 0 ? 100 : (int) (done * 100 / total)), transform);
+            }
+            
+            @Override
+            protected void process(List<Integer> percents) {
+                int percent = percents.get(percents.size() - 1);
+                progressBar.setValue(percent);
+                progressBar.setString("Transforming... " + percent + "%");
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    long characters = get();
+                    statusLabel.setText(String.format("Wrote %,d characters to: %s", characters, output.getName()));
+                } catch (Exception e) {
+                    ErrorDialog.showError(TextToolsTab.this, "Failed to transform file: " + input.getName(), e);
+                    statusLabel.setText("Error transforming file");
+                } finally {
+                    progressBar.setVisible(false);
+                    transformFileButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private ReplaceRule ruleFromFields() {
+        String target = findField.getText();
+        if (target.isEmpty()) {
+            return null;
+        }
+        ReplaceRule rule = regexCheckBox.isSelected() ? ReplaceRule.regex(target, replaceField.getText())
+                                                      : ReplaceRule.literal(target, replaceField.getText());
+        // Compiles the rule, so a bad pattern is reported now rather than when used
+        new TextReplacer(Collections.singletonList(rule));
+        return rule;
+    }
+    
+    private void addRule() {
+        try {
+            ReplaceRule rule = ruleFromFields();
+            if (rule != null) {
+                ruleModel.addElement(rule);
+                findField.setText("");
+                replaceField.setText("");
+            }
+        } catch (IllegalArgumentException e) {
+            ErrorDialog.showError(this, "Invalid rule: " + findField.getText(), e);
+        }
+    }
+    
+    /**
+     * The rules in the list, or the one in the fields if the list is empty
+     */
+    private List<ReplaceRule> currentRules() {
+        List<ReplaceRule> rules = new ArrayList<>();
+        for (int i = 0; i < ruleModel.size(); i++) {
+            rules.add(ruleModel.get(i));
+        }
+        if (rules.isEmpty()) {
+            ReplaceRule rule = ruleFromFields();
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+    
+    private void replaceAll() {
+        TextReplacer replacer;
+        try {
+            List<ReplaceRule> rules = currentRules();
+            if (rules.isEmpty()) {
+                statusLabel.setText("Enter text to find");
+                return;
+            }
+            replacer = new TextReplacer(rules);
+        } catch (IllegalArgumentException e) {
+            ErrorDialog.showError(this, "Invalid rule", e);
+            return;
+        }
+        Document document = textArea.getDocument();
+        Segment segment = new Segment();
+        try {
+            document.getText(0, document.getLength(), segment);
+        } catch (BadLocationException e) {
+            return;
+        }
+        String result = replacer.replace(segment);
+        if (!result.contentEquals(segment)) {
+            textArea.setText(result);
+        }
+        statusLabel.setText("Replaced with " + replacer.getRules().size() + " rule(s)");
+    }
+    
+    private void replaceInFile() {
+        List<ReplaceRule> rules;
+        try {
+            rules = currentRules();
+            if (rules.isEmpty()) {
+                statusLabel.setText("Enter text to find");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            ErrorDialog.showError(this, "Invalid rule", e);
+            return;
+        }
+        JFileChooser inputChooser = new JFileChooser();
+        if (inputChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File input = inputChooser.getSelectedFile();
+        File output = chooseOutput(input, "-replaced");
+        if (output == null) {
+            return;
+        }
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setMinimum(0);
+        progressBar.setMaximum(100);
+        progressBar.setValue(0);
+        progressBar.setString("Replacing...");
+        statusLabel.setText("Replacing in: " + input.getName());
+        replaceFileButton.setEnabled(false);
+        
+        SwingWorker<Long, Integer> worker = new SwingWorker<Long, Integer>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return textTools.replace(input, output, (done, total) ->
+                    publish(total == 0 ? 100 : (int) (done * 100 / total)), rules);
+            }
+            
+            @Override
+            protected void process(List<Integer> percents) {
+                int percent = percents.get(percents.size() - 1);
+                progressBar.setValue(percent);
+                progressBar.setString("Replacing... " + percent + "%");
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    long count = get();
+                    statusLabel.setText(String.format("Made %,d replacements, wrote: %s", count, output.getName()));
+                } catch (Exception e) {
+                    ErrorDialog.showError(TextToolsTab.this, "Failed to replace in file: " + input.getName(), e);
+                    statusLabel.setText("Error replacing in file");
+                } finally {
+                    progressBar.setVisible(false);
+                    replaceFileButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void compareFiles() {
+        JFileChooser oldChooser = new JFileChooser();
+        oldChooser.setDialogTitle("Old Version");
+        if (oldChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File oldFile = oldChooser.getSelectedFile();
+        JFileChooser newChooser = new JFileChooser(oldFile.getParentFile());
+        newChooser.setDialogTitle("New Version");
+        if (newChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File newFile = newChooser.getSelectedFile();
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setMinimum(0);
+        progressBar.setMaximum(100);
+        progressBar.setValue(0);
+        progressBar.setString("Reading...");
+        statusLabel.setText("Comparing " + oldFile.getName() + " with " + newFile.getName());
+        compareFilesButton.setEnabled(false);
+        
+        SwingWorker<TextDiff, Integer> worker = new SwingWorker<TextDiff, Integer>() {
+            private String unified;
+            
+            @Override
+            protected TextDiff doInBackground() throws Exception {
+                TextDiff diff = textTools.diff(oldFile, newFile, (done, total) ->
+                    publish(total == 0 ? 100 : (int) (done * 100 / total)));
+                TruncatingWriter out = new TruncatingWriter(MAX_DIFF_CHARS);
+                diff.writeUnified(out, oldFile.getName(), newFile.getName(), 3);
+                unified = out.toString();
+                return diff;
+            }
+            
+            @Override
+            protected void process(List<Integer> percents) {
+                int percent = percents.get(percents.size() - 1);
+                progressBar.setValue(percent);
+                progressBar.setString(percent < 100 ? "Reading... " + percent + "%" : "Comparing...");
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    TextDiff diff = get();
+                    statusLabel.setText(diff.isIdentical() ? "Files have identical lines"
+                        : String.format("%,d changes: -%,d +%,d lines", diff.getChanges().size(),
+                                        diff.getDeletedLines(), diff.getInsertedLines()));
+                    if (!diff.isIdentical()) {
+                        showDiff(oldFile.getName() + " \u2192 " + newFile.getName(), unified);
+                    }
+                } catch (Exception e) {
+                    ErrorDialog.showError(TextToolsTab.this, "Failed to compare files", e);
+                    statusLabel.setText("Error comparing files");
+                } finally {
+                    progressBar.setVisible(false);
+                    compareFilesButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+    
+    private void showDiff(String title, String unified) {
+        JTextArea diffArea = new JTextArea(unified);
+        diffArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        diffArea.setEditable(false);
+        diffArea.setCaretPosition(0);
+        JScrollPane scrollPane = new JScrollPane(diffArea);
+        scrollPane.setPreferredSize(new Dimension(800, 500));
+        JOptionPane.showMessageDialog(this, scrollPane, title, JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    /**
+     * Ask where to write the result for an input file, suggesting a name next to it
+     * @return The chosen file, or null if cancelled
+     */
+    private File chooseOutput(File input, String suffix) {
+        JFileChooser outputChooser = new JFileChooser(input.getParentFile());
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        outputChooser.setSelectedFile(new File(input.getParentFile(),
+            (dot > 0 ? name.substring(0, dot) : name) + suffix + (dot > 0 ? name.substring(dot) : ".txt")));
+        if (outputChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return outputChooser.getSelectedFile();
+    }
+    
+    private void analyzeFile() {
+        if (fileWorker != null) {
+            // The button cancels a running analysis
+            fileWorker.cancel(true);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setMinimum(0);
+        progressBar.setMaximum(100);
+        progressBar.setValue(0);
+        progressBar.setString("Analyzing...");
+        statusLabel.setText("Analyzing: " + file.getName());
+        analyzeFileButton.setText("Cancel");
+        
+        fileWorker = new SwingWorker<TextStatistics, Integer>() {
+            @Override
+            protected TextStatistics doInBackground() throws Exception {
+                return textTools.analyze(file, (done, total) ->
+                    publish(total == 0 ? 100 : (int) (done * 100 / total)));
+            }
+            
+            @Override
+            protected void process(List<Integer> percents) {
+                int percent = percents.get(percents.size() - 1);
+                progressBar.setValue(percent);
+                progressBar.setString("Analyzing... " + percent + "%");
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    TextStatistics statistics = get();
+                    showStatistics("Statistics of " + file.getName(), statistics);
+                    statusLabel.setText("Analyzed: " + file.getName());
+                } catch (CancellationException e) {
+                    statusLabel.setText("Analysis cancelled");
+                } catch (Exception e) {
+                    ErrorDialog.showError(TextToolsTab.this, "Failed to analyze file: " + file.getName(), e);
+                    statusLabel.setText("Error analyzing file");
+                } finally {
+                    progressBar.setVisible(false);
+                    analyzeFileButton.setText("Analyze File...");
+                    fileWorker = null;
+                }
+            }
+        };
+        
+        fileWorker.execute();
+    }
+    
+    private void showStatistics(String title, TextStatistics statistics) {
+        statisticsBorder.setTitle(title);
+        String[] values = {
+            String.format("%,d", statistics.getCharacters()),
+            String.format("%,d", statistics.getCharactersExcludingWhitespace()),
+            String.format("%,d", statistics.getWords()),
+            String.format("%,d", statistics.getLines()),
+            String.format("%,d", statistics.getSentences()),
+            String.format("%,d", statistics.getLongestLine()),
+            String.format("%.2f", statistics.getAverageWordLength()),
+            statistics.getBytes() > 0 ? formatSize(statistics.getBytes()) : "-"
+        };
+        for (int i = 0; i < values.length; i++) {
+            statisticLabels[i].setText(values[i]);
+        }
+        statisticsPanel.repaint();
+    }
+    
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %sB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+    
+    /**
+     * Keeps the first characters written and notes that the rest were dropped
+     */
+    private static final class TruncatingWriter extends Writer {
+        
+        private final StringBuilder text = new StringBuilder();
+        private final int limit;
+        private boolean truncated;
+        
+        TruncatingWriter(int limit) {
+            this.limit = limit;
+        }
+        
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            int room = limit - text.length();
+            if (length > room) {
+                truncated = true;
+                length = Math.max(0, room);
+            }
+            text.append(buffer, offset, length);
+        }
+        
+        @Override
+        public void flush() {
+        }
+        
+        @Override
+        public void close() {
+        }
+        
+        @Override
+        public String toString() {
+            return truncated ? text + "\n... (diff truncated)\n" : text.toString();
+        }
     }
 }
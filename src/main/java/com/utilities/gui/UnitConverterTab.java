@@ -1,13 +1,233 @@
 package com.utilities.gui;
 
+import com.utilities.converter.CsvUnitConverter;
+import com.utilities.converter.Unit;
+import com.utilities.converter.UnitCategory;
 import com.utilities.converter.UnitConverter;
+import com.utilities.utils.ErrorDialog;
+
 import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
 
 /**
- * Unit Converter Tab placeholder
+ * Unit Converter Tab - converts single values as you type and whole CSV columns in the background
  */
 public class UnitConverterTab extends JPanel {
-    public UnitConverterTab(UnitConverter unitConverter, JLabel statusLabel) {
-        add(new JLabel("Unit Converter functionality coming soon..."));
+    
+    private static final MathContext DISPLAY_PRECISION = new MathContext(12);
+    
+    private UnitConverter unitConverter;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    
+    // UI Components
+    private JComboBox<UnitCategory> categoryBox;
+    private JComboBox<Unit> fromBox;
+    private JComboBox<Unit> toBox;
+    private JTextField valueField;
+    private JTextField resultField;
+    private JSpinner columnSpinner;
+    private JCheckBox headerCheckBox;
+    private JComboBox<String> delimiterBox;
+    private JButton csvButton;
+    
+    public UnitConverterTab(UnitConverter unitConverter, JLabel statusLabel, JProgressBar progressBar) {
+        this.unitConverter = unitConverter;
+        this.statusLabel = statusLabel;
+        this.progressBar = progressBar;
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        updateUnits();
+    }
+    
+    private void initializeComponents() {
+        categoryBox = new JComboBox<>(UnitCategory.values());
+        fromBox = new JComboBox<>();
+        toBox = new JComboBox<>();
+        
+        valueField = new JTextField("1", 12);
+        valueField.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        resultField = new JTextField(18);
+        resultField.setEditable(false);
+        resultField.setFont(new Font("Monospaced", Font.BOLD, 14));
+        
+        columnSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 10000, 1));
+        headerCheckBox = new JCheckBox("First line is a header", true);
+        delimiterBox = new JComboBox<>(new String[] {"Comma", "Semicolon", "Tab"});
+        
+        csvButton = new JButton("Convert CSV Column...");
+        csvButton.setPreferredSize(new Dimension(180, 35));
+        csvButton.setFont(new Font("Arial", Font.BOLD, 12));
+        csvButton.setBackground(new Color(70, 130, 180));
+        csvButton.setForeground(Color.BLACK);
+        csvButton.setFocusPainted(false);
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        // Single value panel
+        JPanel valuePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        valuePanel.setBorder(new TitledBorder("Convert"));
+        valuePanel.add(new JLabel("Category:"));
+        valuePanel.add(categoryBox);
+        valuePanel.add(valueField);
+        valuePanel.add(fromBox);
+        valuePanel.add(new JLabel("="));
+        valuePanel.add(resultField);
+        valuePanel.add(toBox);
+        
+        // CSV panel; uses the units selected above
+        JPanel csvPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        csvPanel.setBorder(new TitledBorder("CSV Files (uses the units selected above)"));
+        csvPanel.add(new JLabel("Column:"));
+        csvPanel.add(columnSpinner);
+        csvPanel.add(new JLabel("Delimiter:"));
+        csvPanel.add(delimiterBox);
+        csvPanel.add(headerCheckBox);
+        csvPanel.add(csvButton);
+        
+        add(valuePanel, BorderLayout.NORTH);
+        add(csvPanel, BorderLayout.CENTER);
+    }
+    
+    private void setupEventHandlers() {
+        categoryBox.addActionListener(e -> updateUnits());
+        fromBox.addActionListener(e -> updateResult());
+        toBox.addActionListener(e -> updateResult());
+        valueField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateResult();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateResult();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                updateResult();
+            }
+        });
+        csvButton.addActionListener(e -> convertCsv());
+    }
+    
+    private void updateUnits() {
+        List<Unit> units = unitConverter.getUnits((UnitCategory) categoryBox.getSelectedItem());
+        fromBox.setModel(new DefaultComboBoxModel<>(units.toArray(new Unit[0])));
+        toBox.setModel(new DefaultComboBoxModel<>(units.toArray(new Unit[0])));
+        toBox.setSelectedIndex(Math.min(1, units.size() - 1));
+        updateResult();
+    }
+    
+    private void updateResult() {
+        Unit from = (Unit) fromBox.getSelectedItem();
+        Unit to = (Unit) toBox.getSelectedItem();
+        String text = valueField.getText().trim();
+        if (from == null || to == null || text.isEmpty()) {
+            resultField.setText("");
+            return;
+        }
+        try {
+            resultField.setText(format(unitConverter.convert(Double.parseDouble(text), from, to)));
+        } catch (NumberFormatException e) {
+            resultField.setText("Invalid number");
+        }
+    }
+    
+    private static String format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude != 0 && (magnitude < 1e-6 || magnitude >= 1e15)) {
+            return String.format("%.10e", value);
+        }
+        return new BigDecimal(value).round(DISPLAY_PRECISION).stripTrailingZeros().toPlainString();
+    }
+    
+    private void convertCsv() {
+        JFileChooser inputChooser = new JFileChooser();
+        inputChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv", "tsv", "txt"));
+        if (inputChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File input = inputChooser.getSelectedFile();
+        
+        JFileChooser outputChooser = new JFileChooser(input.getParentFile());
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        outputChooser.setSelectedFile(new File(input.getParentFile(),
+            (dot > 0 ? name.substring(0, dot) : name) + "-converted" + (dot > 0 ? name.substring(dot) : ".csv")));
+        if (outputChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File output = outputChooser.getSelectedFile();
+        
+        Unit from = (Unit) fromBox.getSelectedItem();
+        Unit to = (Unit) toBox.getSelectedItem();
+        CsvUnitConverter csv = new CsvUnitConverter(unitConverter);
+        try {
+            csv.addColumn((Integer) columnSpinner.getValue() - 1, from, to);
+            csv.setHeader(headerCheckBox.isSelected());
+            csv.setDelimiter(new char[] {',', ';', '\t'}[delimiterBox.getSelectedIndex()]);
+        } catch (IllegalArgumentException e) {
+            ErrorDialog.showError(this, e.getMessage());
+            return;
+        }
+        
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setMinimum(0);
+        progressBar.setMaximum(100);
+        progressBar.setValue(0);
+        progressBar.setString("Converting CSV...");
+        statusLabel.setText("Converting " + from.getSymbol() + " to " + to.getSymbol() + " in: " + input.getName());
+        csvButton.setEnabled(false);
+        
+        SwingWorker<Long, Integer> worker = new SwingWorker<Long, Integer>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return csv.convert(input, output, (done, total) ->
+                    publish(total == 0 ? 100 : (int) (done * 100 / total)));
+            }
+            
+            @Override
+            protected void process(List<Integer> percents) {
+                int percent = percents.get(percents.size() - 1);
+                progressBar.setValue(percent);
+                progressBar.setString("Converting CSV... " + percent + "%");
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    long lines = get();
+                    statusLabel.setText("Converted " + lines + " line(s) to: " + output.getName());
+                } catch (Exception e) {
+                    ErrorDialog.showError(UnitConverterTab.this, "Failed to convert CSV file: " + input.getName(), e);
+                    statusLabel.setText("Error converting CSV file");
+                } finally {
+                    progressBar.setVisible(false);
+                    csvButton.setEnabled(true);
+                }
+            }
+        };
+        
+        worker.execute();
     }
 }
@@ -0,0 +1,108 @@
+package com.utilities.ocr;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 content keys for the OCR result cache
+ * Keys cover the image content and the engine settings, so changing the
+ * language or segmentation mode never returns a stale result
+ */
+final class ContentHash {
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private ContentHash() {
+    }
+    
+    /**
+     * Key for an encoded image file
+     * @param data Raw file bytes
+     * @param settings Engine settings string
+     * @return 64-character hex key
+     */
+    static String ofBytes(byte[] data, String settings) {
+        MessageDigest digest = newDigest();
+        digest.update((byte) 'F');
+        digest.update(data);
+        return finish(digest, settings);
+    }
+    
+    /**
+     * Key for an encoded image file, streamed so large files are never held in memory
+     * Produces the same key as ofBytes on the file's contents
+     * @param file Image file
+     * @param settings Engine settings string
+     * @return 64-character hex key
+     * @throws IOException If the file cannot be read
+     */
+    static String ofFile(File file, String settings) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update((byte) 'F');
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return finish(digest, settings);
+    }
+    
+    /**
+     * Key for decoded pixels; the same picture in two file formats hashes differently
+     * from its files but identically to itself once decoded
+     * @param image Decoded image
+     * @param settings Engine settings string
+     * @return 64-character hex key
+     */
+    static String ofImage(BufferedImage image, String settings) {
+        MessageDigest digest = newDigest();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        
+        ByteBuffer header = ByteBuffer.allocate(9);
+        header.put((byte) 'P').putInt(width).putInt(height);
+        digest.update(header.array());
+        
+        // Hash one ARGB row at a time so no full-size copy of the pixels is made
+        int[] row = new int[width];
+        ByteBuffer rowBytes = ByteBuffer.allocate(width * 4);
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            rowBytes.clear();
+            rowBytes.asIntBuffer().put(row);
+            digest.update(rowBytes.array());
+        }
+        return finish(digest, settings);
+    }
+    
+    private static String finish(MessageDigest digest, String settings) {
+        digest.update((byte) 0);
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
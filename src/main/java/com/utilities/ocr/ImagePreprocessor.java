@@ -0,0 +1,400 @@
+package com.utilities.ocr;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+/**
+ * Prepares images for Tesseract: grayscale, DPI normalization, adaptive
+ * binarization and deskew, all on primitive byte arrays
+ *
+ * Scratch buffers and the output image are kept between calls, so steady-state
+ * processing of same-sized images allocates nothing. An instance is therefore
+ * not thread-safe, and the returned image is only valid until the next call;
+ * OCRService keeps one instance per thread.
+ */
+public class ImagePreprocessor {
+    
+    public static final int DEFAULT_TARGET_DPI = 300;
+    
+    // Bradley-Roth threshold: a pixel is black if it is this much darker than its neighbourhood mean
+    private static final int THRESHOLD_PERCENT = 15;
+    private static final double MAX_SKEW_DEGREES = 5.0;
+    private static final double MIN_SKEW_DEGREES = 0.1;
+    private static final int MAX_SKEW_SAMPLES = 200_000;
+    
+    private final int sourceDpi;
+    private final int targetDpi;
+    private final boolean binarize;
+    private final boolean deskew;
+    
+    // Ping-pong pixel buffers; current always holds the latest stage output
+    private byte[] current = new byte[0];
+    private byte[] spare = new byte[0];
+    private int[] rowPixels = new int[0];
+    private int[] columnSums = new int[0];
+    private int[] rowPrefix = new int[0];
+    private long[] profile = new long[0];
+    private BufferedImage output;
+    
+    private int width;
+    private int height;
+    private double lastSkewDegrees;
+    
+    /**
+     * Create a preprocessor with binarization and deskew and no DPI scaling
+     */
+    public ImagePreprocessor() {
+        this(0, DEFAULT_TARGET_DPI, true, true);
+    }
+    
+    /**
+     * Create a preprocessor
+     * @param sourceDpi Resolution of the input images, or 0 if unknown (no scaling)
+     * @param targetDpi Resolution to scale to when sourceDpi is known
+     * @param binarize Apply adaptive thresholding
+     * @param deskew Detect and correct page rotation of up to 5 degrees
+     */
+    public ImagePreprocessor(int sourceDpi, int targetDpi, boolean binarize, boolean deskew) {
+        this.sourceDpi = sourceDpi;
+        this.targetDpi = targetDpi;
+        this.binarize = binarize;
+        this.deskew = deskew;
+    }
+    
+    /**
+     * Run the pipeline
+     * @param image Source image of any type
+     * @return An 8-bit grayscale image, reused by the next call
+     */
+    public BufferedImage process(BufferedImage image) {
+        toGray(image);
+        if (sourceDpi > 0 && sourceDpi != targetDpi) {
+            scale((double) targetDpi / sourceDpi);
+        }
+        if (binarize) {
+            binarize();
+        }
+        lastSkewDegrees = 0.0;
+        if (deskew && binarize) {
+            double angle = estimateSkew();
+            if (Math.abs(angle) >= MIN_SKEW_DEGREES) {
+                rotate(angle);
+                lastSkewDegrees = angle;
+            }
+        }
+        return toImage();
+    }
+    
+    /**
+     * Get the rotation corrected by the last call to process
+     * @return Angle in degrees, 0 if none was applied
+     */
+    public double getLastSkewDegrees() {
+        return lastSkewDegrees;
+    }
+    
+    /**
+     * Describe the settings; part of the OCR cache key
+     * @return Settings string
+     */
+    public String getSettingsDescription() {
+        return "pre(dpi=" + sourceDpi + ">" + targetDpi + ",bin=" + binarize + ",deskew=" + deskew + ")";
+    }
+    
+    // ---- Grayscale ----
+    
+    private void toGray(BufferedImage image) {
+        width = image.getWidth();
+        height = image.getHeight();
+        byte[] gray = ensure(width * height);
+        Raster raster = image.getRaster();
+        
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                if (raster.getDataBuffer() instanceof DataBufferInt
+                        && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                        && raster.getParent() == null) {
+                    grayFromPackedInts(raster, gray, image.getType() == BufferedImage.TYPE_INT_ARGB);
+                    return;
+                }
+                break;
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (raster.getDataBuffer() instanceof DataBufferByte && raster.getParent() == null) {
+                    grayFromBytes(raster, gray);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        grayFromRgbRows(image, gray);
+    }
+    
+    private void grayFromPackedInts(Raster raster, byte[] gray, boolean hasAlpha) {
+        int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+        int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        int offset = raster.getDataBuffer().getOffset();
+        for (int y = 0; y < height; y++) {
+            int in = offset + y * stride;
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                gray[out + x] = (byte) luma(data[in + x], hasAlpha);
+            }
+        }
+    }
+    
+    private void grayFromBytes(Raster raster, byte[] gray) {
+        byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int stride = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+        int offset = raster.getDataBuffer().getOffset();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(data, offset + y * stride, gray, y * width, width);
+        }
+    }
+    
+    private void grayFromRgbRows(BufferedImage image, byte[] gray) {
+        if (rowPixels.length < width) {
+            rowPixels = new int[width];
+        }
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, rowPixels, 0, width);
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                gray[out + x] = (byte) luma(rowPixels[x], hasAlpha);
+            }
+        }
+    }
+    
+    private static int luma(int argb, boolean hasAlpha) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        int y = (77 * r + 150 * g + 29 * b) >> 8;
+        if (hasAlpha) {
+            // Composite over white so transparent areas do not turn black
+            int a = argb >>> 24;
+            y = 255 - ((255 - y) * a + 127) / 255;
+        }
+        return y;
+    }
+    
+    // ---- DPI normalization ----
+    
+    private void scale(double factor) {
+        int newWidth = Math.max(1, (int) Math.round(width * factor));
+        int newHeight = Math.max(1, (int) Math.round(height * factor));
+        byte[] src = current;
+        byte[] dst = ensureSpare(newWidth * newHeight);
+        double step = 1.0 / factor;
+        
+        // Bilinear resampling in 16.16 fixed point
+        for (int y = 0; y < newHeight; y++) {
+            double sy = Math.min(height - 1, Math.max(0, (y + 0.5) * step - 0.5));
+            int y0 = (int) sy;
+            int y1 = Math.min(height - 1, y0 + 1);
+            int fy = (int) ((sy - y0) * 65536);
+            int row0 = y0 * width;
+            int row1 = y1 * width;
+            int out = y * newWidth;
+            for (int x = 0; x < newWidth; x++) {
+                double sx = Math.min(width - 1, Math.max(0, (x + 0.5) * step - 0.5));
+                int x0 = (int) sx;
+                int x1 = Math.min(width - 1, x0 + 1);
+                int fx = (int) ((sx - x0) * 65536);
+                long top = (src[row0 + x0] & 0xFF) * (65536L - fx) + (src[row0 + x1] & 0xFF) * (long) fx;
+                long bottom = (src[row1 + x0] & 0xFF) * (65536L - fx) + (src[row1 + x1] & 0xFF) * (long) fx;
+                dst[out + x] = (byte) ((top * (65536L - fy) + bottom * fy + (1L << 31)) >>> 32);
+            }
+        }
+        
+        width = newWidth;
+        height = newHeight;
+        swap();
+    }
+    
+    // ---- Adaptive binarization ----
+    
+    /**
+     * Bradley-Roth thresholding against the mean of a window around each pixel
+     * Window sums come from running column sums, so memory is O(width) beyond the two pixel buffers
+     */
+    private void binarize() {
+        byte[] src = current;
+        byte[] dst = ensureSpare(width * height);
+        int radius = Math.max(7, Math.max(width, height) / 16);
+        if (columnSums.length < width) {
+            columnSums = new int[width];
+        }
+        if (rowPrefix.length < width + 1) {
+            rowPrefix = new int[width + 1];
+        }
+        Arrays.fill(columnSums, 0, width, 0);
+        
+        // Prime the column sums with rows [0, radius)
+        int lastAdded = -1;
+        for (int y = 0; y < Math.min(radius, height); y++) {
+            addRow(src, y, 1);
+            lastAdded = y;
+        }
+        
+        for (int y = 0; y < height; y++) {
+            int bottom = y + radius;
+            if (bottom < height) {
+                addRow(src, bottom, 1);
+                lastAdded = bottom;
+            }
+            int top = y - radius - 1;
+            if (top >= 0) {
+                addRow(src, top, -1);
+            }
+            int rows = lastAdded - Math.max(0, y - radius) + 1;
+            
+            rowPrefix[0] = 0;
+            for (int x = 0; x < width; x++) {
+                rowPrefix[x + 1] = rowPrefix[x] + columnSums[x];
+            }
+            
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - radius);
+                int x1 = Math.min(width - 1, x + radius);
+                long count = (long) (x1 - x0 + 1) * rows;
+                long sum = rowPrefix[x1 + 1] - rowPrefix[x0];
+                int value = src[out + x] & 0xFF;
+                dst[out + x] = value * count * 100 <= sum * (100 - THRESHOLD_PERCENT) ? 0 : (byte) 255;
+            }
+        }
+        swap();
+    }
+    
+    private void addRow(byte[] src, int y, int sign) {
+        int row = y * width;
+        for (int x = 0; x < width; x++) {
+            columnSums[x] += sign * (src[row + x] & 0xFF);
+        }
+    }
+    
+    // ---- Deskew ----
+    
+    /**
+     * Find the rotation that maximizes the variance of the horizontal projection profile
+     * of a subsample of black pixels; text lines line up with rows at the right angle
+     */
+    private double estimateSkew() {
+        byte[] bin = current;
+        long pixels = (long) width * height;
+        int step = (int) Math.max(1, Math.ceil(Math.sqrt((double) pixels / MAX_SKEW_SAMPLES)));
+        
+        double best = 0.0;
+        double bestScore = profileScore(bin, step, 0.0);
+        for (double angle = -MAX_SKEW_DEGREES; angle <= MAX_SKEW_DEGREES + 1e-9; angle += 0.5) {
+            double score = profileScore(bin, step, angle);
+            if (score > bestScore) {
+                bestScore = score;
+                best = angle;
+            }
+        }
+        double center = best;
+        for (double angle = center - 0.45; angle <= center + 0.45 + 1e-9; angle += 0.05) {
+            double score = profileScore(bin, step, angle);
+            if (score > bestScore) {
+                bestScore = score;
+                best = angle;
+            }
+        }
+        return best;
+    }
+    
+    private double profileScore(byte[] bin, int step, double degrees) {
+        // Bins are one sample step tall so the sampling grid itself does not favour angle 0
+        double slope = Math.tan(Math.toRadians(degrees));
+        double margin = Math.abs(slope) * width + step;
+        int bins = (int) ((height + 2 * margin) / step) + 1;
+        if (profile.length < bins) {
+            profile = new long[bins];
+        }
+        Arrays.fill(profile, 0, bins, 0);
+        
+        for (int y = 0; y < height; y += step) {
+            int row = y * width;
+            for (int x = 0; x < width; x += step) {
+                if (bin[row + x] == 0) {
+                    profile[(int) ((y - x * slope + margin) / step)]++;
+                }
+            }
+        }
+        
+        double score = 0;
+        for (int i = 0; i < bins; i++) {
+            score += (double) profile[i] * profile[i];
+        }
+        return score;
+    }
+    
+    /**
+     * Rotate the binary image by -degrees around its center with nearest-neighbour sampling
+     */
+    private void rotate(double degrees) {
+        byte[] src = current;
+        byte[] dst = ensureSpare(width * height);
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double cx = width / 2.0;
+        double cy = height / 2.0;
+        
+        for (int y = 0; y < height; y++) {
+            double dy = y - cy;
+            // Source coordinates for x = 0, then stepped along the rotated row
+            double sx = -cx * cos - dy * sin + cx;
+            double sy = -cx * sin + dy * cos + cy;
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                int ix = (int) Math.round(sx);
+                int iy = (int) Math.round(sy);
+                dst[out + x] = ix >= 0 && ix < width && iy >= 0 && iy < height ? src[iy * width + ix] : (byte) 255;
+                sx += cos;
+                sy += sin;
+            }
+        }
+        swap();
+    }
+    
+    // ---- Buffers ----
+    
+    private BufferedImage toImage() {
+        if (output == null || output.getWidth() != width || output.getHeight() != height) {
+            output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        }
+        byte[] data = ((DataBufferByte) output.getRaster().getDataBuffer()).getData();
+        System.arraycopy(current, 0, data, 0, width * height);
+        return output;
+    }
+    
+    private byte[] ensure(int size) {
+        if (current.length < size) {
+            current = new byte[size];
+        }
+        return current;
+    }
+    
+    private byte[] ensureSpare(int size) {
+        if (spare.length < size) {
+            spare = new byte[size];
+        }
+        return spare;
+    }
+    
+    private void swap() {
+        byte[] previous = current;
+        current = spare;
+        spare = previous;
+    }
+}
@@ -0,0 +1,14 @@
+package com.utilities.ocr;
+
+/**
+ * Receives per-file results of a batch OCR job
+ * Results are delivered in submission order on the thread that started the batch
+ */
+public interface OCRBatchListener {
+    
+    /**
+     * Called once for every file in the batch, including files that failed
+     * @param result The result for one file
+     */
+    void onResult(OCRResult result);
+}
@@ -0,0 +1,139 @@
+package com.utilities.ocr;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Two-stage OCR pipeline for batches of image files
+ * Images are read, looked up in the result cache and decoded on a small I/O
+ * stage, then recognized on a CPU stage sized to the engine pool. At most a
+ * fixed window of files is in flight, so memory stays bounded no matter how
+ * many files the batch contains.
+ */
+class OCRBatchProcessor {
+    
+    private static final Logger logger = Logger.getLogger(OCRBatchProcessor.class.getName());
+    
+    private final OCRService ocrService;
+    private final Executor ioExecutor;
+    private final Executor cpuExecutor;
+    private final int window;
+    
+    /**
+     * @param ocrService Service that decodes and recognizes each file
+     * @param ioExecutor Runs the decode stage
+     * @param cpuExecutor Runs the recognition stage
+     * @param cpuThreads Number of threads behind cpuExecutor
+     */
+    OCRBatchProcessor(OCRService ocrService, Executor ioExecutor, Executor cpuExecutor, int cpuThreads) {
+        this.ocrService = ocrService;
+        this.ioExecutor = ioExecutor;
+        this.cpuExecutor = cpuExecutor;
+        // Enough decoded images queued to keep every engine busy while the head of the batch finishes
+        this.window = cpuThreads * 2;
+    }
+    
+    /**
+     * Run the batch, delivering results in submission order
+     * @param files Files to process; iterated lazily
+     * @param listener Receives one result per file on the calling thread
+     * @return Number of files processed
+     * @throws InterruptedException If the calling thread is interrupted; pending work is cancelled
+     */
+    int process(Iterable<File> files, OCRBatchListener listener) throws InterruptedException {
+        Deque<CompletableFuture<OCRResult>> pending = new ArrayDeque<>(window);
+        long start = System.currentTimeMillis();
+        int count = 0;
+        
+        try {
+            Iterator<File> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                // Backpressure: wait for the oldest file before admitting another
+                if (pending.size() >= window) {
+                    listener.onResult(await(pending.poll()));
+                }
+                pending.add(submit(count++, iterator.next()));
+            }
+            while (!pending.isEmpty()) {
+                listener.onResult(await(pending.poll()));
+            }
+            
+            logger.info("Batch OCR completed: " + count + " file(s) in " + (System.currentTimeMillis() - start) + " ms");
+            return count;
+            
+        } finally {
+            // The executors are shared; stages of a cancelled file are skipped when they come up
+            for (CompletableFuture<OCRResult> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    private CompletableFuture<OCRResult> submit(int index, File file) {
+        return CompletableFuture
+            .supplyAsync(() -> decode(index, file), ioExecutor)
+            .thenApplyAsync(decoded -> decoded.recognize(), cpuExecutor);
+    }
+    
+    private DecodedImage decode(int index, File file) {
+        long start = System.currentTimeMillis();
+        try {
+            OCRService.PreparedImage prepared = ocrService.prepareImage(file);
+            return new DecodedImage(index, file, prepared, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new DecodedImage(index, file, null, e, System.currentTimeMillis() - start);
+        }
+    }
+    
+    private static OCRResult await(CompletableFuture<OCRResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // Stages capture their own failures, so this only happens on unexpected runtime errors
+            throw new IllegalStateException("OCR pipeline failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Output of the decode stage, carried into the recognition stage
+     */
+    private class DecodedImage {
+        
+        private final int index;
+        private final File file;
+        private OCRService.PreparedImage prepared;
+        private final Exception error;
+        private final long decodeMillis;
+        
+        DecodedImage(int index, File file, OCRService.PreparedImage prepared, Exception error, long decodeMillis) {
+            this.index = index;
+            this.file = file;
+            this.prepared = prepared;
+            this.error = error;
+            this.decodeMillis = decodeMillis;
+        }
+        
+        OCRResult recognize() {
+            if (error != null) {
+                return new OCRResult(index, file, null, error, decodeMillis, 0);
+            }
+            
+            long start = System.currentTimeMillis();
+            try {
+                String text = ocrService.recognizePrepared(prepared);
+                return new OCRResult(index, file, text, null, decodeMillis, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                return new OCRResult(index, file, null, e, decodeMillis, System.currentTimeMillis() - start);
+            } finally {
+                // Release pixels as soon as recognition is done; the result may wait in the window
+                prepared = null;
+            }
+        }
+    }
+}
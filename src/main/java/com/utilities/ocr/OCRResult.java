@@ -0,0 +1,77 @@
+package com.utilities.ocr;
+
+import java.io.File;
+
+/**
+ * Result of OCR on a single file within a batch
+ * Holds either the extracted text or the error that prevented extraction
+ */
+public class OCRResult {
+    
+    private final int index;
+    private final File file;
+    private final String text;
+    private final Exception error;
+    private final long decodeMillis;
+    private final long recognizeMillis;
+    
+    OCRResult(int index, File file, String text, Exception error, long decodeMillis, long recognizeMillis) {
+        this.index = index;
+        this.file = file;
+        this.text = text;
+        this.error = error;
+        this.decodeMillis = decodeMillis;
+        this.recognizeMillis = recognizeMillis;
+    }
+    
+    /**
+     * Get the position of the file in the batch
+     * @return Zero-based index in submission order
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Get the extracted text
+     * @return Text, or null if extraction failed
+     */
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Get the error that prevented extraction
+     * @return Error, or null if extraction succeeded
+     */
+    public Exception getError() {
+        return error;
+    }
+    
+    public boolean isSuccess() {
+        return error == null;
+    }
+    
+    public long getDecodeMillis() {
+        return decodeMillis;
+    }
+    
+    public long getRecognizeMillis() {
+        return recognizeMillis;
+    }
+    
+    public long getTotalMillis() {
+        return decodeMillis + recognizeMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return file.getName() + (isSuccess()
+            ? " (" + getTotalMillis() + " ms)"
+            : " failed: " + error.getMessage());
+    }
+}
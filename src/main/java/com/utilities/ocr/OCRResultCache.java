@@ -0,0 +1,330 @@
+package com.utilities.ocr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Two-tier cache of OCR results keyed by content hash
+ * The memory tier is an LRU bounded by the size of the cached text. The disk tier
+ * is an append-only file that is memory-mapped for reads and survives restarts.
+ *
+ * The disk tier is opened on first use, so constructing a cache does no I/O.
+ *
+ * Disk record layout: [64-byte ASCII hex key][int UTF-8 length][UTF-8 text]
+ */
+public class OCRResultCache {
+    
+    private static final Logger logger = Logger.getLogger(OCRResultCache.class.getName());
+    private static final String CACHE_FILE_NAME = "ocr-cache.dat";
+    private static final int KEY_LENGTH = 64;
+    private static final int HEADER_LENGTH = KEY_LENGTH + 4;
+    
+    public static final long DEFAULT_MEMORY_BYTES = 32L * 1024 * 1024;
+    public static final long DEFAULT_DISK_BYTES = 512L * 1024 * 1024;
+    
+    // Memory tier, guarded by this
+    private final long memoryBudgetBytes;
+    private long memoryBytes = 0;
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(256, 0.75f, true);
+    
+    // Disk tier, guarded by this
+    private final long diskBudgetBytes;
+    private File diskDirectory;
+    private FileChannel diskChannel;
+    private MappedByteBuffer diskMap;
+    private long diskSize = 0;
+    private final Map<String, Long> diskIndex = new HashMap<>();
+    private boolean diskFullLogged = false;
+    
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    /**
+     * Create a cache in the default location (~/.utilities/ocr-cache)
+     */
+    public OCRResultCache() {
+        this(new File(System.getProperty("user.home"), ".utilities" + File.separator + "ocr-cache"),
+             DEFAULT_MEMORY_BYTES, DEFAULT_DISK_BYTES);
+    }
+    
+    /**
+     * Create a cache
+     * @param directory Directory for the disk tier, or null for a memory-only cache
+     * @param memoryBudgetBytes Approximate maximum size of text held in memory
+     * @param diskBudgetBytes Maximum size of the disk file; new entries are not persisted beyond it
+     */
+    public OCRResultCache(File directory, long memoryBudgetBytes, long diskBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        // Records are addressed with int offsets into a single mapping
+        this.diskBudgetBytes = Math.min(diskBudgetBytes, Integer.MAX_VALUE);
+        this.diskDirectory = directory;
+    }
+    
+    private void ensureOpen() {
+        if (diskDirectory != null) {
+            File directory = diskDirectory;
+            diskDirectory = null;
+            openDiskTier(directory);
+        }
+    }
+    
+    private void openDiskTier(File directory) {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create cache directory: " + directory);
+            }
+            
+            diskChannel = new RandomAccessFile(new File(directory, CACHE_FILE_NAME), "rw").getChannel();
+            long fileSize = diskChannel.size();
+            diskMap = diskChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            
+            // Rebuild the index; a truncated trailing record from a crash is dropped
+            long position = 0;
+            while (position + HEADER_LENGTH <= fileSize) {
+                int length = diskMap.getInt((int) position + KEY_LENGTH);
+                if (length < 0 || position + HEADER_LENGTH + length > fileSize) {
+                    break;
+                }
+                diskIndex.put(readKey(position), position);
+                position += HEADER_LENGTH + length;
+            }
+            
+            if (position < fileSize) {
+                logger.warning("Discarding " + (fileSize - position) + " trailing bytes of OCR cache");
+                diskChannel.truncate(position);
+                diskMap = diskChannel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+            }
+            diskSize = position;
+            logger.info("OCR cache loaded " + diskIndex.size() + " entries from " + directory);
+            
+        } catch (IOException e) {
+            logger.warning("OCR disk cache unavailable, using memory only: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+    
+    /**
+     * Look up a cached result
+     * @param key 64-character hex key from the content hash
+     * @return Cached text, or null on a miss
+     */
+    public synchronized String get(String key) {
+        ensureOpen();
+        String text = memory.get(key);
+        if (text != null) {
+            memoryHits.incrementAndGet();
+            return text;
+        }
+        
+        Long offset = diskIndex.get(key);
+        if (offset != null) {
+            try {
+                text = readText(offset);
+                diskHits.incrementAndGet();
+                putInMemory(key, text);
+                return text;
+            } catch (IOException e) {
+                logger.warning("Failed to read OCR cache entry: " + e.getMessage());
+            }
+        }
+        
+        misses.incrementAndGet();
+        return null;
+    }
+    
+    /**
+     * Store a result in both tiers
+     * @param key 64-character hex key from the content hash
+     * @param text Extracted text
+     */
+    public synchronized void put(String key, String text) {
+        if (key.length() != KEY_LENGTH) {
+            throw new IllegalArgumentException("Cache key must be " + KEY_LENGTH + " hex characters");
+        }
+        
+        ensureOpen();
+        putInMemory(key, text);
+        if (diskChannel != null && !diskIndex.containsKey(key)) {
+            writeToDisk(key, text);
+        }
+    }
+    
+    private void putInMemory(String key, String text) {
+        String previous = memory.put(key, text);
+        if (previous != null) {
+            memoryBytes -= sizeOf(previous);
+        }
+        memoryBytes += sizeOf(text);
+        
+        Iterator<Map.Entry<String, String>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > memoryBudgetBytes && eldest.hasNext()) {
+            memoryBytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+    
+    private void writeToDisk(String key, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        if (diskSize + HEADER_LENGTH + payload.length > diskBudgetBytes) {
+            if (!diskFullLogged) {
+                logger.warning("OCR disk cache is full (" + diskSize + " bytes); new results are kept in memory only");
+                diskFullLogged = true;
+            }
+            return;
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        record.put(key.getBytes(StandardCharsets.US_ASCII));
+        record.putInt(payload.length);
+        record.put(payload);
+        record.flip();
+        
+        try {
+            long position = diskSize;
+            while (record.hasRemaining()) {
+                diskChannel.write(record, position + record.position());
+            }
+            diskIndex.put(key, position);
+            diskSize += HEADER_LENGTH + payload.length;
+        } catch (IOException e) {
+            logger.warning("Failed to persist OCR cache entry: " + e.getMessage());
+        }
+    }
+    
+    private String readText(long offset) throws IOException {
+        if (offset >= diskMap.capacity()) {
+            // Entry was appended after the file was last mapped; mappings always end on a record boundary
+            diskMap = diskChannel.map(FileChannel.MapMode.READ_ONLY, 0, diskSize);
+        }
+        int length = diskMap.getInt((int) offset + KEY_LENGTH);
+        
+        byte[] payload = new byte[length];
+        ByteBuffer view = diskMap.duplicate();
+        view.position((int) offset + HEADER_LENGTH);
+        view.get(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+    
+    private String readKey(long position) {
+        byte[] key = new byte[KEY_LENGTH];
+        ByteBuffer view = diskMap.duplicate();
+        view.position((int) position);
+        view.get(key);
+        return new String(key, StandardCharsets.US_ASCII);
+    }
+    
+    private static long sizeOf(String text) {
+        // Key, entry overhead and UTF-16 chars
+        return KEY_LENGTH * 2 + 64 + text.length() * 2L;
+    }
+    
+    /**
+     * Take a snapshot of hit/miss counters and tier sizes
+     * @return Current cache statistics
+     */
+    public synchronized Stats getStats() {
+        ensureOpen();
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(),
+                         memory.size(), memoryBytes, diskIndex.size(), diskSize);
+    }
+    
+    /**
+     * Release the disk tier; the cache keeps working in memory only
+     */
+    public synchronized void close() {
+        diskDirectory = null;
+        closeQuietly();
+    }
+    
+    private void closeQuietly() {
+        if (diskChannel != null) {
+            try {
+                diskChannel.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close OCR cache: " + e.getMessage());
+            }
+        }
+        diskChannel = null;
+        diskMap = null;
+        diskIndex.clear();
+        diskSize = 0;
+    }
+    
+    /**
+     * Immutable snapshot of cache metrics
+     */
+    public static final class Stats {
+        
+        private final long memoryHits;
+        private final long diskHits;
+        private final long misses;
+        private final int memoryEntries;
+        private final long memoryBytes;
+        private final int diskEntries;
+        private final long diskBytes;
+        
+        private Stats(long memoryHits, long diskHits, long misses,
+                      int memoryEntries, long memoryBytes, int diskEntries, long diskBytes) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.memoryEntries = memoryEntries;
+            this.memoryBytes = memoryBytes;
+            this.diskEntries = diskEntries;
+            this.diskBytes = diskBytes;
+        }
+        
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+        
+        public long getDiskHits() {
+            return diskHits;
+        }
+        
+        public long getMisses() {
+            return misses;
+        }
+        
+        public double getHitRatio() {
+            long total = memoryHits + diskHits + misses;
+            return total == 0 ? 0.0 : (double) (memoryHits + diskHits) / total;
+        }
+        
+        public int getMemoryEntries() {
+            return memoryEntries;
+        }
+        
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+        
+        public int getDiskEntries() {
+            return diskEntries;
+        }
+        
+        public long getDiskBytes() {
+            return diskBytes;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("OCR cache: %d memory hits, %d disk hits, %d misses (%.0f%% hit ratio), "
+                    + "%d entries in memory, %d on disk (%d KB)",
+                    memoryHits, diskHits, misses, getHitRatio() * 100,
+                    memoryEntries, diskEntries, diskBytes / 1024);
+        }
+    }
+}
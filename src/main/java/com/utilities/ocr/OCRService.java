@@ -2,35 +2,137 @@ package com.utilities.ocr;
 
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
  * OCR Service for Image to Text conversion
  * Handles Tesseract initialization and image processing
+ * Recognition runs on a pool of engines so concurrent callers do not serialize,
+ * and results are cached by image content so repeated images skip recognition.
+ * Engines start lazily on a background thread; see initializeAsync().
  */
 public class OCRService {
     
     private static final Logger logger = Logger.getLogger(OCRService.class.getName());
-    private Tesseract tesseract;
-    private boolean isInitialized = false;
-    private String lastError = null;
+    private static final String LANGUAGE = "eng";
+    private static final int PAGE_SEG_MODE = 1;
+    private static final int OCR_ENGINE_MODE = 1;
+    
+    /** Images with more pixels than this are recognized in strips instead of decoded whole */
+    public static final long TILED_THRESHOLD_PIXELS = 40L * 1000 * 1000;
+    
+    private static final int DECODE_THREADS = 2;
+    // Marks the recognition workers, which must never block on work queued behind them
+    private static final ThreadLocal<Boolean> recognitionWorker = ThreadLocal.withInitial(() -> false);
+    
+    private final int poolSize;
+    private final OCRResultCache resultCache;
+    private volatile ThreadLocal<ImagePreprocessor> preprocessors;
+    private volatile String preprocessorSettings = "none";
+    private volatile TesseractPool enginePool;
+    // Long-lived workers shared by every batch and tiled image, one per engine
+    private volatile ExecutorService recognitionExecutor;
+    private volatile ExecutorService decodeExecutor;
+    private volatile String tessdataPath;
+    private volatile boolean isInitialized = false;
+    private volatile String lastError = null;
+    
+    // Lazy startup
+    private final AtomicBoolean initializationStarted = new AtomicBoolean(false);
+    private final CompletableFuture<Boolean> ready = new CompletableFuture<>();
+    private volatile long initializationMillis = -1;
     
     public OCRService() {
-        initializeTesseract();
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create an OCR service with a fixed number of engines
+     * @param poolSize Number of Tesseract engines, i.e. the maximum number of parallel OCR jobs
+     */
+    public OCRService(int poolSize) {
+        this(poolSize, new OCRResultCache());
+    }
+    
+    /**
+     * Create an OCR service with a fixed number of engines and a specific result cache
+     * No engine is loaded until initializeAsync() is called or the first OCR request arrives
+     * @param poolSize Number of Tesseract engines, i.e. the maximum number of parallel OCR jobs
+     * @param resultCache Cache for extracted text, or null to always run recognition
+     */
+    public OCRService(int poolSize, OCRResultCache resultCache) {
+        this.poolSize = poolSize;
+        this.resultCache = resultCache;
+    }
+    
+    /**
+     * Start engine initialization on a background thread if it has not started yet
+     * Safe to call any number of times; every call returns the same future
+     * @return Future completing with true when OCR is ready, or false if initialization failed
+     */
+    public CompletableFuture<Boolean> initializeAsync() {
+        if (initializationStarted.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    initializeTesseract();
+                } catch (Throwable t) {
+                    lastError = "Unexpected error initializing Tesseract: " + t;
+                    logger.log(Level.SEVERE, lastError, t);
+                } finally {
+                    // Always complete, or every OCR request would wait forever
+                    ready.complete(isInitialized);
+                }
+            }, "ocr-init");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return ready;
+    }
+    
+    /**
+     * Block until initialization has finished, starting it if needed
+     * @throws Exception If OCR could not be initialized
+     */
+    private void awaitInitialized() throws Exception {
+        boolean available;
+        try {
+            available = initializeAsync().get();
+        } catch (ExecutionException e) {
+            throw new Exception("OCR initialization failed", e.getCause());
+        }
+        if (!available) {
+            throw new Exception("OCR not initialized: " + lastError);
+        }
     }
     
     /**
      * Initialize Tesseract OCR engine
      */
     private void initializeTesseract() {
+        long start = System.nanoTime();
         try {
             // Check if Tesseract classes are available
             Class.forName("net.sourceforge.tess4j.Tesseract");
             
-            tesseract = new Tesseract();
             String[] possiblePaths = {
                 "/opt/homebrew/share/tessdata",
                 "/usr/local/share/tessdata", 
@@ -42,7 +144,7 @@ public class OCRService {
             for (String path : possiblePaths) {
                 File tessdataDir = new File(path);
                 if (tessdataDir.exists() && tessdataDir.isDirectory()) {
-                    tesseract.setDatapath(path);
+                    tessdataPath = path;
                     tessdataFound = true;
                     logger.info("Using tessdata path: " + path);
                     break;
@@ -55,21 +157,105 @@ public class OCRService {
                 return;
             }
             
-            // Configure Tesseract exactly like the original working version
-            tesseract.setLanguage("eng");
-            tesseract.setPageSegMode(1);
-            tesseract.setOcrEngineMode(1);
+            long probed = System.nanoTime();
+            
+            enginePool = new TesseractPool(poolSize, this::createEngine);
+            // Threads start with the first job, so these cost nothing until used
+            recognitionExecutor = Executors.newFixedThreadPool(poolSize, workerThreads("ocr-recognize", true));
+            decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS, workerThreads("ocr-decode", false));
+            long pooled = System.nanoTime();
+            
+            // Load the native library now rather than inside the first user request
+            try (TesseractPool.PooledEngine engine = enginePool.acquire()) {
+                engine.getTesseract().doOCR(new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY));
+            } catch (LinkageError e) {
+                throw e;
+            } catch (Error e) {
+                // JNA reports a missing or mismatched traineddata as "Invalid memory access"
+                lastError = "Tesseract engine failed to start: " + e.getMessage();
+                logger.severe(lastError);
+                return;
+            }
+            long warmed = System.nanoTime();
             
             isInitialized = true;
             lastError = null;
-            logger.info("Tesseract OCR initialized successfully");
+            logger.info(String.format("Tesseract OCR initialized successfully in %d ms "
+                    + "(tessdata probe %d ms, %d engines %d ms, native load %d ms)",
+                    (warmed - start) / 1_000_000, (probed - start) / 1_000_000,
+                    poolSize, (pooled - probed) / 1_000_000, (warmed - pooled) / 1_000_000));
             
         } catch (ClassNotFoundException e) {
             lastError = "Tesseract library not found in classpath. Please ensure tess4j JAR files are available.";
             logger.severe(lastError);
+        } catch (LinkageError e) {
+            lastError = "Native Tesseract library could not be loaded: " + e.getMessage();
+            logger.severe(lastError);
         } catch (Exception e) {
             lastError = "Unexpected error initializing Tesseract: " + e.getMessage();
             logger.severe(lastError);
+        } finally {
+            initializationMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+    
+    private static ThreadFactory workerThreads(String prefix, boolean recognition) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                recognitionWorker.set(recognition);
+                runnable.run();
+            }, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Create one configured engine for the pool
+     */
+    private Tesseract createEngine() {
+        // Configure Tesseract exactly like the original working version
+        Tesseract tesseract = new Tesseract();
+        tesseract.setDatapath(tessdataPath);
+        tesseract.setLanguage(LANGUAGE);
+        tesseract.setPageSegMode(PAGE_SEG_MODE);
+        tesseract.setOcrEngineMode(OCR_ENGINE_MODE);
+        return tesseract;
+    }
+    
+    /**
+     * Settings that affect recognition output; part of every cache key
+     */
+    private String engineSettings() {
+        return LANGUAGE + "|psm=" + PAGE_SEG_MODE + "|oem=" + OCR_ENGINE_MODE + "|" + preprocessorSettings;
+    }
+    
+    /**
+     * Set the preprocessing applied to every image before recognition
+     * Each thread gets its own preprocessor from the factory. Batch and tiled
+     * recognition run on the service's long-lived workers, so their scratch
+     * buffers are reused across images without sharing between threads
+     * @param factory Creates identically configured preprocessors, or null to disable preprocessing
+     */
+    public void setPreprocessor(Supplier<ImagePreprocessor> factory) {
+        if (factory == null) {
+            preprocessors = null;
+            preprocessorSettings = "none";
+        } else {
+            preprocessorSettings = factory.get().getSettingsDescription();
+            preprocessors = ThreadLocal.withInitial(factory);
+        }
+    }
+    
+    /**
+     * Run recognition on an engine checked out of the pool
+     */
+    String recognize(BufferedImage image) throws InterruptedException, TesseractException {
+        ThreadLocal<ImagePreprocessor> local = preprocessors;
+        BufferedImage input = local != null ? local.get().process(image) : image;
+        try (TesseractPool.PooledEngine engine = enginePool.acquire()) {
+            return engine.getTesseract().doOCR(input);
         }
     }
     
@@ -80,18 +266,19 @@ public class OCRService {
      * @throws Exception If OCR processing fails
      */
     public String extractTextFromFile(File imageFile) throws Exception {
-        if (!isInitialized) {
-            throw new Exception("OCR not initialized: " + lastError);
-        }
+        awaitInitialized();
         
         try {
-            BufferedImage image = javax.imageio.ImageIO.read(imageFile);
-            if (image == null) {
-                throw new Exception("Could not read image file: " + imageFile.getName());
+            PreparedImage prepared = prepareImage(imageFile);
+            if (prepared.cachedText != null) {
+                logger.info("Using cached OCR result for: " + imageFile.getName());
+                return prepared.cachedText;
             }
             
-            logger.info("Processing image: " + imageFile.getName() + " (" + image.getWidth() + "x" + image.getHeight() + ")");
-            String result = tesseract.doOCR(image);
+            if (prepared.image != null) {
+                logger.info("Processing image: " + imageFile.getName() + " (" + prepared.image.getWidth() + "x" + prepared.image.getHeight() + ")");
+            }
+            String result = recognizePrepared(prepared);
             logger.info("OCR completed successfully for: " + imageFile.getName());
             return result;
             
@@ -101,6 +288,158 @@ public class OCRService {
         }
     }
     
+    /**
+     * Extract text from a very large image file in overlapping strips
+     * Files above TILED_THRESHOLD_PIXELS already take this path automatically;
+     * this forces it for smaller images too
+     * @param imageFile The image file to process
+     * @return Extracted text in reading order
+     * @throws Exception If OCR processing fails
+     */
+    public String extractTextTiled(File imageFile) throws Exception {
+        awaitInitialized();
+        
+        try {
+            return recognizePrepared(prepareTiled(imageFile));
+        } catch (Exception e) {
+            logger.severe("Tiled OCR failed for " + imageFile.getName() + ": " + e.getMessage());
+            throw new Exception("Failed to extract text from image: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Read an image file and look it up in the cache, decoding it only on a miss
+     * Images above the tiled threshold are left on disk to be read strip by strip
+     * @param imageFile The image file to read
+     * @return The cached text, the decoded image or the file to tile, with its cache key
+     * @throws Exception If the file cannot be read or is not a supported image
+     */
+    PreparedImage prepareImage(File imageFile) throws Exception {
+        Dimension size = TiledRecognizer.probeSize(imageFile);
+        if (size != null && (long) size.width * size.height > TILED_THRESHOLD_PIXELS) {
+            return prepareTiled(imageFile);
+        }
+        
+        byte[] data = Files.readAllBytes(imageFile.toPath());
+        String key = resultCache != null ? ContentHash.ofBytes(data, engineSettings()) : null;
+        if (key != null) {
+            String cached = resultCache.get(key);
+            if (cached != null) {
+                return new PreparedImage(key, null, null, cached);
+            }
+        }
+        
+        BufferedImage image = javax.imageio.ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            throw new Exception("Could not read image file: " + imageFile.getName());
+        }
+        return new PreparedImage(key, image, null, null);
+    }
+    
+    private PreparedImage prepareTiled(File imageFile) throws IOException {
+        // Tiled output differs from whole-image output, so it is cached separately
+        String key = resultCache != null ? ContentHash.ofFile(imageFile, engineSettings() + "|tiled") : null;
+        if (key != null) {
+            String cached = resultCache.get(key);
+            if (cached != null) {
+                return new PreparedImage(key, null, null, cached);
+            }
+        }
+        return new PreparedImage(key, null, imageFile, null);
+    }
+    
+    /**
+     * Recognize a prepared image and cache the result under its file key
+     * @param prepared Output of prepareImage
+     * @return Extracted text
+     * @throws Exception If OCR processing fails
+     */
+    String recognizePrepared(PreparedImage prepared) throws Exception {
+        if (prepared.cachedText != null) {
+            return prepared.cachedText;
+        }
+        
+        String text = prepared.tiledSource != null
+            ? tiledRecognizer().recognize(prepared.tiledSource)
+            : recognize(prepared.image);
+        if (prepared.cacheKey != null) {
+            resultCache.put(prepared.cacheKey, text);
+        }
+        return text;
+    }
+    
+    private TiledRecognizer tiledRecognizer() {
+        if (recognitionWorker.get()) {
+            // Already on a worker, e.g. inside a batch: strips queued behind this job could
+            // never start if every worker waited like this, so recognize them here in turn
+            return new TiledRecognizer(this, Runnable::run, 1);
+        }
+        return new TiledRecognizer(this, recognitionExecutor, enginePool.size());
+    }
+    
+    /**
+     * Extract text from a list of image files in parallel
+     * Results stream to the listener in list order while later files are still being processed
+     * @param imageFiles The image files to process
+     * @param listener Receives one result per file, including failures
+     * @return Number of files processed
+     * @throws Exception If OCR is not initialized or the batch is interrupted
+     */
+    public int extractTextFromFiles(List<File> imageFiles, OCRBatchListener listener) throws Exception {
+        return runBatch(imageFiles, listener);
+    }
+    
+    /**
+     * Extract text from every supported image in a directory
+     * The directory is read lazily, so very large directories are never listed into memory
+     * @param directory The directory to scan (not recursive)
+     * @param listener Receives one result per image, including failures
+     * @return Number of files processed
+     * @throws Exception If OCR is not initialized, the directory cannot be read or the batch is interrupted
+     */
+    public int extractTextFromDirectory(File directory, OCRBatchListener listener) throws Exception {
+        if (!directory.isDirectory()) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(),
+                path -> Files.isRegularFile(path) && isImageFile(path.toFile()))) {
+            Iterable<File> files = () -> {
+                Iterator<Path> paths = stream.iterator();
+                return new Iterator<File>() {
+                    @Override
+                    public boolean hasNext() {
+                        return paths.hasNext();
+                    }
+                    
+                    @Override
+                    public File next() {
+                        return paths.next().toFile();
+                    }
+                };
+            };
+            return runBatch(files, listener);
+        }
+    }
+    
+    private int runBatch(Iterable<File> files, OCRBatchListener listener) throws Exception {
+        awaitInitialized();
+        return new OCRBatchProcessor(this, decodeExecutor, recognitionExecutor, enginePool.size())
+            .process(files, listener);
+    }
+    
+    /**
+     * Check whether a file has a supported image extension
+     * @param file The file to check
+     * @return true for PNG, JPG, JPEG, GIF, BMP and TIFF files
+     */
+    public static boolean isImageFile(File file) {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg") ||
+               name.endsWith(".gif") || name.endsWith(".bmp") || name.endsWith(".tiff") ||
+               name.endsWith(".tif");
+    }
+    
     /**
      * Extract text from a BufferedImage
      * @param image The image to process
@@ -108,13 +447,23 @@ public class OCRService {
      * @throws Exception If OCR processing fails
      */
     public String extractTextFromImage(BufferedImage image) throws Exception {
-        if (!isInitialized) {
-            throw new Exception("OCR not initialized: " + lastError);
-        }
+        awaitInitialized();
         
         try {
+            String key = resultCache != null ? ContentHash.ofImage(image, engineSettings()) : null;
+            if (key != null) {
+                String cached = resultCache.get(key);
+                if (cached != null) {
+                    logger.info("Using cached OCR result for BufferedImage (" + image.getWidth() + "x" + image.getHeight() + ")");
+                    return cached;
+                }
+            }
+            
             logger.info("Processing BufferedImage (" + image.getWidth() + "x" + image.getHeight() + ")");
-            String result = tesseract.doOCR(image);
+            String result = recognize(image);
+            if (key != null) {
+                resultCache.put(key, result);
+            }
             logger.info("OCR completed successfully");
             return result;
             
@@ -125,13 +474,61 @@ public class OCRService {
     }
     
     /**
-     * Check if OCR service is available
+     * Check if OCR service is available; does not block or start initialization
      * @return true if OCR is ready to use
      */
     public boolean isAvailable() {
         return isInitialized;
     }
     
+    /**
+     * Get the number of engines, i.e. how many images can be recognized in parallel
+     * @return Engine count
+     */
+    public int getEngineCount() {
+        return poolSize;
+    }
+    
+    /**
+     * Check if engines are still being loaded
+     * @return true between the start and end of initialization
+     */
+    public boolean isInitializing() {
+        return initializationStarted.get() && !ready.isDone();
+    }
+    
+    /**
+     * Check if initialization has finished and failed
+     * @return true if OCR will not become available
+     */
+    public boolean hasFailed() {
+        return ready.isDone() && !isInitialized;
+    }
+    
+    /**
+     * Get how long engine initialization took
+     * @return Milliseconds, or -1 if initialization has not finished
+     */
+    public long getInitializationMillis() {
+        return initializationMillis;
+    }
+    
+    /**
+     * Get queue wait and engine utilization metrics for the engine pool
+     * @return Pool statistics, or null if OCR is not initialized
+     */
+    public TesseractPool.Stats getPoolStats() {
+        return enginePool != null ? enginePool.getStats() : null;
+    }
+    
+    /**
+     * Get hit/miss counters for the result cache
+     * @return Cache statistics, or null if caching is disabled
+     */
+    public OCRResultCache.Stats getCacheStats() {
+        return resultCache != null ? resultCache.getStats() : null;
+    }
+    
     /**
      * Get the last error message
      * @return Error message or null if no error
@@ -145,10 +542,30 @@ public class OCRService {
      * @return Status string with initialization details
      */
     public String getStatus() {
-        if (isInitialized) {
-            return "OCR Ready - Tesseract initialized successfully";
+        if (!ready.isDone()) {
+            return initializationStarted.get() ? "OCR Starting - loading Tesseract engines..." : "OCR Not Started";
+        } else if (isInitialized) {
+            return "OCR Ready - Tesseract initialized successfully (" + enginePool.size() + " engines)";
         } else {
             return "OCR Unavailable - " + (lastError != null ? lastError : "Unknown error");
         }
     }
+    
+    /**
+     * An image file after the read stage: a cache hit, decoded pixels or a file to tile
+     */
+    static final class PreparedImage {
+        
+        final String cacheKey;
+        final BufferedImage image;
+        final File tiledSource;
+        final String cachedText;
+        
+        PreparedImage(String cacheKey, BufferedImage image, File tiledSource, String cachedText) {
+            this.cacheKey = cacheKey;
+            this.image = image;
+            this.tiledSource = tiledSource;
+            this.cachedText = cachedText;
+        }
+    }
 }
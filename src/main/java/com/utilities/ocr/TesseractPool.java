@@ -0,0 +1,226 @@
+package com.utilities.ocr;
+
+import net.sourceforge.tess4j.Tesseract;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Fixed-size pool of configured Tesseract engines
+ * Each engine is confined to one thread between acquire() and close(),
+ * so callers can run OCR jobs in parallel without sharing an engine
+ */
+public class TesseractPool {
+    
+    private static final Logger logger = Logger.getLogger(TesseractPool.class.getName());
+    
+    private final BlockingQueue<PooledEngine> idleEngines;
+    private final List<PooledEngine> engines;
+    private final long createdAtNanos;
+    
+    // Queue wait metrics
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    
+    /**
+     * Create a pool with one engine per available processor
+     * @param engineFactory Creates a fully configured engine
+     */
+    public TesseractPool(Supplier<Tesseract> engineFactory) {
+        this(Runtime.getRuntime().availableProcessors(), engineFactory);
+    }
+    
+    /**
+     * Create a pool with a fixed number of engines
+     * @param size Number of engines to create
+     * @param engineFactory Creates a fully configured engine
+     */
+    public TesseractPool(int size, Supplier<Tesseract> engineFactory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1: " + size);
+        }
+        
+        idleEngines = new ArrayBlockingQueue<>(size);
+        List<PooledEngine> created = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            PooledEngine engine = new PooledEngine(i, engineFactory.get());
+            created.add(engine);
+            idleEngines.add(engine);
+        }
+        engines = Collections.unmodifiableList(created);
+        createdAtNanos = System.nanoTime();
+        logger.info("Tesseract pool created with " + size + " engine(s)");
+    }
+    
+    /**
+     * Check out an engine, blocking until one is idle
+     * The engine must be returned with close(), ideally via try-with-resources
+     * @return An engine owned by the calling thread until closed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public PooledEngine acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        PooledEngine engine = idleEngines.take();
+        long waited = System.nanoTime() - start;
+        
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        long max;
+        while (waited > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, waited)) {
+            // Retry until the larger wait is recorded
+        }
+        
+        engine.checkedOutAtNanos = System.nanoTime();
+        engine.checkedOut.set(true);
+        return engine;
+    }
+    
+    private void release(PooledEngine engine) {
+        // Only the first close returns the engine; a second would queue it twice
+        if (!engine.checkedOut.compareAndSet(true, false)) {
+            return;
+        }
+        engine.busyNanos.addAndGet(System.nanoTime() - engine.checkedOutAtNanos);
+        engine.jobCount.incrementAndGet();
+        idleEngines.add(engine);
+    }
+    
+    /**
+     * Get the number of engines in the pool
+     * @return Pool size
+     */
+    public int size() {
+        return engines.size();
+    }
+    
+    /**
+     * Get the number of engines currently idle
+     * @return Idle engine count
+     */
+    public int idleCount() {
+        return idleEngines.size();
+    }
+    
+    /**
+     * Take a snapshot of queue wait and engine utilization metrics
+     * @return Current pool statistics
+     */
+    public Stats getStats() {
+        long elapsed = Math.max(1, System.nanoTime() - createdAtNanos);
+        double[] utilization = new double[engines.size()];
+        long[] jobs = new long[engines.size()];
+        for (PooledEngine engine : engines) {
+            utilization[engine.index] = Math.min(1.0, (double) engine.busyNanos.get() / elapsed);
+            jobs[engine.index] = engine.jobCount.get();
+        }
+        return new Stats(acquireCount.get(), totalWaitNanos.get(), maxWaitNanos.get(), utilization, jobs);
+    }
+    
+    /**
+     * An engine checked out of the pool
+     */
+    public final class PooledEngine implements AutoCloseable {
+        
+        private final int index;
+        private final Tesseract tesseract;
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong jobCount = new AtomicLong();
+        private volatile long checkedOutAtNanos;
+        private final AtomicBoolean checkedOut = new AtomicBoolean();
+        
+        private PooledEngine(int index, Tesseract tesseract) {
+            this.index = index;
+            this.tesseract = tesseract;
+        }
+        
+        /**
+         * Get the underlying engine; only valid until close() is called
+         * @return The Tesseract instance
+         */
+        public Tesseract getTesseract() {
+            return tesseract;
+        }
+        
+        /**
+         * Get the position of this engine in the pool
+         * @return Engine index
+         */
+        public int getIndex() {
+            return index;
+        }
+        
+        /**
+         * Return the engine to the pool; closing it again does nothing
+         */
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+    
+    /**
+     * Immutable snapshot of pool metrics
+     */
+    public static final class Stats {
+        
+        private final long acquireCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final double[] engineUtilization;
+        private final long[] engineJobCounts;
+        
+        private Stats(long acquireCount, long totalWaitNanos, long maxWaitNanos,
+                      double[] engineUtilization, long[] engineJobCounts) {
+            this.acquireCount = acquireCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.engineUtilization = engineUtilization;
+            this.engineJobCounts = engineJobCounts;
+        }
+        
+        public long getAcquireCount() {
+            return acquireCount;
+        }
+        
+        public double getAverageWaitMillis() {
+            return acquireCount == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / acquireCount;
+        }
+        
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+        
+        /**
+         * Fraction of time each engine has spent checked out since the pool was created
+         * @return Utilization per engine in the range 0..1
+         */
+        public double[] getEngineUtilization() {
+            return engineUtilization.clone();
+        }
+        
+        public long[] getEngineJobCounts() {
+            return engineJobCounts.clone();
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("OCR pool: %d jobs, avg wait %.1f ms, max wait %.1f ms, utilization [",
+                    acquireCount, getAverageWaitMillis(), getMaxWaitMillis()));
+            for (int i = 0; i < engineUtilization.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(String.format("%.0f%%", engineUtilization[i] * 100));
+            }
+            return sb.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.utilities.ocr;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
+/**
+ * OCR for images too large to decode in one piece
+ * The image is read as overlapping full-width strips through ImageReader source
+ * regions (TIFF and other formats via jai-imageio on the classpath), subsampled
+ * if it is wider than the tile budget allows. Strips are recognized in parallel
+ * and their text is merged top to bottom with the lines repeated in the overlaps
+ * removed. At most one strip per engine plus one being read is held in memory,
+ * so peak memory depends on the tile size, not the image size.
+ *
+ * Formats without random access (PNG, GIF) are still handled correctly, but the
+ * decoder re-reads the rows above each strip, so TIFF and JPEG tile far better.
+ */
+class TiledRecognizer {
+    
+    private static final Logger logger = Logger.getLogger(TiledRecognizer.class.getName());
+    
+    /** Default pixel budget per strip (about 64 MB as ARGB) */
+    static final long DEFAULT_TILE_PIXELS = 16L * 1024 * 1024;
+    /** Default strip overlap; several text lines even at 600 dpi */
+    static final int DEFAULT_OVERLAP = 200;
+    
+    private static final int MIN_STRIP_HEIGHT = 512;
+    private static final int MAX_OVERLAP_LINES = 8;
+    private static final double LINE_SIMILARITY = 0.8;
+    
+    private final OCRService ocrService;
+    private final Executor executor;
+    private final int parallelism;
+    private final long tilePixels;
+    private final int overlap;
+    
+    /**
+     * @param ocrService Service that recognizes each strip
+     * @param executor Runs strip recognition; shared with other work, so never shut down here
+     * @param parallelism Maximum number of strips recognized or queued at once
+     */
+    TiledRecognizer(OCRService ocrService, Executor executor, int parallelism) {
+        this(ocrService, executor, parallelism, DEFAULT_TILE_PIXELS, DEFAULT_OVERLAP);
+    }
+    
+    TiledRecognizer(OCRService ocrService, Executor executor, int parallelism, long tilePixels, int overlap) {
+        this.ocrService = ocrService;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.tilePixels = tilePixels;
+        this.overlap = overlap;
+    }
+    
+    /**
+     * Read the dimensions of an image without decoding its pixels
+     * @param imageFile The image file
+     * @return Width and height, or null if no reader recognizes the file
+     * @throws IOException If the file cannot be read
+     */
+    static Dimension probeSize(File imageFile) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            ImageReader reader = openReader(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Recognize an image strip by strip
+     * @param imageFile The image file
+     * @return Merged text in reading order
+     * @throws Exception If the image cannot be read or recognition fails
+     */
+    String recognize(File imageFile) throws Exception {
+        long start = System.currentTimeMillis();
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        StripMerger merger = new StripMerger();
+        
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            ImageReader reader = openReader(input);
+            if (reader == null) {
+                throw new Exception("Could not read image file: " + imageFile.getName());
+            }
+            
+            try {
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = subsamplingFor(width);
+                int scaledWidth = (width + subsampling - 1) / subsampling;
+                int stripHeight = (int) Math.max(MIN_STRIP_HEIGHT, tilePixels / scaledWidth) * subsampling;
+                int sourceOverlap = Math.min(overlap * subsampling, stripHeight / 2);
+                int strips = 0;
+                
+                logger.info("Tiled OCR of " + imageFile.getName() + " (" + width + "x" + height
+                        + "), strip height " + stripHeight + ", subsampling " + subsampling);
+                
+                ImageReadParam param = reader.getDefaultReadParam();
+                for (int y = 0; y < height; y += stripHeight - sourceOverlap) {
+                    // Bound memory: wait for the oldest strip before reading another
+                    if (pending.size() >= parallelism) {
+                        merger.append(await(pending.poll()));
+                    }
+                    
+                    int regionHeight = Math.min(stripHeight, height - y);
+                    param.setSourceRegion(new Rectangle(0, y, width, regionHeight));
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    BufferedImage strip = reader.read(0, param);
+                    FutureTask<String> task = new FutureTask<>(() -> ocrService.recognize(strip));
+                    executor.execute(task);
+                    pending.add(task);
+                    strips++;
+                    
+                    if (y + regionHeight >= height) {
+                        break;
+                    }
+                }
+                
+                while (!pending.isEmpty()) {
+                    merger.append(await(pending.poll()));
+                }
+                
+                logger.info("Tiled OCR completed for " + imageFile.getName() + ": " + strips
+                        + " strip(s) in " + (System.currentTimeMillis() - start) + " ms");
+                return merger.toString();
+                
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            // Strips still queued on the shared executor are skipped when they come up
+            for (Future<String> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    private int subsamplingFor(int width) {
+        // Keep at least MIN_STRIP_HEIGHT rows within the tile budget
+        long maxWidth = Math.max(1, tilePixels / MIN_STRIP_HEIGHT);
+        return (int) Math.max(1, (width + maxWidth - 1) / maxWidth);
+    }
+    
+    private static ImageReader openReader(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        // Random access is needed to read regions; metadata is never used
+        reader.setInput(input, false, true);
+        return reader;
+    }
+    
+    private static String await(Future<String> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new Exception(cause);
+        }
+    }
+    
+    /**
+     * Joins strip text in order, dropping lines that were recognized twice in an overlap
+     * A line cut by a strip edge can appear as a fragment at the bottom of one strip
+     * or the top of the next; one such fragment on either side is discarded with the match.
+     */
+    static final class StripMerger {
+        
+        private final StringBuilder text = new StringBuilder();
+        // Lines of the previous strip that may still be matched against the next one
+        private final List<String> tail = new ArrayList<>();
+        
+        void append(String stripText) {
+            List<String> lines = nonBlankLines(stripText);
+            if (lines.isEmpty()) {
+                return;
+            }
+            
+            int bestLength = 0;
+            int bestSkip = 0;
+            int bestDrop = 0;
+            for (int drop = 0; drop <= 1 && drop < tail.size(); drop++) {
+                for (int skip = 0; skip <= 1 && skip < lines.size(); skip++) {
+                    int maxLength = Math.min(Math.min(MAX_OVERLAP_LINES, tail.size() - drop), lines.size() - skip);
+                    for (int length = maxLength; length > bestLength; length--) {
+                        if (matches(tail.size() - drop - length, skip, length, lines)) {
+                            bestLength = length;
+                            bestSkip = skip;
+                            bestDrop = drop;
+                            break;
+                        }
+                    }
+                }
+            }
+            
+            if (bestLength > 0) {
+                // Drop the fragment at the bottom of the previous strip
+                for (int i = 0; i < bestDrop; i++) {
+                    tail.remove(tail.size() - 1);
+                }
+                lines = lines.subList(bestSkip + bestLength, lines.size());
+            }
+            
+            flushTail();
+            tail.addAll(lines);
+        }
+        
+        private boolean matches(int tailStart, int lineStart, int length, List<String> lines) {
+            for (int i = 0; i < length; i++) {
+                if (!similar(tail.get(tailStart + i), lines.get(lineStart + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private void flushTail() {
+            for (String line : tail) {
+                text.append(line).append('\n');
+            }
+            tail.clear();
+        }
+        
+        @Override
+        public String toString() {
+            flushTail();
+            return text.toString();
+        }
+        
+        private static List<String> nonBlankLines(String stripText) {
+            List<String> lines = new ArrayList<>();
+            for (String line : stripText.split("\r?\n")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+        
+        static boolean similar(String a, String b) {
+            String x = normalize(a);
+            String y = normalize(b);
+            if (x.equals(y)) {
+                return true;
+            }
+            int longest = Math.max(x.length(), y.length());
+            if (longest < 8) {
+                return false;
+            }
+            return 1.0 - (double) editDistance(x, y) / longest >= LINE_SIMILARITY;
+        }
+        
+        private static String normalize(String line) {
+            return line.trim().replaceAll("\\s+", " ").toLowerCase();
+        }
+        
+        private static int editDistance(String a, String b) {
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+    }
+}
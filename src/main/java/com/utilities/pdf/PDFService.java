@@ -1,11 +1,497 @@
 package com.utilities.pdf;
 
+import com.utilities.ocr.OCRService;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
 /**
  * PDF Service for text extraction
+ * Text is streamed page by page to a Writer or listener instead of being built
+ * into one String, and documents are loaded with a bounded main-memory buffer
+ * backed by a scratch file, so large documents do not grow the heap.
+ * Text-layer extraction can also be split across cores by page range, and
+ * scanned pages can fall back to OCR when an OCRService is attached.
  */
 public class PDFService {
     
+    private static final Logger logger = Logger.getLogger(PDFService.class.getName());
+    
+    /** Default main-memory budget for PDF stream data before spilling to the scratch file */
+    public static final long DEFAULT_MAIN_MEMORY_BYTES = 16L * 1024 * 1024;
+    
+    /** Default resolution for rendering scanned pages for OCR */
+    public static final int DEFAULT_OCR_DPI = 300;
+    
+    /** Pages with fewer non-whitespace characters than this are treated as scanned */
+    public static final int DEFAULT_MIN_TEXT_CHARS = 16;
+    
+    private final long maxMainMemoryBytes;
+    private final File tempDirectory;
+    private volatile OCRService ocrService;
+    private volatile int ocrDpi = DEFAULT_OCR_DPI;
+    private volatile int minTextChars = DEFAULT_MIN_TEXT_CHARS;
+    
+    public PDFService() {
+        this(DEFAULT_MAIN_MEMORY_BYTES, null);
+    }
+    
+    /**
+     * Create a PDF service with explicit memory settings
+     * @param maxMainMemoryBytes Stream data kept on the heap per document before using the scratch file
+     * @param tempDirectory Directory for scratch files, or null for java.io.tmpdir
+     */
+    public PDFService(long maxMainMemoryBytes, File tempDirectory) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.tempDirectory = tempDirectory;
+    }
+    
+    /**
+     * Attach the OCR service used for scanned pages in hybrid extraction
+     * @param ocrService OCR service, or null to extract the text layer only
+     */
+    public void setOcrService(OCRService ocrService) {
+        this.ocrService = ocrService;
+    }
+    
+    /**
+     * Set the resolution at which scanned pages are rendered for OCR
+     * @param dpi Render resolution, typically 200-400
+     */
+    public void setOcrDpi(int dpi) {
+        if (dpi < 36) {
+            throw new IllegalArgumentException("OCR resolution too low: " + dpi);
+        }
+        this.ocrDpi = dpi;
+    }
+    
+    /**
+     * Set how little text a page may have before it is treated as scanned
+     * @param minTextChars Minimum number of non-whitespace characters in the text layer
+     */
+    public void setMinTextChars(int minTextChars) {
+        this.minTextChars = minTextChars;
+    }
+    
+    /**
+     * Open a document with this service's memory settings
+     * @param pdfFile The PDF file
+     * @return The loaded document; the caller must close it
+     * @throws IOException If the file cannot be read or is not a valid PDF
+     */
+    PDDocument openDocument(File pdfFile) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        if (tempDirectory != null) {
+            memory.setTempDir(tempDirectory);
+        }
+        return PDDocument.load(pdfFile, memory);
+    }
+    
+    /**
+     * Get the number of pages in a PDF
+     * @param pdfFile The PDF file
+     * @return Page count
+     * @throws IOException If the file cannot be read
+     */
+    public int getPageCount(File pdfFile) throws IOException {
+        try (PDDocument document = openDocument(pdfFile)) {
+            return document.getNumberOfPages();
+        }
+    }
+    
+    /**
+     * Extract the text of every page to a writer
+     * @param pdfFile The PDF file
+     * @param out Destination; written incrementally and not closed
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF or writing the output fails
+     */
+    public int extractText(File pdfFile, Writer out) throws IOException {
+        return extractText(pdfFile, PageRange.ALL, out);
+    }
+    
+    /**
+     * Extract the text of a page range to a writer
+     * @param pdfFile The PDF file
+     * @param range Pages to extract
+     * @param out Destination; written incrementally and not closed
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF or writing the output fails
+     */
+    public int extractText(File pdfFile, PageRange range, Writer out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (PDDocument document = openDocument(pdfFile)) {
+            int last = range.lastWithin(document.getNumberOfPages());
+            if (range.getFirst() > last) {
+                return 0;
+            }
+            
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(range.getFirst());
+            stripper.setEndPage(last);
+            stripper.writeText(document, out);
+            out.flush();
+            
+            int pages = last - range.getFirst() + 1;
+            logger.info("Extracted " + pages + " page(s) from " + pdfFile.getName()
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+            return pages;
+        }
+    }
+    
+    /**
+     * Extract the text of a page range, one page at a time
+     * Only one page of text is held in memory at once
+     * @param pdfFile The PDF file
+     * @param range Pages to extract
+     * @param listener Receives each page in order
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF fails or the listener aborts
+     */
+    public int extractText(File pdfFile, PageRange range, PageTextListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        try (PDDocument document = openDocument(pdfFile)) {
+            int pages = extractPages(document, range, listener);
+            logger.info("Extracted " + pages + " page(s) from " + pdfFile.getName()
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+            return pages;
+        }
+    }
+    
+    /**
+     * Stream pages of an open document to a listener
+     */
+    int extractPages(PDDocument document, PageRange range, PageTextListener listener) throws IOException {
+        int last = range.lastWithin(document.getNumberOfPages());
+        if (range.getFirst() > last) {
+            return 0;
+        }
+        
+        PageStreamingStripper stripper = new PageStreamingStripper(listener);
+        stripper.setStartPage(range.getFirst());
+        stripper.setEndPage(last);
+        stripper.writeText(document, stripper.buffer);
+        stripper.deliverEmptyPagesThrough(last);
+        return last - range.getFirst() + 1;
+    }
+    
+    /**
+     * Extract the text of a page range to a writer using several threads
+     * Output is identical to the sequential extractText
+     * @param pdfFile The PDF file
+     * @param range Pages to extract
+     * @param out Destination; written incrementally in page order and not closed
+     * @param threads Number of worker threads, each with its own document handle
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF or writing the output fails
+     */
+    public int extractTextParallel(File pdfFile, PageRange range, Writer out, int threads) throws IOException {
+        int pages = extractTextParallel(pdfFile, range, (pageNumber, text) -> out.write(text), threads);
+        out.flush();
+        return pages;
+    }
+    
+    /**
+     * Extract the text of a page range using several threads, delivering pages in order
+     * Each worker opens its own document and stripper, since PDFBox objects are not thread-safe.
+     * Workers take small page chunks in order and may run at most two chunks per worker
+     * ahead of the listener, which bounds the memory held by finished but undelivered pages.
+     * @param pdfFile The PDF file
+     * @param range Pages to extract
+     * @param listener Receives each page in order on the calling thread
+     * @param threads Number of worker threads
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF fails or the listener aborts
+     */
+    public int extractTextParallel(File pdfFile, PageRange range, PageTextListener listener, int threads)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        int first = range.getFirst();
+        int last = range.lastWithin(getPageCount(pdfFile));
+        if (first > last) {
+            return 0;
+        }
+        
+        int pages = last - first + 1;
+        int workers = Math.max(1, Math.min(threads, pages));
+        // Several chunks per worker balances uneven pages; chunks stay small to bound buffered text
+        int chunkSize = Math.max(1, Math.min(16, pages / (workers * 4)));
+        int chunkCount = (pages + chunkSize - 1) / chunkSize;
+        
+        // Delivered chunks are cleared so their text can be collected
+        AtomicReferenceArray<CompletableFuture<List<String>>> chunks = new AtomicReferenceArray<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.set(i, new CompletableFuture<>());
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        Semaphore aheadOfWriter = new Semaphore(workers * 2);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-extract");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int w = 0; w < workers; w++) {
+                executor.execute(() -> runWorker(pdfFile, first, last, chunkSize, chunks, nextChunk, aheadOfWriter));
+            }
+            
+            for (int i = 0; i < chunkCount; i++) {
+                List<String> chunk = awaitChunk(chunks.get(i));
+                chunks.set(i, null);
+                int pageNumber = first + i * chunkSize;
+                for (String text : chunk) {
+                    listener.onPage(pageNumber++, text);
+                }
+                aheadOfWriter.release();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        logger.info("Extracted " + pages + " page(s) from " + pdfFile.getName() + " with " + workers
+                + " thread(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return pages;
+    }
+    
+    private void runWorker(File pdfFile, int first, int last, int chunkSize,
+                           AtomicReferenceArray<CompletableFuture<List<String>>> chunks,
+                           AtomicInteger nextChunk, Semaphore aheadOfWriter) {
+        try (PDDocument document = openDocument(pdfFile)) {
+            while (true) {
+                aheadOfWriter.acquire();
+                int index = nextChunk.getAndIncrement();
+                if (index >= chunks.length()) {
+                    return;
+                }
+                
+                int chunkFirst = first + index * chunkSize;
+                int chunkLast = Math.min(last, chunkFirst + chunkSize - 1);
+                List<String> texts = new ArrayList<>(chunkLast - chunkFirst + 1);
+                try {
+                    extractPages(document, new PageRange(chunkFirst, chunkLast), (pageNumber, text) -> texts.add(text));
+                    chunks.get(index).complete(texts);
+                } catch (IOException | RuntimeException e) {
+                    chunks.get(index).completeExceptionally(e);
+                }
+            }
+        } catch (Exception e) {
+            // Could not open the document or was interrupted: fail everything not yet done
+            for (int i = 0; i < chunks.length(); i++) {
+                CompletableFuture<List<String>> chunk = chunks.get(i);
+                if (chunk != null) {
+                    chunk.completeExceptionally(e);
+                }
+            }
+        }
+    }
+    
+    private static List<String> awaitChunk(CompletableFuture<List<String>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF extraction interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Extract a page range using the text layer where present and OCR for scanned pages
+     * Pages whose text layer has fewer than the minimum number of characters are rendered
+     * and recognized; all other pages stay on the text-layer path. Rendering runs on the
+     * calling thread while earlier pages are recognized on the OCR engines, so rendering
+     * page N+1 overlaps recognition of page N. Without an available OCR service this
+     * behaves like extractText.
+     * @param pdfFile The PDF file
+     * @param range Pages to extract
+     * @param listener Receives each page in order on the calling thread
+     * @return Number of pages extracted
+     * @throws IOException If reading the PDF fails or the listener aborts
+     */
+    public int extractTextHybrid(File pdfFile, PageRange range, PageTextListener listener) throws IOException {
+        OCRService ocr = ocrService;
+        if (ocr == null || ocr.hasFailed()) {
+            logger.warning("OCR unavailable; extracting text layer only from " + pdfFile.getName());
+            return extractText(pdfFile, range, listener);
+        }
+        
+        long start = System.currentTimeMillis();
+        int engines = ocr.getEngineCount();
+        ExecutorService executor = Executors.newFixedThreadPool(engines, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-ocr");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try (PDDocument document = openDocument(pdfFile)) {
+            HybridPipeline pipeline = new HybridPipeline(document, ocr, executor, engines + 1, listener);
+            int pages = extractPages(document, range, pipeline::onTextLayer);
+            pipeline.drain();
+            
+            logger.info("Extracted " + pages + " page(s) from " + pdfFile.getName() + " (" + pipeline.ocrPages
+                    + " by OCR) in " + (System.currentTimeMillis() - start) + " ms");
+            return pages;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
     public void cleanup() {
-        // Cleanup resources
+        // Documents are opened and closed per call, so there is nothing to release
+    }
+    
+    /**
+     * Orders text-layer and OCR pages for delivery while OCR runs in the background
+     */
+    private final class HybridPipeline {
+        
+        private final PDDocument document;
+        private final PDFRenderer renderer;
+        private final OCRService ocr;
+        private final ExecutorService executor;
+        private final int window;
+        private final PageTextListener listener;
+        private final Deque<PendingPage> pending = new ArrayDeque<>();
+        private int ocrPages = 0;
+        
+        HybridPipeline(PDDocument document, OCRService ocr, ExecutorService executor, int window,
+                       PageTextListener listener) {
+            this.document = document;
+            this.renderer = new PDFRenderer(document);
+            this.ocr = ocr;
+            this.executor = executor;
+            this.window = window;
+            this.listener = listener;
+        }
+        
+        void onTextLayer(int pageNumber, String text) throws IOException {
+            CompletableFuture<String> result;
+            if (countNonWhitespace(text) >= minTextChars || !document.getPage(pageNumber - 1).hasContents()) {
+                result = CompletableFuture.completedFuture(text);
+            } else {
+                // The renderer shares the document, so it must stay on this thread
+                BufferedImage image = renderer.renderImageWithDPI(pageNumber - 1, ocrDpi, ImageType.GRAY);
+                result = CompletableFuture.supplyAsync(() -> recognize(pageNumber, image, text), executor);
+                ocrPages++;
+            }
+            
+            pending.add(new PendingPage(pageNumber, result));
+            deliverReady();
+        }
+        
+        private String recognize(int pageNumber, BufferedImage image, String textLayer) {
+            try {
+                return ocr.extractTextFromImage(image);
+            } catch (Exception e) {
+                logger.warning("OCR failed for page " + pageNumber + ", using text layer: " + e.getMessage());
+                return textLayer;
+            }
+        }
+        
+        private void deliverReady() throws IOException {
+            // Deliver finished pages in order; block only when the window of rendered pages is full
+            while (!pending.isEmpty() && (pending.peek().text.isDone() || pending.size() > window)) {
+                deliver(pending.poll());
+            }
+        }
+        
+        void drain() throws IOException {
+            while (!pending.isEmpty()) {
+                deliver(pending.poll());
+            }
+        }
+        
+        private void deliver(PendingPage page) throws IOException {
+            try {
+                listener.onPage(page.pageNumber, page.text.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("PDF extraction interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("OCR failed for page " + page.pageNumber, e.getCause());
+            }
+        }
+    }
+    
+    private static final class PendingPage {
+        
+        final int pageNumber;
+        final CompletableFuture<String> text;
+        
+        PendingPage(int pageNumber, CompletableFuture<String> text) {
+            this.pageNumber = pageNumber;
+            this.text = text;
+        }
+    }
+    
+    private static int countNonWhitespace(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Text stripper that hands each page to a listener as soon as it is finished
+     */
+    private static final class PageStreamingStripper extends PDFTextStripper {
+        
+        private final PageTextListener listener;
+        private final StringWriter buffer = new StringWriter();
+        private int lastDelivered;
+        
+        PageStreamingStripper(PageTextListener listener) throws IOException {
+            this.listener = listener;
+        }
+        
+        @Override
+        public void setStartPage(int startPage) {
+            super.setStartPage(startPage);
+            lastDelivered = startPage - 1;
+        }
+        
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            int pageNumber = getCurrentPageNo();
+            // Pages without a content stream are skipped by PDFBox but still reported
+            deliverEmptyPagesThrough(pageNumber - 1);
+            listener.onPage(pageNumber, buffer.toString());
+            buffer.getBuffer().setLength(0);
+            lastDelivered = pageNumber;
+        }
+        
+        void deliverEmptyPagesThrough(int pageNumber) throws IOException {
+            while (lastDelivered < pageNumber) {
+                listener.onPage(++lastDelivered, "");
+            }
+        }
     }
 }
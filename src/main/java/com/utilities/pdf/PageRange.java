@@ -0,0 +1,75 @@
+package com.utilities.pdf;
+
+/**
+ * Inclusive, 1-based range of PDF pages
+ */
+public final class PageRange {
+    
+    /** Every page of the document */
+    public static final PageRange ALL = new PageRange(1, Integer.MAX_VALUE);
+    
+    private final int first;
+    private final int last;
+    
+    /**
+     * Create a page range
+     * @param first First page, starting at 1
+     * @param last Last page, inclusive; clamped to the document length when used
+     */
+    public PageRange(int first, int last) {
+        if (first < 1 || last < first) {
+            throw new IllegalArgumentException("Invalid page range: " + first + "-" + last);
+        }
+        this.first = first;
+        this.last = last;
+    }
+    
+    /**
+     * Parse a range such as "5", "3-10" or "7-" (page 7 to the end)
+     * @param text Range text
+     * @return The parsed range
+     * @throws IllegalArgumentException If the text is not a valid range
+     */
+    public static PageRange parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return ALL;
+        }
+        
+        try {
+            int dash = trimmed.indexOf('-');
+            if (dash < 0) {
+                int page = Integer.parseInt(trimmed);
+                return new PageRange(page, page);
+            }
+            int first = dash == 0 ? 1 : Integer.parseInt(trimmed.substring(0, dash).trim());
+            String end = trimmed.substring(dash + 1).trim();
+            int last = end.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(end);
+            return new PageRange(first, last);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page range: " + text, e);
+        }
+    }
+    
+    public int getFirst() {
+        return first;
+    }
+    
+    public int getLast() {
+        return last;
+    }
+    
+    /**
+     * Get the last page of this range within a document
+     * @param pageCount Number of pages in the document
+     * @return The smaller of the range end and the page count
+     */
+    public int lastWithin(int pageCount) {
+        return Math.min(last, pageCount);
+    }
+    
+    @Override
+    public String toString() {
+        return last == Integer.MAX_VALUE ? first + "-" : first + "-" + last;
+    }
+}
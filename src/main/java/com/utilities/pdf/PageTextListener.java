@@ -0,0 +1,17 @@
+package com.utilities.pdf;
+
+import java.io.IOException;
+
+/**
+ * Receives extracted text one page at a time, in page order
+ */
+public interface PageTextListener {
+    
+    /**
+     * Called once for every page in the requested range, including pages without text
+     * @param pageNumber 1-based page number
+     * @param text Text of the page, possibly empty
+     * @throws IOException To abort extraction, e.g. when the consumer's output fails
+     */
+    void onPage(int pageNumber, String text) throws IOException;
+}
@@ -0,0 +1,163 @@
+package com.utilities.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Postings of one term: (document, page) entries in ascending order, each with
+ * its word positions on the page, stored in flat primitive arrays
+ *
+ * Encoded form: varint entry count, then per entry the document delta, the page
+ * (delta within the same document), the position count and the position deltas
+ */
+final class Postings {
+    
+    int size = 0;
+    int[] docs = new int[4];
+    int[] pages = new int[4];
+    // Positions of entry i are positions[posStart[i] .. posStart[i + 1])
+    int[] posStart = new int[5];
+    int[] positions = new int[8];
+    int positionCount = 0;
+    
+    /**
+     * Append an occurrence; calls must be in ascending (doc, page, position) order
+     */
+    void add(int doc, int page, int position) {
+        if (size == 0 || docs[size - 1] != doc || pages[size - 1] != page) {
+            startEntry(doc, page);
+        }
+        addPosition(position);
+    }
+    
+    private void startEntry(int doc, int page) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            pages = Arrays.copyOf(pages, size * 2);
+            posStart = Arrays.copyOf(posStart, size * 2 + 1);
+        }
+        docs[size] = doc;
+        pages[size] = page;
+        size++;
+        posStart[size] = positionCount;
+    }
+    
+    private void addPosition(int position) {
+        if (positionCount == positions.length) {
+            positions = Arrays.copyOf(positions, positionCount * 2);
+        }
+        positions[positionCount++] = position;
+        posStart[size] = positionCount;
+    }
+    
+    int positionCount(int entry) {
+        return posStart[entry + 1] - posStart[entry];
+    }
+    
+    /**
+     * Append the entries of another postings list whose document passes a filter
+     * The other list must start after the last document of this one
+     */
+    void appendAll(Postings other, IntPredicate keepDocument) {
+        for (int i = 0; i < other.size; i++) {
+            if (!keepDocument.test(other.docs[i])) {
+                continue;
+            }
+            startEntry(other.docs[i], other.pages[i]);
+            for (int p = other.posStart[i]; p < other.posStart[i + 1]; p++) {
+                addPosition(other.positions[p]);
+            }
+        }
+    }
+    
+    void encode(ByteSink out) {
+        out.writeVarint(size);
+        int previousDoc = 0;
+        int previousPage = 0;
+        for (int i = 0; i < size; i++) {
+            int doc = docs[i];
+            if (doc != previousDoc) {
+                previousPage = 0;
+            }
+            out.writeVarint(doc - previousDoc);
+            out.writeVarint(pages[i] - previousPage);
+            out.writeVarint(positionCount(i));
+            int previousPosition = 0;
+            for (int p = posStart[i]; p < posStart[i + 1]; p++) {
+                out.writeVarint(positions[p] - previousPosition);
+                previousPosition = positions[p];
+            }
+            previousDoc = doc;
+            previousPage = pages[i];
+        }
+    }
+    
+    /**
+     * Decode postings from an absolute offset and append them to this list
+     */
+    void decodeFrom(ByteBuffer buffer, int offset) {
+        int[] cursor = {offset};
+        int entries = readVarint(buffer, cursor);
+        int doc = 0;
+        int page = 0;
+        for (int i = 0; i < entries; i++) {
+            int docDelta = readVarint(buffer, cursor);
+            if (docDelta != 0) {
+                page = 0;
+            }
+            doc += docDelta;
+            page += readVarint(buffer, cursor);
+            startEntry(doc, page);
+            int count = readVarint(buffer, cursor);
+            int position = 0;
+            for (int p = 0; p < count; p++) {
+                position += readVarint(buffer, cursor);
+                addPosition(position);
+            }
+        }
+    }
+    
+    private static int readVarint(ByteBuffer buffer, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+    
+    /**
+     * Growable byte array with varint writes
+     */
+    static final class ByteSink {
+        
+        byte[] bytes = new byte[1024];
+        int length = 0;
+        
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+        
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, length, data.length);
+            length += data.length;
+        }
+        
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.utilities.search;
+
+/**
+ * A page that matches a term or phrase query
+ */
+public class SearchHit {
+    
+    private final int documentId;
+    private final String documentName;
+    private final int page;
+    private final int matchCount;
+    
+    SearchHit(int documentId, String documentName, int page, int matchCount) {
+        this.documentId = documentId;
+        this.documentName = documentName;
+        this.page = page;
+        this.matchCount = matchCount;
+    }
+    
+    public int getDocumentId() {
+        return documentId;
+    }
+    
+    /**
+     * Get the name the document was indexed under, usually its file path
+     * @return Document name
+     */
+    public String getDocumentName() {
+        return documentName;
+    }
+    
+    /**
+     * Get the page the match occurred on
+     * @return 1-based page number
+     */
+    public int getPage() {
+        return page;
+    }
+    
+    /**
+     * Get how many times the query occurs on the page
+     * @return Number of occurrences
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+    
+    @Override
+    public String toString() {
+        return documentName + " p." + page + " (" + matchCount + ")";
+    }
+}
@@ -0,0 +1,204 @@
+package com.utilities.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An immutable, memory-mapped index segment
+ * Terms are looked up by binary search over a fixed-width term table directly in
+ * the mapping, and only the postings of the queried terms are ever decoded.
+ *
+ * Layout: [int magic][int version][int termCount][int reserved]
+ * then termCount entries of [int termOffset][int termLength][int postingsOffset],
+ * sorted by the unsigned UTF-8 bytes of the term, then the term bytes and the
+ * encoded postings. All offsets are absolute.
+ */
+final class Segment {
+    
+    private static final int MAGIC = 0x55544958; // "UTIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 16;
+    private static final int ENTRY_LENGTH = 12;
+    
+    /** Orders terms the way they are stored: by unsigned UTF-8 bytes */
+    static final Comparator<byte[]> TERM_ORDER = Segment::compare;
+    
+    private final String fileName;
+    private final MappedByteBuffer map;
+    private final int termCount;
+    
+    private Segment(String fileName, MappedByteBuffer map, int termCount) {
+        this.fileName = fileName;
+        this.map = map;
+        this.termCount = termCount;
+    }
+    
+    /**
+     * Map a segment file; the mapping stays valid after the channel is closed
+     * @param file The segment file
+     * @return The opened segment
+     * @throws IOException If the file cannot be read or is not a segment
+     */
+    static Segment open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid index segment: " + file.getName());
+            }
+            MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.BIG_ENDIAN);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Invalid index segment: " + file.getName());
+            }
+            return new Segment(file.getName(), map, map.getInt(8));
+        }
+    }
+    
+    /**
+     * Write a segment file
+     * Postings are encoded and written one term at a time, so only the term table
+     * is held in memory while merging large segments.
+     * @param file Destination, replaced if it exists
+     * @param terms Terms in TERM_ORDER
+     * @param postingsOf Supplies the postings of each term, in order
+     * @throws IOException If the file cannot be written
+     */
+    static void write(File file, List<byte[]> terms, Function<byte[], Postings> postingsOf) throws IOException {
+        int count = terms.size();
+        int tableEnd = HEADER_LENGTH + count * ENTRY_LENGTH;
+        long termBytesLength = 0;
+        for (byte[] term : terms) {
+            termBytesLength += term.length;
+        }
+        if (tableEnd + termBytesLength > Integer.MAX_VALUE) {
+            throw new IOException("Index segment too large");
+        }
+        
+        ByteBuffer table = ByteBuffer.allocate(tableEnd);
+        table.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+        Postings.ByteSink termBytes = new Postings.ByteSink();
+        Postings.ByteSink encoded = new Postings.ByteSink();
+        
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            long position = tableEnd + termBytesLength;
+            for (byte[] term : terms) {
+                if (position > Integer.MAX_VALUE) {
+                    throw new IOException("Index segment too large");
+                }
+                table.putInt(tableEnd + termBytes.length);
+                table.putInt(term.length);
+                table.putInt((int) position);
+                termBytes.write(term);
+                
+                encoded.length = 0;
+                postingsOf.apply(term).encode(encoded);
+                position += writeFully(channel, ByteBuffer.wrap(encoded.bytes, 0, encoded.length), position);
+            }
+            
+            table.flip();
+            writeFully(channel, table, 0);
+            writeFully(channel, ByteBuffer.wrap(termBytes.bytes, 0, termBytes.length), tableEnd);
+            channel.force(true);
+        }
+    }
+    
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + length - buffer.remaining());
+        }
+        return length;
+    }
+    
+    String getFileName() {
+        return fileName;
+    }
+    
+    int getTermCount() {
+        return termCount;
+    }
+    
+    long getSizeBytes() {
+        return map.capacity();
+    }
+    
+    /**
+     * Get the stored bytes of a term
+     * @param index Position in the term table
+     * @return UTF-8 bytes of the term
+     */
+    byte[] term(int index) {
+        int entry = HEADER_LENGTH + index * ENTRY_LENGTH;
+        byte[] term = new byte[map.getInt(entry + 4)];
+        ByteBuffer view = map.duplicate();
+        view.position(map.getInt(entry));
+        view.get(term);
+        return term;
+    }
+    
+    /**
+     * Find a term by binary search over the mapped term table
+     * @param term UTF-8 bytes of the term
+     * @return Position in the term table, or -1 if the term is absent
+     */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareStored(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Decode the postings of a term and append them
+     * @param index Position in the term table
+     * @param target Postings to append to
+     */
+    void readPostings(int index, Postings target) {
+        target.decodeFrom(map, map.getInt(HEADER_LENGTH + index * ENTRY_LENGTH + 8));
+    }
+    
+    private int compareStored(int index, byte[] term) {
+        int entry = HEADER_LENGTH + index * ENTRY_LENGTH;
+        int offset = map.getInt(entry);
+        int length = map.getInt(entry + 4);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (map.get(offset + i) & 0xFF) - (term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - term.length;
+    }
+    
+    private static int compare(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,605 @@
+package com.utilities.search;
+
+import com.utilities.pdf.PageTextListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Incremental inverted index over extracted page text
+ * Maps each term to the (document, page) pairs it occurs on, with word positions,
+ * so term and phrase queries return page-level hits without re-extracting.
+ *
+ * New documents go to an in-memory buffer that is flushed to an immutable,
+ * memory-mapped segment on commit or when it grows large; small adjacent segments
+ * are merged during commit to keep lookups to a few binary searches.
+ * Re-adding a document under the same name replaces the old version.
+ *
+ * Files in the index directory:
+ * - segments.properties: the committed segment list, replaced atomically
+ * - documents.dat: append-only log of added ('A') and removed ('D') documents
+ * - seg-NNNNNN.idx: segment files, see {@link Segment}
+ *
+ * A document builder is a PageTextListener, so PDF text can be indexed while it
+ * is extracted, e.g. {@code pdfService.extractText(file, PageRange.ALL, builder)}.
+ */
+public class TextIndex {
+    
+    private static final Logger logger = Logger.getLogger(TextIndex.class.getName());
+    private static final String MANIFEST_NAME = "segments.properties";
+    private static final String DOCUMENTS_NAME = "documents.dat";
+    private static final byte ADDED = 'A';
+    private static final byte REMOVED = 'D';
+    
+    /** Buffered positions after which the buffer is flushed to a segment */
+    public static final int DEFAULT_FLUSH_POSITIONS = 1 << 20;
+    /** Number of segments above which adjacent segments are merged */
+    private static final int MAX_SEGMENTS = 8;
+    private static final int MERGE_FACTOR = 4;
+    
+    private final File directory;
+    private final int flushPositions;
+    
+    // All state guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Integer, String> documents = new HashMap<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private final Map<String, Postings> buffer = new HashMap<>();
+    private int bufferedPositions = 0;
+    private final List<DocumentRecord> pendingRecords = new ArrayList<>();
+    private int nextDocumentId = 1;
+    private int nextSegmentNumber = 1;
+    private long documentsLength = 0;
+    private DocumentBuilder openBuilder;
+    private boolean closed = false;
+    
+    /**
+     * Open an index in the default location (~/.utilities/text-index)
+     * @throws IOException If the index cannot be created or read
+     */
+    public TextIndex() throws IOException {
+        this(new File(System.getProperty("user.home"), ".utilities" + File.separator + "text-index"),
+             DEFAULT_FLUSH_POSITIONS);
+    }
+    
+    /**
+     * Open or create an index
+     * @param directory Index directory, created if missing
+     * @param flushPositions Buffered word occurrences after which a segment is written
+     * @throws IOException If the index cannot be created or read
+     */
+    public TextIndex(File directory, int flushPositions) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create index directory: " + directory);
+        }
+        this.directory = directory;
+        this.flushPositions = Math.max(1, flushPositions);
+        load();
+    }
+    
+    private void load() throws IOException {
+        long start = System.currentTimeMillis();
+        File manifestFile = new File(directory, MANIFEST_NAME);
+        if (manifestFile.isFile()) {
+            Properties manifest = new Properties();
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                manifest.load(in);
+            }
+            nextDocumentId = Integer.parseInt(manifest.getProperty("nextDocumentId", "1"));
+            nextSegmentNumber = Integer.parseInt(manifest.getProperty("nextSegment", "1"));
+            documentsLength = Long.parseLong(manifest.getProperty("documentsLength", "0"));
+            for (String name : manifest.getProperty("segments", "").split(",")) {
+                if (!name.isEmpty()) {
+                    segments.add(Segment.open(new File(directory, name)));
+                }
+            }
+        }
+        
+        loadDocuments();
+        deleteUnreferencedSegments();
+        logger.info("Text index loaded " + documents.size() + " document(s) in " + segments.size()
+                + " segment(s) from " + directory + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+    
+    private void loadDocuments() throws IOException {
+        File documentsFile = new File(directory, DOCUMENTS_NAME);
+        if (!documentsFile.isFile()) {
+            documentsLength = 0;
+            return;
+        }
+        
+        // Records past the committed length belong to a commit that never finished
+        if (documentsFile.length() > documentsLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(documentsFile, "rw")) {
+                raf.setLength(documentsLength);
+            }
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(documentsFile)))) {
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                int id = in.readInt();
+                if (type == ADDED) {
+                    String name = in.readUTF();
+                    documents.put(id, name);
+                    documentIds.put(name, id);
+                } else {
+                    String name = documents.remove(id);
+                    if (name != null) {
+                        documentIds.remove(name);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void deleteUnreferencedSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("seg-") && name.endsWith(".idx"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            boolean referenced = false;
+            for (Segment segment : segments) {
+                referenced |= segment.getFileName().equals(file.getName());
+            }
+            if (!referenced && !file.delete()) {
+                logger.warning("Could not delete stale index segment: " + file.getName());
+            }
+        }
+    }
+    
+    /**
+     * Start indexing a document; an existing document with the same name is replaced
+     * Only one document can be built at a time, and it is visible to searches as its
+     * pages are added. It is persisted by the next commit.
+     * @param name Document name, usually the absolute path of the source file
+     * @return Builder that receives the document's pages in order
+     */
+    public synchronized DocumentBuilder addDocument(String name) {
+        checkOpen();
+        if (openBuilder != null) {
+            throw new IllegalStateException("Another document is being indexed: " + openBuilder.name);
+        }
+        removeDocument(name);
+        int id = nextDocumentId++;
+        documents.put(id, name);
+        documentIds.put(name, id);
+        pendingRecords.add(new DocumentRecord(ADDED, id, name));
+        openBuilder = new DocumentBuilder(id, name);
+        return openBuilder;
+    }
+    
+    /**
+     * Index a single-page document, such as the OCR text of an image
+     * @param name Document name
+     * @param text Text of the document
+     * @throws IOException If flushing the buffer fails
+     */
+    public void addDocument(String name, String text) throws IOException {
+        try (DocumentBuilder builder = addDocument(name)) {
+            builder.onPage(1, text);
+        }
+    }
+    
+    /**
+     * Remove a document; its postings are dropped when its segment is next merged
+     * @param name Document name
+     * @return True if the document was indexed
+     */
+    public synchronized boolean removeDocument(String name) {
+        checkOpen();
+        Integer id = documentIds.remove(name);
+        if (id == null) {
+            return false;
+        }
+        documents.remove(id);
+        pendingRecords.add(new DocumentRecord(REMOVED, id, null));
+        return true;
+    }
+    
+    /**
+     * Check whether a document is indexed
+     * @param name Document name
+     * @return True if the document is indexed, committed or not
+     */
+    public synchronized boolean containsDocument(String name) {
+        return documentIds.containsKey(name);
+    }
+    
+    public synchronized int getDocumentCount() {
+        return documents.size();
+    }
+    
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Find the pages containing a term, or all the terms of a phrase in sequence
+     * The query is tokenized like indexed text: case-insensitive, punctuation ignored.
+     * @param query A word or phrase
+     * @return Matching pages ordered by document and page
+     */
+    public synchronized List<SearchHit> search(String query) {
+        checkOpen();
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Postings[] lists = new Postings[terms.size()];
+        int driver = 0;
+        for (int k = 0; k < lists.length; k++) {
+            lists[k] = postingsFor(terms.get(k));
+            if (lists[k].size == 0) {
+                return Collections.emptyList();
+            }
+            if (lists[k].size < lists[driver].size) {
+                driver = k;
+            }
+        }
+        
+        // Walk the rarest term's entries and advance the others to the same page
+        List<SearchHit> hits = new ArrayList<>();
+        int[] cursors = new int[lists.length];
+        Postings first = lists[driver];
+        entries:
+        for (int e = 0; e < first.size; e++) {
+            int doc = first.docs[e];
+            int page = first.pages[e];
+            String name = documents.get(doc);
+            if (name == null) {
+                continue;
+            }
+            for (int k = 0; k < lists.length; k++) {
+                Postings other = lists[k];
+                int c = cursors[k];
+                while (c < other.size && (other.docs[c] < doc || other.docs[c] == doc && other.pages[c] < page)) {
+                    c++;
+                }
+                cursors[k] = c;
+                if (c == other.size) {
+                    break entries;
+                }
+                if (other.docs[c] != doc || other.pages[c] != page) {
+                    continue entries;
+                }
+            }
+            
+            int matches = 0;
+            for (int p = first.posStart[e]; p < first.posStart[e + 1]; p++) {
+                int phraseStart = first.positions[p] - driver;
+                boolean all = phraseStart >= 0;
+                for (int k = 0; k < lists.length && all; k++) {
+                    Postings other = lists[k];
+                    int c = cursors[k];
+                    all = k == driver || Arrays.binarySearch(other.positions, other.posStart[c],
+                            other.posStart[c + 1], phraseStart + k) >= 0;
+                }
+                if (all) {
+                    matches++;
+                }
+            }
+            if (matches > 0) {
+                hits.add(new SearchHit(doc, name, page, matches));
+            }
+        }
+        return hits;
+    }
+    
+    private Postings postingsFor(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        Postings result = new Postings();
+        // Segments hold increasing document ids, so concatenation stays ordered
+        for (Segment segment : segments) {
+            int index = segment.find(key);
+            if (index >= 0) {
+                segment.readPostings(index, result);
+            }
+        }
+        Postings buffered = buffer.get(term);
+        if (buffered != null) {
+            result.appendAll(buffered, doc -> true);
+        }
+        return result;
+    }
+    
+    /**
+     * Persist all added and removed documents
+     * @throws IOException If the segment or manifest cannot be written
+     */
+    public synchronized void commit() throws IOException {
+        checkOpen();
+        if (pendingRecords.isEmpty() && buffer.isEmpty()) {
+            return;
+        }
+        
+        List<Segment> committed = new ArrayList<>(segments);
+        if (!buffer.isEmpty()) {
+            committed.add(flushBuffer());
+        }
+        appendDocumentRecords();
+        writeManifest(committed);
+        segments.clear();
+        segments.addAll(committed);
+        buffer.clear();
+        bufferedPositions = 0;
+        
+        if (segments.size() > MAX_SEGMENTS) {
+            mergeSmallestSegments();
+        }
+    }
+    
+    private Segment flushBuffer() throws IOException {
+        long start = System.currentTimeMillis();
+        TreeMap<byte[], Postings> sorted = new TreeMap<>(Segment.TERM_ORDER);
+        for (Map.Entry<String, Postings> entry : buffer.entrySet()) {
+            Postings live = new Postings();
+            live.appendAll(entry.getValue(), documents::containsKey);
+            if (live.size > 0) {
+                sorted.put(entry.getKey().getBytes(StandardCharsets.UTF_8), live);
+            }
+        }
+        
+        File file = new File(directory, segmentName(nextSegmentNumber++));
+        Segment.write(file, new ArrayList<>(sorted.keySet()), sorted::get);
+        Segment segment = Segment.open(file);
+        logger.info("Flushed " + bufferedPositions + " positions, " + segment.getTermCount() + " terms to "
+                + file.getName() + " (" + segment.getSizeBytes() / 1024 + " KB) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return segment;
+    }
+    
+    private void appendDocumentRecords() throws IOException {
+        File documentsFile = new File(directory, DOCUMENTS_NAME);
+        try (FileOutputStream file = new FileOutputStream(documentsFile, true);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (DocumentRecord record : pendingRecords) {
+                out.writeByte(record.type);
+                out.writeInt(record.id);
+                if (record.type == ADDED) {
+                    out.writeUTF(record.name);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+            documentsLength = documentsFile.length();
+        }
+        pendingRecords.clear();
+    }
+    
+    private void writeManifest(List<Segment> committed) throws IOException {
+        StringBuilder names = new StringBuilder();
+        for (Segment segment : committed) {
+            if (names.length() > 0) {
+                names.append(',');
+            }
+            names.append(segment.getFileName());
+        }
+        Properties manifest = new Properties();
+        manifest.setProperty("nextDocumentId", Integer.toString(nextDocumentId));
+        manifest.setProperty("nextSegment", Integer.toString(nextSegmentNumber));
+        manifest.setProperty("documentsLength", Long.toString(documentsLength));
+        manifest.setProperty("segments", names.toString());
+        
+        File temp = new File(directory, MANIFEST_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            manifest.store(out, "Text index");
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), new File(directory, MANIFEST_NAME).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Merge the run of adjacent segments with the smallest total size
+     * Only adjacent segments are merged so document ids stay in segment order, and
+     * picking the smallest run keeps large segments from being rewritten each time.
+     */
+    private void mergeSmallestSegments() throws IOException {
+        long start = System.currentTimeMillis();
+        int bestStart = 0;
+        long bestSize = Long.MAX_VALUE;
+        for (int i = 0; i + MERGE_FACTOR <= segments.size(); i++) {
+            long size = 0;
+            for (int j = i; j < i + MERGE_FACTOR; j++) {
+                size += segments.get(j).getSizeBytes();
+            }
+            if (size < bestSize) {
+                bestSize = size;
+                bestStart = i;
+            }
+        }
+        List<Segment> inputs = new ArrayList<>(segments.subList(bestStart, bestStart + MERGE_FACTOR));
+        
+        TreeSet<byte[]> terms = new TreeSet<>(Segment.TERM_ORDER);
+        for (Segment segment : inputs) {
+            for (int i = 0; i < segment.getTermCount(); i++) {
+                terms.add(segment.term(i));
+            }
+        }
+        
+        File file = new File(directory, segmentName(nextSegmentNumber++));
+        Segment.write(file, new ArrayList<>(terms), term -> {
+            Postings all = new Postings();
+            for (Segment segment : inputs) {
+                int index = segment.find(term);
+                if (index >= 0) {
+                    segment.readPostings(index, all);
+                }
+            }
+            // Postings of removed documents are dropped here
+            Postings live = new Postings();
+            live.appendAll(all, documents::containsKey);
+            return live;
+        });
+        
+        List<Segment> merged = new ArrayList<>(segments);
+        merged.subList(bestStart, bestStart + MERGE_FACTOR).clear();
+        merged.add(bestStart, Segment.open(file));
+        writeManifest(merged);
+        segments.clear();
+        segments.addAll(merged);
+        
+        // Mappings of the inputs stay valid until collected; unlinking is safe on POSIX
+        for (Segment segment : inputs) {
+            File input = new File(directory, segment.getFileName());
+            if (!input.delete()) {
+                logger.fine("Index segment still in use, removed on next open: " + input.getName());
+            }
+        }
+        logger.info("Merged " + MERGE_FACTOR + " index segments into " + file.getName() + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+    
+    /**
+     * Commit pending changes and release the index
+     * @throws IOException If the final commit fails
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (openBuilder != null) {
+            openBuilder.close();
+        }
+        commit();
+        closed = true;
+        segments.clear();
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Text index is closed");
+        }
+    }
+    
+    private static String segmentName(int number) {
+        return String.format("seg-%06d.idx", number);
+    }
+    
+    /**
+     * Split text into lowercase runs of letters and digits
+     * @param text Text to tokenize
+     * @return Terms in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            if (i > start) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return terms;
+    }
+    
+    /**
+     * Receives the pages of one document; close it when the document is complete
+     */
+    public final class DocumentBuilder implements PageTextListener, AutoCloseable {
+        
+        private final int id;
+        private final String name;
+        private int lastPage = 0;
+        private boolean done = false;
+        
+        private DocumentBuilder(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+        
+        /**
+         * Index the text of a page; pages must be added in increasing order
+         * @param pageNumber 1-based page number
+         * @param text Text of the page
+         */
+        @Override
+        public void onPage(int pageNumber, String text) {
+            synchronized (TextIndex.this) {
+                if (done) {
+                    throw new IllegalStateException("Document already closed: " + name);
+                }
+                if (pageNumber <= lastPage) {
+                    throw new IllegalArgumentException("Pages must be added in order: " + pageNumber
+                            + " after " + lastPage);
+                }
+                lastPage = pageNumber;
+                
+                List<String> terms = tokenize(text);
+                for (int position = 0; position < terms.size(); position++) {
+                    buffer.computeIfAbsent(terms.get(position), t -> new Postings()).add(id, pageNumber, position);
+                }
+                bufferedPositions += terms.size();
+            }
+        }
+        
+        /**
+         * Finish the document, flushing the buffer if it has grown past its limit
+         * @throws IOException If flushing fails
+         */
+        @Override
+        public void close() throws IOException {
+            synchronized (TextIndex.this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                openBuilder = null;
+                if (bufferedPositions >= flushPositions) {
+                    commit();
+                }
+            }
+        }
+    }
+    
+    private static final class DocumentRecord {
+        
+        final byte type;
+        final int id;
+        final String name;
+        
+        DocumentRecord(byte type, int id, String name) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.utilities.texttools;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The lines of a text, as ranges of one char[] rather than a String per line
+ * Lines end at "\n", "\r\n" or "\r"; the terminators are not part of the lines, so texts
+ * differing only in line endings have equal lines.
+ */
+final class Lines {
+    
+    private final char[] text;
+    // Per line: offset of its first character and of the character after its last
+    private final int[] starts;
+    private final int[] ends;
+    private final int count;
+    
+    private Lines(char[] text, int[] starts, int[] ends, int count) {
+        this.text = text;
+        this.starts = starts;
+        this.ends = ends;
+        this.count = count;
+    }
+    
+    /**
+     * Split text[0, length) into lines; the array is kept, not copied
+     */
+    static Lines split(char[] text, int length) {
+        int[] starts = new int[64];
+        int[] ends = new int[64];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text[i] : '\n';
+            if (c != '\n' && c != '\r') {
+                continue;
+            }
+            if (i == length && start == length) {
+                // A final terminator does not start another line
+                break;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = i;
+            count++;
+            if (c == '\r' && i + 1 < length && text[i + 1] == '\n') {
+                i++;
+            }
+            start = i + 1;
+        }
+        return new Lines(text, starts, ends, count);
+    }
+    
+    int size() {
+        return count;
+    }
+    
+    int hash(int line) {
+        int hash = 0;
+        for (int i = starts[line]; i < ends[line]; i++) {
+            hash = 31 * hash + text[i];
+        }
+        return hash;
+    }
+    
+    boolean equals(int line, Lines other, int otherLine) {
+        int length = ends[line] - starts[line];
+        if (other.ends[otherLine] - other.starts[otherLine] != length) {
+            return false;
+        }
+        for (int i = starts[line], j = other.starts[otherLine]; i < ends[line]; i++, j++) {
+            if (text[i] != other.text[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    String get(int line) {
+        return new String(text, starts[line], ends[line] - starts[line]);
+    }
+    
+    void write(Writer out, int line) throws IOException {
+        out.write(text, starts[line], ends[line] - starts[line]);
+    }
+}
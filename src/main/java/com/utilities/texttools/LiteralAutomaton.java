@@ -0,0 +1,194 @@
+package com.utilities.texttools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton finding the leftmost-longest occurrence of any of a set of strings
+ * Transitions on ASCII characters are a dense table with failure links already followed,
+ * so ASCII text costs one array load per character. Other characters use sorted edge
+ * lists per state and follow failure links at search time.
+ *
+ * Each state knows the longest pattern that ends at it, directly or through its failure
+ * chain, so the best match ending at a position is found without walking that chain.
+ * Immutable after construction and safe to share between threads.
+ */
+final class LiteralAutomaton {
+    
+    private static final int ROOT = 0;
+    private static final int ASCII = 128;
+    
+    // Per state: length of the string spelled to reach it, and its failure link
+    private final int[] depth;
+    private final int[] fail;
+    // Per state: length and pattern index of the longest pattern ending here, 0 and -1 if none
+    private final int[] matchLength;
+    private final int[] matchPattern;
+    // Next state for state * ASCII + character
+    private final int[] asciiNext;
+    // Per state: sorted non-ASCII edge characters and their targets, null if none
+    private final char[][] edgeKeys;
+    private final int[][] edgeTargets;
+    
+    /**
+     * @param patterns Strings to find, not empty; an earlier pattern wins over an equal later one
+     */
+    LiteralAutomaton(List<String> patterns) {
+        // Trie
+        List<Map<Character, Integer>> edges = new ArrayList<>();
+        edges.add(new HashMap<>());
+        int[] trieDepth = new int[16];
+        int[] terminal = new int[16];
+        Arrays.fill(terminal, -1);
+        for (int p = 0; p < patterns.size(); p++) {
+            String text = patterns.get(p);
+            int state = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                Integer next = edges.get(state).get(text.charAt(i));
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new HashMap<>());
+                    if (next == trieDepth.length) {
+                        trieDepth = Arrays.copyOf(trieDepth, next * 2);
+                        terminal = Arrays.copyOf(terminal, next * 2);
+                        Arrays.fill(terminal, next, next * 2, -1);
+                    }
+                    trieDepth[next] = i + 1;
+                    edges.get(state).put(text.charAt(i), next);
+                }
+                state = next;
+            }
+            if (terminal[state] < 0) {
+                terminal[state] = p;
+            }
+        }
+        
+        int states = edges.size();
+        depth = Arrays.copyOf(trieDepth, states);
+        fail = new int[states];
+        matchLength = new int[states];
+        matchPattern = new int[states];
+        asciiNext = new int[states * ASCII];
+        edgeKeys = new char[states][];
+        edgeTargets = new int[states][];
+        
+        // Failure links in breadth-first order, so a state's link is done before its children
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        matchPattern[ROOT] = -1;
+        while (head < tail) {
+            int state = queue[head++];
+            Map<Character, Integer> out = edges.get(state);
+            if (state != ROOT) {
+                boolean own = terminal[state] >= 0;
+                matchLength[state] = own ? depth[state] : matchLength[fail[state]];
+                matchPattern[state] = own ? terminal[state] : matchPattern[fail[state]];
+            }
+            for (int c = 0; c < ASCII; c++) {
+                Integer next = out.get((char) c);
+                asciiNext[state * ASCII + c] = next != null ? next
+                        : state == ROOT ? ROOT : asciiNext[fail[state] * ASCII + c];
+            }
+            int wide = 0;
+            for (Map.Entry<Character, Integer> edge : out.entrySet()) {
+                char c = edge.getKey();
+                int child = edge.getValue();
+                fail[child] = state == ROOT ? ROOT : step(fail[state], c);
+                queue[tail++] = child;
+                if (c >= ASCII) {
+                    wide++;
+                }
+            }
+            if (wide > 0) {
+                char[] keys = new char[wide];
+                int n = 0;
+                for (char c : out.keySet()) {
+                    if (c >= ASCII) {
+                        keys[n++] = c;
+                    }
+                }
+                Arrays.sort(keys);
+                int[] targets = new int[wide];
+                for (int i = 0; i < wide; i++) {
+                    targets[i] = out.get(keys[i]);
+                }
+                edgeKeys[state] = keys;
+                edgeTargets[state] = targets;
+            }
+        }
+    }
+    
+    private int step(int state, char c) {
+        if (c < ASCII) {
+            return asciiNext[state * ASCII + c];
+        }
+        while (true) {
+            char[] keys = edgeKeys[state];
+            if (keys != null) {
+                int index = Arrays.binarySearch(keys, c);
+                if (index >= 0) {
+                    return edgeTargets[state][index];
+                }
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+    
+    /**
+     * Find the leftmost match in text[from, limit), the longest of those starting there
+     * @param complete True if no text follows limit
+     * @param match Receives start, end and pattern index of the match; without one, the
+     *              start is the first position a match could still begin at once more
+     *              text follows limit
+     * @return True if a match was found that text after limit cannot change
+     */
+    boolean find(char[] text, int from, int limit, boolean complete, int[] match) {
+        int state = ROOT;
+        int bestStart = -1;
+        int bestEnd = 0;
+        int bestPattern = -1;
+        for (int i = from; i < limit; i++) {
+            char c = text[i];
+            state = c < ASCII ? asciiNext[state * ASCII + c] : step(state, c);
+            int length = matchLength[state];
+            if (length > 0) {
+                int matchStart = i + 1 - length;
+                // At the same start, a later end is a longer match
+                if (bestStart < 0 || matchStart <= bestStart) {
+                    bestStart = matchStart;
+                    bestEnd = i + 1;
+                    bestPattern = matchPattern[state];
+                }
+            }
+            if (bestStart >= 0 && i + 1 - depth[state] > bestStart) {
+                // No match can start at or before the best one any more
+                return setMatch(match, bestStart, bestEnd, bestPattern);
+            }
+        }
+        if (bestStart >= 0 && (complete || limit - depth[state] > bestStart)) {
+            return setMatch(match, bestStart, bestEnd, bestPattern);
+        }
+        // A longer match may still begin before the best one, inside the current prefix
+        match[0] = limit - depth[state];
+        return false;
+    }
+    
+    private static boolean setMatch(int[] match, int start, int end, int pattern) {
+        match[0] = start;
+        match[1] = end;
+        match[2] = pattern;
+        return true;
+    }
+    
+    int getStateCount() {
+        return depth.length;
+    }
+}
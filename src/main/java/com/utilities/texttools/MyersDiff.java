@@ -0,0 +1,337 @@
+package com.utilities.texttools;
+
+import java.util.Arrays;
+
+/**
+ * Myers' O(ND) difference algorithm over lines hashed to int ids
+ * Before searching, the common prefix and suffix are skipped and lines that occur on
+ * only one side are set aside as changed, since no edit script can keep them; what is
+ * left is usually far shorter than the input.
+ *
+ * The greedy forward search keeps every step's furthest-reaching diagonals so the path
+ * can be traced back, which costs D squared ints for D differences. Past TRACE_LIMIT
+ * it gives up and the linear-space variant takes over: it finds the middle snake by
+ * searching from both ends at once and recurses on either side of it, using two arrays
+ * of N + M ints in total. Both find a shortest edit script.
+ *
+ * Unless a minimal script is asked for, the linear-space search also gives up on a
+ * middle snake after about sqrt(N + M) steps and splits at the point either search
+ * direction got furthest, as GNU diff does. That keeps inputs with hundreds of
+ * thousands of differences to seconds, at the cost of a few more changes than needed.
+ */
+final class MyersDiff {
+    
+    // Ints of trace the greedy search may keep, 16 MB
+    static final int TRACE_LIMIT = 4 * 1024 * 1024;
+    // Fewest steps the linear-space search takes before it may give up on a range
+    private static final int MIN_TOO_EXPENSIVE = 4096;
+    
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+    // Furthest x per diagonal for the linear-space search, indexed by x - y + offset
+    private int[] forward;
+    private int[] backward;
+    private int offset;
+    // Steps after which a middle snake is no longer searched for
+    private int tooExpensive = Integer.MAX_VALUE;
+    
+    private MyersDiff(int[] a, int[] b, boolean[] deleted, boolean[] inserted) {
+        this.a = a;
+        this.b = b;
+        this.deleted = deleted;
+        this.inserted = inserted;
+    }
+    
+    /**
+     * Find a shortest edit script turning one sequence into another
+     * @param a Old sequence
+     * @param b New sequence
+     * @param ids Number of distinct values; all values are in [0, ids)
+     * @param deleted Receives true for each element of a that is deleted
+     * @param inserted Receives true for each element of b that is inserted
+     * @param minimal False to trade minimality for speed on very different inputs
+     */
+    static void diff(int[] a, int[] b, int ids, boolean[] deleted, boolean[] inserted, boolean minimal) {
+        int aLo = 0;
+        int bLo = 0;
+        int aHi = a.length;
+        int bHi = b.length;
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aHi > aLo && bHi > bLo && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+        int[] aCounts = new int[ids];
+        int[] bCounts = new int[ids];
+        for (int i = aLo; i < aHi; i++) {
+            aCounts[a[i]]++;
+        }
+        for (int i = bLo; i < bHi; i++) {
+            bCounts[b[i]]++;
+        }
+        int[] aIndexes = keep(a, aLo, aHi, bCounts, deleted);
+        int[] bIndexes = keep(b, bLo, bHi, aCounts, inserted);
+        int[] aCore = new int[aIndexes.length];
+        int[] bCore = new int[bIndexes.length];
+        for (int i = 0; i < aCore.length; i++) {
+            aCore[i] = a[aIndexes[i]];
+        }
+        for (int i = 0; i < bCore.length; i++) {
+            bCore[i] = b[bIndexes[i]];
+        }
+        
+        boolean[] aChanged = new boolean[aCore.length];
+        boolean[] bChanged = new boolean[bCore.length];
+        MyersDiff diff = new MyersDiff(aCore, bCore, aChanged, bChanged);
+        if (!diff.greedy()) {
+            diff.forward = new int[aCore.length + bCore.length + 3];
+            diff.backward = new int[diff.forward.length];
+            diff.offset = bCore.length + 1;
+            if (!minimal) {
+                diff.tooExpensive = tooExpensive(aCore.length + bCore.length);
+            }
+            diff.compare(0, aCore.length, 0, bCore.length);
+        }
+        for (int i = 0; i < aChanged.length; i++) {
+            deleted[aIndexes[i]] = aChanged[i];
+        }
+        for (int i = 0; i < bChanged.length; i++) {
+            inserted[bIndexes[i]] = bChanged[i];
+        }
+    }
+    
+    /**
+     * About the square root of the total length, and at least MIN_TOO_EXPENSIVE
+     */
+    private static int tooExpensive(int length) {
+        int limit = 1;
+        for (long diagonals = length + 3L; diagonals != 0; diagonals >>= 2) {
+            limit <<= 1;
+        }
+        return Math.max(MIN_TOO_EXPENSIVE, limit);
+    }
+    
+    /**
+     * Mark the elements of sequence[from, to) absent from the other side as changed
+     * @return Indexes of the others, which are left to the search
+     */
+    private static int[] keep(int[] sequence, int from, int to, int[] otherCounts, boolean[] changed) {
+        int[] indexes = new int[to - from];
+        int kept = 0;
+        for (int i = from; i < to; i++) {
+            if (otherCounts[sequence[i]] == 0) {
+                changed[i] = true;
+            } else {
+                indexes[kept++] = i;
+            }
+        }
+        return Arrays.copyOf(indexes, kept);
+    }
+    
+    /**
+     * Forward search keeping a trace of every step, then the walk back along it
+     * @return False if the trace would pass TRACE_LIMIT, with nothing marked
+     */
+    private boolean greedy() {
+        int n = a.length;
+        int m = b.length;
+        int max = n + m;
+        // The trace limit bounds the steps, and so the diagonals reached
+        int reach = Math.min(max, (int) Math.sqrt(TRACE_LIMIT));
+        // Furthest x on diagonal k = x - y at v[k + reach + 1]
+        int[] v = new int[2 * reach + 3];
+        int[] trace = new int[Math.min(1024, TRACE_LIMIT)];
+        int vOffset = reach + 1;
+        for (int d = 0; d <= max; d++) {
+            long traced = (long) (d + 1) * (d + 1);
+            if (traced > TRACE_LIMIT) {
+                return false;
+            }
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || k != d && v[k - 1 + vOffset] < v[k + 1 + vOffset]
+                        ? v[k + 1 + vOffset] : v[k - 1 + vOffset] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[k + vOffset] = x;
+                if (x >= n && y >= m) {
+                    traceBack(trace, d, n, m);
+                    return true;
+                }
+            }
+            // Step d keeps diagonals -d to d at d * d
+            if (traced > trace.length) {
+                trace = Arrays.copyOf(trace, (int) Math.min(TRACE_LIMIT, Math.max(traced, 2L * trace.length)));
+            }
+            System.arraycopy(v, vOffset - d, trace, d * d, 2 * d + 1);
+        }
+        throw new IllegalStateException("No edit script found");
+    }
+    
+    private void traceBack(int[] trace, int steps, int x, int y) {
+        for (int d = steps; d > 0; d--) {
+            // Diagonal k of step d - 1
+            int base = (d - 1) * (d - 1) + d - 1;
+            int k = x - y;
+            boolean down = k == -d || k != d && trace[base + k - 1] < trace[base + k + 1];
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = trace[base + previousK];
+            int previousY = previousX - previousK;
+            if (down) {
+                inserted[previousY] = true;
+            } else {
+                deleted[previousX] = true;
+            }
+            x = previousX;
+            y = previousY;
+        }
+    }
+    
+    /**
+     * Linear-space search of a[aLo, aHi) against b[bLo, bHi)
+     */
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aHi > aLo && bHi > bLo && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+        if (aLo == aHi) {
+            Arrays.fill(inserted, bLo, bHi, true);
+        } else if (bLo == bHi) {
+            Arrays.fill(deleted, aLo, aHi, true);
+        } else {
+            long middle = middleSnake(aLo, aHi, bLo, bHi);
+            int x = (int) (middle >>> 32);
+            int y = (int) middle;
+            compare(aLo, x, bLo, y);
+            compare(x, aHi, y, bHi);
+        }
+    }
+    
+    /**
+     * Find a point on a middle snake of a shortest path through the two ranges
+     * @return x in the high half, y in the low half
+     */
+    private long middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int[] fd = forward;
+        int[] bd = backward;
+        int o = offset;
+        int dMin = aLo - bHi;
+        int dMax = aHi - bLo;
+        int fMid = aLo - bLo;
+        int bMid = aHi - bHi;
+        boolean odd = ((fMid - bMid) & 1) != 0;
+        int fMin = fMid;
+        int fMax = fMid;
+        int bMin = bMid;
+        int bMax = bMid;
+        fd[fMid + o] = aLo;
+        bd[bMid + o] = aHi;
+        int cost = 0;
+        while (true) {
+            // One more step forwards, on diagonals fMin to fMax
+            if (fMin > dMin) {
+                fd[--fMin - 1 + o] = -1;
+            } else {
+                fMin++;
+            }
+            if (fMax < dMax) {
+                fd[++fMax + 1 + o] = -1;
+            } else {
+                fMax--;
+            }
+            for (int d = fMax; d >= fMin; d -= 2) {
+                int low = fd[d - 1 + o];
+                int high = fd[d + 1 + o];
+                int x = low >= high ? low + 1 : high;
+                int y = x - d;
+                while (x < aHi && y < bHi && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                fd[d + o] = x;
+                if (odd && bMin <= d && d <= bMax && bd[d + o] <= x) {
+                    return (long) x << 32 | y & 0xFFFFFFFFL;
+                }
+            }
+            // And one backwards, on diagonals bMin to bMax
+            if (bMin > dMin) {
+                bd[--bMin - 1 + o] = Integer.MAX_VALUE;
+            } else {
+                bMin++;
+            }
+            if (bMax < dMax) {
+                bd[++bMax + 1 + o] = Integer.MAX_VALUE;
+            } else {
+                bMax--;
+            }
+            for (int d = bMax; d >= bMin; d -= 2) {
+                int low = bd[d - 1 + o];
+                int high = bd[d + 1 + o];
+                int x = low < high ? low : high - 1;
+                int y = x - d;
+                while (x > aLo && y > bLo && a[x - 1] == b[y - 1]) {
+                    x--;
+                    y--;
+                }
+                bd[d + o] = x;
+                if (!odd && fMin <= d && d <= fMax && x <= fd[d + o]) {
+                    return (long) x << 32 | y & 0xFFFFFFFFL;
+                }
+            }
+            if (++cost >= tooExpensive) {
+                return furthest(aLo, aHi, bLo, bHi, fMin, fMax, bMin, bMax);
+            }
+        }
+    }
+    
+    /**
+     * Give up on a shortest path and split where the search got furthest, from either end
+     */
+    private long furthest(int aLo, int aHi, int bLo, int bHi, int fMin, int fMax, int bMin, int bMax) {
+        int o = offset;
+        int forwardBest = -1;
+        int forwardX = 0;
+        for (int d = fMax; d >= fMin; d -= 2) {
+            int x = Math.min(forward[d + o], aHi);
+            int y = x - d;
+            if (y > bHi) {
+                x = bHi + d;
+                y = bHi;
+            }
+            if (x + y > forwardBest) {
+                forwardBest = x + y;
+                forwardX = x;
+            }
+        }
+        int backwardBest = Integer.MAX_VALUE;
+        int backwardX = 0;
+        for (int d = bMax; d >= bMin; d -= 2) {
+            int x = Math.max(aLo, backward[d + o]);
+            int y = x - d;
+            if (y < bLo) {
+                x = bLo + d;
+                y = bLo;
+            }
+            if (x + y < backwardBest) {
+                backwardBest = x + y;
+                backwardX = x;
+            }
+        }
+        if (aHi + bHi - backwardBest < forwardBest - (aLo + bLo)) {
+            return (long) forwardX << 32 | forwardBest - forwardX & 0xFFFFFFFFL;
+        }
+        return (long) backwardX << 32 | backwardBest - backwardX & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,62 @@
+package com.utilities.texttools;
+
+/**
+ * A find and replace rule: a literal string or a regular expression, and its replacement
+ * Rules are combined into a {@link TextReplacer}, which applies a whole rule set in one pass.
+ */
+public final class ReplaceRule {
+    
+    private final String target;
+    private final String replacement;
+    private final boolean regex;
+    
+    private ReplaceRule(String target, String replacement, boolean regex) {
+        if (target == null || replacement == null) {
+            throw new NullPointerException("Target and replacement are required");
+        }
+        this.target = target;
+        this.replacement = replacement;
+        this.regex = regex;
+    }
+    
+    /**
+     * Replace every occurrence of a string, as String.replace does
+     * @param target Text to find; not empty
+     * @param replacement Text to put in its place, used as is
+     * @return The rule
+     * @throws IllegalArgumentException If the target is empty
+     */
+    public static ReplaceRule literal(String target, String replacement) {
+        if (target.isEmpty()) {
+            throw new IllegalArgumentException("Empty search text");
+        }
+        return new ReplaceRule(target, replacement, false);
+    }
+    
+    /**
+     * Replace every match of a regular expression, as String.replaceAll does
+     * @param regex Pattern to find, in java.util.regex syntax
+     * @param replacement Replacement, which may refer to groups as $1 or ${name}
+     * @return The rule
+     */
+    public static ReplaceRule regex(String regex, String replacement) {
+        return new ReplaceRule(regex, replacement, true);
+    }
+    
+    public String getTarget() {
+        return target;
+    }
+    
+    public String getReplacement() {
+        return replacement;
+    }
+    
+    public boolean isRegex() {
+        return regex;
+    }
+    
+    @Override
+    public String toString() {
+        return (regex ? "regex " : "") + "\"" + target + "\" -> \"" + replacement + "\"";
+    }
+}
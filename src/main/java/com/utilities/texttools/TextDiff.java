@@ -0,0 +1,305 @@
+package com.utilities.texttools;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Line differences between an old and a new text: a list of changes, each replacing a
+ * run of old lines with a run of new ones
+ * Lines are compared without their line terminators. Computed by {@link MyersDiff} on
+ * lines hashed to int ids, so lines are compared as text only once, when hashed.
+ */
+public final class TextDiff {
+    
+    private final Lines oldLines;
+    private final Lines newLines;
+    private final List<Change> changes;
+    private final int deletedLines;
+    private final int insertedLines;
+    
+    private TextDiff(Lines oldLines, Lines newLines, List<Change> changes) {
+        this.oldLines = oldLines;
+        this.newLines = newLines;
+        this.changes = Collections.unmodifiableList(changes);
+        int deleted = 0;
+        int inserted = 0;
+        for (Change change : changes) {
+            deleted += change.getDeletedCount();
+            inserted += change.getInsertedCount();
+        }
+        this.deletedLines = deleted;
+        this.insertedLines = inserted;
+    }
+    
+    /**
+     * Compare two texts line by line
+     * @param oldLines Lines of the old text
+     * @param newLines Lines of the new text
+     * @param minimal True for the fewest changes however long that takes
+     * @return The differences
+     */
+    static TextDiff compute(Lines oldLines, Lines newLines, boolean minimal) {
+        LineIds ids = new LineIds(oldLines.size() + newLines.size());
+        int[] a = ids.assign(oldLines);
+        int[] b = ids.assign(newLines);
+        boolean[] deleted = new boolean[a.length];
+        boolean[] inserted = new boolean[b.length];
+        MyersDiff.diff(a, b, ids.size(), deleted, inserted, minimal);
+        
+        List<Change> changes = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (i < a.length && j < b.length && !deleted[i] && !inserted[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            int oldStart = i;
+            int newStart = j;
+            while (i < a.length && deleted[i]) {
+                i++;
+            }
+            while (j < b.length && inserted[j]) {
+                j++;
+            }
+            changes.add(new Change(oldStart, i - oldStart, newStart, j - newStart));
+        }
+        return new TextDiff(oldLines, newLines, changes);
+    }
+    
+    public List<Change> getChanges() {
+        return changes;
+    }
+    
+    public int getOldLineCount() {
+        return oldLines.size();
+    }
+    
+    public int getNewLineCount() {
+        return newLines.size();
+    }
+    
+    public int getDeletedLines() {
+        return deletedLines;
+    }
+    
+    public int getInsertedLines() {
+        return insertedLines;
+    }
+    
+    public boolean isIdentical() {
+        return changes.isEmpty();
+    }
+    
+    /**
+     * Get the old text's line at an index, without its terminator
+     */
+    public String getOldLine(int index) {
+        return oldLines.get(index);
+    }
+    
+    /**
+     * Get the new text's line at an index, without its terminator
+     */
+    public String getNewLine(int index) {
+        return newLines.get(index);
+    }
+    
+    /**
+     * Write the differences in unified diff format
+     * @param out Receives the diff; not closed
+     * @param oldName Name of the old text for the header
+     * @param newName Name of the new text for the header
+     * @param context Unchanged lines shown around each change
+     * @throws IOException If writing fails
+     */
+    public void writeUnified(Writer out, String oldName, String newName, int context) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        out.write("--- " + oldName + "\n+++ " + newName + "\n");
+        int first = 0;
+        while (first < changes.size()) {
+            // Changes whose context overlaps go in one hunk
+            int last = first;
+            while (last + 1 < changes.size() && changes.get(last + 1).getOldStart()
+                    - changes.get(last).getOldEnd() <= 2 * context) {
+                last++;
+            }
+            Change start = changes.get(first);
+            Change end = changes.get(last);
+            int oldFrom = Math.max(0, start.getOldStart() - context);
+            int newFrom = start.getNewStart() - (start.getOldStart() - oldFrom);
+            int oldTo = Math.min(oldLines.size(), end.getOldEnd() + context);
+            int newTo = end.getNewEnd() + (oldTo - end.getOldEnd());
+            out.write("@@ -" + range(oldFrom, oldTo - oldFrom) + " +" + range(newFrom, newTo - newFrom) + " @@\n");
+            int line = oldFrom;
+            for (int c = first; c <= last; c++) {
+                Change change = changes.get(c);
+                for (; line < change.getOldStart(); line++) {
+                    writeLine(out, ' ', oldLines, line);
+                }
+                for (int i = change.getOldStart(); i < change.getOldEnd(); i++) {
+                    writeLine(out, '-', oldLines, i);
+                }
+                for (int i = change.getNewStart(); i < change.getNewEnd(); i++) {
+                    writeLine(out, '+', newLines, i);
+                }
+                line = change.getOldEnd();
+            }
+            for (; line < oldTo; line++) {
+                writeLine(out, ' ', oldLines, line);
+            }
+            first = last + 1;
+        }
+        out.flush();
+    }
+    
+    /**
+     * Get the differences in unified diff format, with three lines of context
+     */
+    public String toUnifiedString() {
+        StringWriter out = new StringWriter();
+        try {
+            writeUnified(out, "old", "new", 3);
+        } catch (IOException e) {
+            // StringWriter does no I/O
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+    
+    private static String range(int from, int count) {
+        // Lines are numbered from 1; an empty range names the line before it
+        return (count == 0 ? from : from + 1) + (count == 1 ? "" : "," + count);
+    }
+    
+    private static void writeLine(Writer out, char prefix, Lines lines, int line) throws IOException {
+        out.write(prefix);
+        lines.write(out, line);
+        out.write('\n');
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d change(s): -%d +%d lines (%d -> %d lines)",
+                             changes.size(), deletedLines, insertedLines, oldLines.size(), newLines.size());
+    }
+    
+    /**
+     * Old lines [oldStart, oldStart + deletedCount) replaced by new lines
+     * [newStart, newStart + insertedCount); either run may be empty
+     */
+    public static final class Change {
+        
+        private final int oldStart;
+        private final int deletedCount;
+        private final int newStart;
+        private final int insertedCount;
+        
+        Change(int oldStart, int deletedCount, int newStart, int insertedCount) {
+            this.oldStart = oldStart;
+            this.deletedCount = deletedCount;
+            this.newStart = newStart;
+            this.insertedCount = insertedCount;
+        }
+        
+        public int getOldStart() {
+            return oldStart;
+        }
+        
+        public int getDeletedCount() {
+            return deletedCount;
+        }
+        
+        public int getOldEnd() {
+            return oldStart + deletedCount;
+        }
+        
+        public int getNewStart() {
+            return newStart;
+        }
+        
+        public int getInsertedCount() {
+            return insertedCount;
+        }
+        
+        public int getNewEnd() {
+            return newStart + insertedCount;
+        }
+        
+        @Override
+        public String toString() {
+            return "-" + range(oldStart, deletedCount) + " +" + range(newStart, insertedCount);
+        }
+    }
+    
+    /**
+     * Numbers distinct lines from 0, in an open-addressing table of line hashes
+     */
+    private static final class LineIds {
+        
+        // Slot: id + 1, or 0 if free
+        private final int[] slots;
+        private final int mask;
+        // Per id: its hash, and a line holding it
+        private int[] hashes;
+        private Lines[] owners;
+        private int[] lines;
+        private int size;
+        
+        LineIds(int capacity) {
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+            slots = new int[tableSize];
+            mask = tableSize - 1;
+            hashes = new int[16];
+            owners = new Lines[16];
+            lines = new int[16];
+        }
+        
+        int[] assign(Lines text) {
+            int[] ids = new int[text.size()];
+            for (int line = 0; line < ids.length; line++) {
+                int hash = text.hash(line);
+                // Spreads the hash, as HashMap does
+                int slot = (hash ^ hash >>> 16) * 0x9E3779B9 & mask;
+                while (true) {
+                    int id = slots[slot] - 1;
+                    if (id < 0) {
+                        ids[line] = add(hash, text, line);
+                        slots[slot] = ids[line] + 1;
+                        break;
+                    }
+                    if (hashes[id] == hash && owners[id].equals(lines[id], text, line)) {
+                        ids[line] = id;
+                        break;
+                    }
+                    slot = slot + 1 & mask;
+                }
+            }
+            return ids;
+        }
+        
+        private int add(int hash, Lines text, int line) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                owners = Arrays.copyOf(owners, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+            }
+            hashes[size] = hash;
+            owners[size] = text;
+            lines[size] = line;
+            return size++;
+        }
+        
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.utilities.texttools;
+
+/**
+ * Receives progress of a streaming text operation
+ * Called on the thread that started the operation
+ */
+public interface TextProgressListener {
+    
+    /**
+     * Called periodically while a file is processed
+     * @param bytesDone Input bytes processed so far
+     * @param totalBytes Size of the input file
+     */
+    void onProgress(long bytesDone, long totalBytes);
+}
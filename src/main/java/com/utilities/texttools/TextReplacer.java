@@ -0,0 +1,451 @@
+package com.utilities.texttools;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a set of find and replace rules to a text in a single pass
+ * All literal rules are compiled into one Aho-Corasick automaton ({@link LiteralAutomaton}),
+ * so hundreds of them cost about as much as one. Regular expression rules are compiled
+ * through a bounded cache shared by all replacers, so rebuilding a rule set does not
+ * recompile its patterns.
+ *
+ * Rules apply simultaneously, scanning left to right: at each point the match starting
+ * first wins, then the longest, then the earliest rule. Replaced text is not scanned
+ * again, so "a" to "b" and "b" to "a" swap the two letters. A single rule behaves as
+ * String.replace (literal) or String.replaceAll (regex).
+ *
+ * Input is read through a sliding window, so the text can be larger than the heap. A
+ * regex match may not be longer than the window's maximum, MAX_WINDOW_CHARS; longer
+ * matches are cut at the window's end. Lookbehind sees at most CONTEXT_CHARS before
+ * the current position. Immutable and safe to share between threads.
+ */
+public final class TextReplacer {
+    
+    // Initial and maximum size of the window text is matched in
+    private static final int WINDOW_CHARS = 64 * 1024;
+    static final int MAX_WINDOW_CHARS = 16 * 1024 * 1024;
+    // Text kept before the position when the window moves, for ^, \b and lookbehind
+    private static final int CONTEXT_CHARS = 256;
+    // Compiled patterns kept; least recently used ones are dropped beyond this
+    private static final int MAX_CACHED_PATTERNS = 256;
+    
+    // Guarded by itself
+    private static final LinkedHashMap<String, Pattern> PATTERNS =
+            new LinkedHashMap<String, Pattern>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > MAX_CACHED_PATTERNS;
+                }
+            };
+    
+    // Candidate states while scanning
+    private static final int UNKNOWN = 0;
+    private static final int FOUND = 1;
+    // No match can start before the pending position, but one may after it
+    private static final int PENDING = 2;
+    
+    private final List<ReplaceRule> rules;
+    private final LiteralAutomaton literals;
+    // Rule index of each literal pattern
+    private final int[] literalRules;
+    private final Pattern[] patterns;
+    private final int[] patternRules;
+    private final Replacement[] replacements;
+    
+    /**
+     * @param rules Rules, earlier ones winning ties
+     * @throws java.util.regex.PatternSyntaxException If a regular expression is invalid
+     * @throws IllegalArgumentException If a regex replacement refers to a missing group
+     */
+    public TextReplacer(List<ReplaceRule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        List<String> targets = new ArrayList<>();
+        List<Integer> literalIndexes = new ArrayList<>();
+        List<Pattern> compiled = new ArrayList<>();
+        List<Integer> regexIndexes = new ArrayList<>();
+        replacements = new Replacement[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            ReplaceRule rule = rules.get(i);
+            if (rule.isRegex()) {
+                Pattern pattern = compile(rule.getTarget());
+                compiled.add(pattern);
+                regexIndexes.add(i);
+                replacements[i] = Replacement.parse(rule.getReplacement(), pattern.matcher("").groupCount());
+            } else {
+                targets.add(rule.getTarget());
+                literalIndexes.add(i);
+                replacements[i] = Replacement.literal(rule.getReplacement());
+            }
+        }
+        literals = targets.isEmpty() ? null : new LiteralAutomaton(targets);
+        literalRules = literalIndexes.stream().mapToInt(Integer::intValue).toArray();
+        patterns = compiled.toArray(new Pattern[0]);
+        patternRules = regexIndexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Get a compiled pattern from the shared cache, compiling it on first use
+     * @param regex Regular expression
+     * @return The compiled pattern
+     * @throws java.util.regex.PatternSyntaxException If the expression is invalid
+     */
+    static Pattern compile(String regex) {
+        synchronized (PATTERNS) {
+            Pattern pattern = PATTERNS.get(regex);
+            if (pattern != null) {
+                return pattern;
+            }
+        }
+        Pattern pattern = Pattern.compile(regex);
+        synchronized (PATTERNS) {
+            PATTERNS.put(regex, pattern);
+        }
+        return pattern;
+    }
+    
+    /**
+     * Apply the rules to a text
+     * @param text The text
+     * @return The text with all replacements made
+     */
+    public String replace(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        StringWriter out = new StringWriter(chars.length + 16);
+        try {
+            new Run(chars, null).replace(out);
+        } catch (IOException e) {
+            // Neither side does I/O
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Apply the rules to a stream of text
+     * @param in Source of the text; not closed
+     * @param out Receives the result; flushed but not closed
+     * @return Number of replacements made
+     * @throws IOException If reading or writing fails
+     */
+    public long replace(Reader in, Writer out) throws IOException {
+        long count = new Run(new char[WINDOW_CHARS], in).replace(out);
+        out.flush();
+        return count;
+    }
+    
+    public List<ReplaceRule> getRules() {
+        return rules;
+    }
+    
+    /**
+     * State of one replacement: the window, and the next match of each kind of rule
+     */
+    private final class Run {
+        
+        private final Reader in;
+        private char[] buffer;
+        private int position;
+        private int limit;
+        private boolean eof;
+        // At its maximum size and still short of the end: matched as if it were the end
+        private boolean full;
+        
+        private final int[] literal = new int[3];
+        private int literalState = UNKNOWN;
+        private final Matcher[] matchers = new Matcher[patterns.length];
+        private final int[] regexStates = new int[patterns.length];
+        // Of each pending regex, the first start that may still match once more text follows
+        private final int[] regexPending = new int[patterns.length];
+        
+        Run(char[] buffer, Reader in) {
+            this.buffer = buffer;
+            this.in = in;
+            if (in == null) {
+                limit = buffer.length;
+                eof = true;
+            }
+            CharSequence window = new Window();
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = patterns[i].matcher(window).useTransparentBounds(true).useAnchoringBounds(false);
+            }
+        }
+        
+        long replace(Writer out) throws IOException {
+            long count = 0;
+            while (true) {
+                boolean complete = eof || full;
+                int bestStart = Integer.MAX_VALUE;
+                int bestEnd = 0;
+                int bestRule = Integer.MAX_VALUE;
+                // No match of an unfinished candidate can start before this
+                int pending = complete ? Integer.MAX_VALUE : limit;
+                
+                if (literals != null) {
+                    if (literalState == UNKNOWN || literal[0] < position) {
+                        literalState = literals.find(buffer, position, limit, complete, literal) ? FOUND : PENDING;
+                    }
+                    if (literalState == FOUND) {
+                        bestStart = literal[0];
+                        bestEnd = literal[1];
+                        bestRule = literalRules[literal[2]];
+                    } else if (!complete) {
+                        pending = Math.min(pending, literal[0]);
+                    }
+                }
+                for (int i = 0; i < matchers.length; i++) {
+                    Matcher matcher = matchers[i];
+                    if (regexStates[i] == UNKNOWN || regexStates[i] == FOUND && matcher.start() < position
+                            || regexStates[i] == PENDING && regexPending[i] < position) {
+                        matcher.region(position, limit);
+                        boolean found = matcher.find();
+                        if (found && (complete || !matcher.hitEnd())) {
+                            regexStates[i] = FOUND;
+                        } else {
+                            regexStates[i] = PENDING;
+                            regexPending[i] = complete ? Integer.MAX_VALUE
+                                    : firstOpenStart(matcher, found ? matcher.start() : limit);
+                        }
+                    }
+                    if (regexStates[i] == FOUND) {
+                        int start = matcher.start();
+                        int end = matcher.end();
+                        int rule = patternRules[i];
+                        if (start < bestStart || start == bestStart && (end > bestEnd || end == bestEnd && rule < bestRule)) {
+                            bestStart = start;
+                            bestEnd = end;
+                            bestRule = rule;
+                        }
+                    } else if (!complete) {
+                        pending = Math.min(pending, regexPending[i]);
+                    }
+                }
+                
+                if (bestStart < pending && bestRule != Integer.MAX_VALUE) {
+                    out.write(buffer, position, bestStart - position);
+                    replacements[bestRule].write(out, buffer, matcherFor(bestRule));
+                    count++;
+                    if (bestEnd > bestStart) {
+                        position = bestEnd;
+                    } else if (bestStart < limit) {
+                        // After an empty match the next character is kept, as in replaceAll
+                        out.write(buffer, bestStart, 1);
+                        position = bestStart + 1;
+                    } else {
+                        position = bestStart;
+                        if (eof) {
+                            return count;
+                        }
+                        fill();
+                    }
+                    continue;
+                }
+                if (complete) {
+                    out.write(buffer, position, limit - position);
+                    if (eof) {
+                        return count;
+                    }
+                    position = limit;
+                } else {
+                    out.write(buffer, position, pending - position);
+                    position = pending;
+                }
+                fill();
+            }
+        }
+        
+        /**
+         * Find the first start from position whose attempt ran into the end of the window
+         * A failed find always reports hitEnd, so the attempts are retried one at a time;
+         * they cost about as much as the find did, and text before the returned start can
+         * be written out instead of being rescanned after every read.
+         * @param bound Start known to be open: the match found, or limit
+         */
+        private int firstOpenStart(Matcher matcher, int bound) {
+            for (int start = position; start < bound; start++) {
+                matcher.region(start, limit);
+                if (matcher.lookingAt() || matcher.hitEnd()) {
+                    return start;
+                }
+            }
+            return bound;
+        }
+        
+        private Matcher matcherFor(int rule) {
+            int index = Arrays.binarySearch(patternRules, rule);
+            return index >= 0 ? matchers[index] : null;
+        }
+        
+        // Moves the unprocessed text to the front and reads until the window is full
+        private void fill() throws IOException {
+            int from = Math.max(0, position - CONTEXT_CHARS);
+            if (from > 0) {
+                System.arraycopy(buffer, from, buffer, 0, limit - from);
+                limit -= from;
+                position -= from;
+                full = false;
+            } else if (limit == buffer.length) {
+                if (buffer.length >= MAX_WINDOW_CHARS) {
+                    full = true;
+                    return;
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            // Short reads from pipes and sockets would otherwise rescan the window for every few chars
+            while (limit < buffer.length) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                limit += read;
+            }
+            // Candidates refer to positions that have moved, or may change with the new text
+            literalState = UNKNOWN;
+            Arrays.fill(regexStates, UNKNOWN);
+        }
+        
+        /**
+         * The window as a CharSequence for the matchers; always reflects the current buffer
+         */
+        private final class Window implements CharSequence {
+            
+            @Override
+            public int length() {
+                return limit;
+            }
+            
+            @Override
+            public char charAt(int index) {
+                return buffer[index];
+            }
+            
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return new String(buffer, start, end - start);
+            }
+            
+            @Override
+            public String toString() {
+                return new String(buffer, 0, limit);
+            }
+        }
+    }
+    
+    /**
+     * A replacement split into literal text and group references once, when compiled
+     */
+    private static final class Replacement {
+        
+        // Per part: literal text, or null for a group given by number or name
+        private final String[] texts;
+        private final int[] groups;
+        private final String[] names;
+        
+        private Replacement(List<String> texts, List<Integer> groups, List<String> names) {
+            this.texts = texts.toArray(new String[0]);
+            this.groups = groups.stream().mapToInt(Integer::intValue).toArray();
+            this.names = names.toArray(new String[0]);
+        }
+        
+        static Replacement literal(String text) {
+            return new Replacement(Collections.singletonList(text), Collections.singletonList(-1),
+                                   Collections.singletonList((String) null));
+        }
+        
+        /**
+         * Parse a replacement in Matcher.appendReplacement syntax
+         * @throws IllegalArgumentException If it is malformed or refers to a missing group
+         */
+        static Replacement parse(String replacement, int groupCount) {
+            List<String> texts = new ArrayList<>();
+            List<Integer> groups = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < replacement.length(); i++) {
+                char c = replacement.charAt(i);
+                if (c == '\\') {
+                    if (++i == replacement.length()) {
+                        throw new IllegalArgumentException("Character to be escaped is missing: " + replacement);
+                    }
+                    text.append(replacement.charAt(i));
+                    continue;
+                }
+                if (c != '$') {
+                    text.append(c);
+                    continue;
+                }
+                if (++i == replacement.length()) {
+                    throw new IllegalArgumentException("Group reference is missing: " + replacement);
+                }
+                if (text.length() > 0) {
+                    texts.add(text.toString());
+                    groups.add(-1);
+                    names.add(null);
+                    text.setLength(0);
+                }
+                if (replacement.charAt(i) == '{') {
+                    int close = replacement.indexOf('}', i);
+                    if (close < 0 || close == i + 1) {
+                        throw new IllegalArgumentException("Invalid group name: " + replacement);
+                    }
+                    texts.add(null);
+                    groups.add(-1);
+                    names.add(replacement.substring(i + 1, close));
+                    i = close;
+                    continue;
+                }
+                int group = Character.digit(replacement.charAt(i), 10);
+                if (group < 0) {
+                    throw new IllegalArgumentException("Invalid group reference: " + replacement);
+                }
+                // Further digits belong to the reference while it names an existing group
+                while (i + 1 < replacement.length()) {
+                    int digit = Character.digit(replacement.charAt(i + 1), 10);
+                    if (digit < 0 || group * 10 + digit > groupCount) {
+                        break;
+                    }
+                    group = group * 10 + digit;
+                    i++;
+                }
+                if (group > groupCount) {
+                    throw new IllegalArgumentException("No group " + group + " in pattern: " + replacement);
+                }
+                texts.add(null);
+                groups.add(group);
+                names.add(null);
+            }
+            if (text.length() > 0 || texts.isEmpty()) {
+                texts.add(text.toString());
+                groups.add(-1);
+                names.add(null);
+            }
+            return new Replacement(texts, groups, names);
+        }
+        
+        // Groups are copied straight from the window the matcher ran on
+        void write(Writer out, char[] window, Matcher matcher) throws IOException {
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] != null) {
+                    out.write(texts[i]);
+                    continue;
+                }
+                int start = names[i] != null ? matcher.start(names[i]) : matcher.start(groups[i]);
+                if (start >= 0) {
+                    int end = names[i] != null ? matcher.end(names[i]) : matcher.end(groups[i]);
+                    out.write(window, start, end - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.utilities.texttools;
+
+import java.util.Arrays;
+
+/**
+ * Character, word, line and sentence counts of a text
+ * Counts of adjacent pieces of a text combine with {@link #merge}, so a file can be
+ * counted in chunks on several threads and the results joined in file order. To make
+ * that possible each count keeps what it needs from the edges of its piece: whether
+ * it starts or ends inside a word, the partial lines at either end, and the sentence
+ * count for each state the preceding text could have left a sentence in.
+ *
+ * Definitions:
+ * - characters are Unicode code points; malformed UTF-8 counts one per invalid byte
+ * - a word is a run of characters that are not whitespace
+ * - lines are separated by '\n'; a final line without a line break counts too
+ * - a sentence is text containing a word, ended by '.', '!', '?' or an ellipsis
+ *   followed by whitespace, optionally with closing quotes or brackets in between.
+ *   "3.14" or "a.b" do not end a sentence; abbreviations such as "Mr." do.
+ *   Unterminated text at the end is a sentence as well.
+ */
+public final class TextStatistics {
+    
+    // Sentence state left by the text so far
+    private static final int OUTSIDE = 0;
+    private static final int IN_SENTENCE = 1;
+    private static final int ENDING = 2;
+    private static final int STATES = 3;
+    
+    // Character classes
+    private static final byte SPACE = 0;
+    private static final byte WORD = 1;
+    private static final byte TERMINATOR = 2;
+    private static final byte CLOSER = 3;
+    
+    private static final byte[] ASCII_CLASSES = new byte[128];
+    
+    static {
+        Arrays.fill(ASCII_CLASSES, WORD);
+        for (char c : " \t\n\u000B\f\r\u001C\u001D\u001E\u001F".toCharArray()) {
+            ASCII_CLASSES[c] = SPACE;
+        }
+        for (char c : ".!?".toCharArray()) {
+            ASCII_CLASSES[c] = TERMINATOR;
+        }
+        for (char c : "\"')]}".toCharArray()) {
+            ASCII_CLASSES[c] = CLOSER;
+        }
+    }
+    
+    /** Statistics of an empty text */
+    public static final TextStatistics EMPTY = new Counter().finish(0);
+    
+    private final long bytes;
+    private final long characters;
+    private final long whitespace;
+    private final long words;
+    private final long newlines;
+    private final boolean startsInWord;
+    private final boolean endsInWord;
+    // Lengths of the text before the first line break and after the last one
+    private final long firstLine;
+    private final long lastLine;
+    // Longest line with a line break on both sides within this text
+    private final long longestInnerLine;
+    // Sentences ended, and state left, for each state the text can start in
+    private final long[] sentences;
+    private final byte[] exits;
+    
+    private TextStatistics(long bytes, long characters, long whitespace, long words, long newlines,
+                           boolean startsInWord, boolean endsInWord, long firstLine, long lastLine,
+                           long longestInnerLine, long[] sentences, byte[] exits) {
+        this.bytes = bytes;
+        this.characters = characters;
+        this.whitespace = whitespace;
+        this.words = words;
+        this.newlines = newlines;
+        this.startsInWord = startsInWord;
+        this.endsInWord = endsInWord;
+        this.firstLine = firstLine;
+        this.lastLine = lastLine;
+        this.longestInnerLine = longestInnerLine;
+        this.sentences = sentences;
+        this.exits = exits;
+    }
+    
+    /**
+     * Combine the statistics of two adjacent pieces of text
+     * @param next Statistics of the text immediately following this one
+     * @return Statistics of both pieces as one text
+     */
+    public TextStatistics merge(TextStatistics next) {
+        // The line crossing the boundary
+        long joined = lastLine + next.firstLine;
+        long[] mergedSentences = new long[STATES];
+        byte[] mergedExits = new byte[STATES];
+        for (int state = 0; state < STATES; state++) {
+            int middle = exits[state];
+            mergedSentences[state] = sentences[state] + next.sentences[middle];
+            mergedExits[state] = next.exits[middle];
+        }
+        return new TextStatistics(
+                bytes + next.bytes,
+                characters + next.characters,
+                whitespace + next.whitespace,
+                words + next.words - (endsInWord && next.startsInWord ? 1 : 0),
+                newlines + next.newlines,
+                characters == 0 ? next.startsInWord : startsInWord,
+                next.characters == 0 ? endsInWord : next.endsInWord,
+                newlines == 0 ? joined : firstLine,
+                next.newlines == 0 ? joined : next.lastLine,
+                Math.max(Math.max(longestInnerLine, next.longestInnerLine),
+                         newlines > 0 && next.newlines > 0 ? joined : 0),
+                mergedSentences,
+                mergedExits);
+    }
+    
+    /**
+     * Get the size of the text
+     * @return Size in bytes of UTF-8, or 0 if the text was not counted from bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+    
+    /**
+     * Get the number of characters
+     * @return Unicode code points, so a character outside the BMP counts once
+     */
+    public long getCharacters() {
+        return characters;
+    }
+    
+    public long getCharactersExcludingWhitespace() {
+        return characters - whitespace;
+    }
+    
+    public long getWords() {
+        return words;
+    }
+    
+    public long getLines() {
+        return newlines + (lastLine > 0 ? 1 : 0);
+    }
+    
+    public long getSentences() {
+        return sentences[OUTSIDE] + (exits[OUTSIDE] != OUTSIDE ? 1 : 0);
+    }
+    
+    /**
+     * Get the length of the longest line
+     * @return Length in characters, not counting line breaks or carriage returns
+     */
+    public long getLongestLine() {
+        return Math.max(longestInnerLine, Math.max(firstLine, lastLine));
+    }
+    
+    /**
+     * Get the average word length
+     * @return Characters per word outside whitespace, punctuation included; 0 without words
+     */
+    public double getAverageWordLength() {
+        return words == 0 ? 0 : (double) getCharactersExcludingWhitespace() / words;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%,d characters (%,d excluding whitespace), %,d words, %,d lines, %,d sentences",
+                characters, getCharactersExcludingWhitespace(), words, getLines(), getSentences());
+    }
+    
+    private static int classify(int codePoint) {
+        if (codePoint < 128) {
+            return ASCII_CLASSES[codePoint];
+        }
+        if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+            return SPACE;
+        }
+        switch (codePoint) {
+            case '\u2026': // ellipsis
+            case '\u203C': // double exclamation mark
+            case '\u3002': // ideographic full stop
+            case '\uFF01': // fullwidth exclamation mark
+            case '\uFF0E': // fullwidth full stop
+            case '\uFF1F': // fullwidth question mark
+                return TERMINATOR;
+            case '\u00BB': // right guillemet
+            case '\u2019': // right single quotation mark
+            case '\u201D': // right double quotation mark
+                return CLOSER;
+            default:
+                return WORD;
+        }
+    }
+    
+    // Sentence state after a character of the given class
+    private static int transition(int state, int type) {
+        switch (type) {
+            case WORD:
+                return IN_SENTENCE;
+            case TERMINATOR:
+                return state == OUTSIDE ? OUTSIDE : ENDING;
+            case SPACE:
+                return state == ENDING ? OUTSIDE : state;
+            default:
+                return state;
+        }
+    }
+    
+    /**
+     * Counts a piece of text one code point at a time, or from UTF-8 bytes
+     * The sentence state at the start of the piece is unknown, so it is tracked from all
+     * three possible states until they agree, which they do at the first word character.
+     * From then on runs of ASCII are counted by a loop that keeps its state in locals.
+     */
+    static final class Counter {
+        
+        private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+        
+        private long characters;
+        private long whitespace;
+        private long words;
+        private long newlines;
+        private boolean startsInWord;
+        private boolean inWord;
+        private long firstLine;
+        private long line;
+        private long longestInnerLine;
+        
+        private final int[] states = {OUTSIDE, IN_SENTENCE, ENDING};
+        private final long[] sentences = new long[STATES];
+        private boolean converged;
+        // Once converged: the shared state and the sentences ended since
+        private int state;
+        private long sharedSentences;
+        
+        void add(int codePoint) {
+            int type = classify(codePoint);
+            if (characters++ == 0) {
+                startsInWord = type != SPACE;
+            }
+            if (codePoint == '\n') {
+                if (newlines++ == 0) {
+                    firstLine = line;
+                } else if (line > longestInnerLine) {
+                    longestInnerLine = line;
+                }
+                line = 0;
+            } else if (codePoint != '\r') {
+                line++;
+            }
+            
+            if (type == SPACE) {
+                whitespace++;
+                inWord = false;
+            } else if (!inWord) {
+                words++;
+                inWord = true;
+            }
+            
+            if (converged) {
+                if (state == ENDING && type == SPACE) {
+                    sharedSentences++;
+                }
+                state = transition(state, type);
+            } else {
+                for (int i = 0; i < STATES; i++) {
+                    if (states[i] == ENDING && type == SPACE) {
+                        sentences[i]++;
+                    }
+                    states[i] = transition(states[i], type);
+                }
+                if (states[0] == states[1] && states[1] == states[2]) {
+                    converged = true;
+                    state = states[0];
+                }
+            }
+        }
+        
+        /**
+         * Decode and count UTF-8 bytes
+         * Malformed bytes count as one replacement character each.
+         * @param bytes Buffer holding the bytes
+         * @param from Index of the first byte
+         * @param to Index after the last byte
+         * @param last False if more bytes follow, so a character cut off at the end is left
+         *             for the next call instead of being counted as malformed
+         * @return Index after the last byte consumed; to, unless last is false and the
+         *         bytes end within a character
+         */
+        int addUtf8(byte[] bytes, int from, int to, boolean last) {
+            int i = from;
+            while (i < to) {
+                int b = bytes[i];
+                if (b >= 0) {
+                    if (converged) {
+                        i = addAscii(bytes, i, to);
+                    } else {
+                        add(b);
+                        i++;
+                    }
+                    continue;
+                }
+                int extra;
+                int codePoint;
+                if ((b & 0xE0) == 0xC0) {
+                    extra = 1;
+                    codePoint = b & 0x1F;
+                } else if ((b & 0xF0) == 0xE0) {
+                    extra = 2;
+                    codePoint = b & 0x0F;
+                } else if ((b & 0xF8) == 0xF0) {
+                    extra = 3;
+                    codePoint = b & 0x07;
+                } else {
+                    // Stray continuation byte or invalid lead byte
+                    add(REPLACEMENT_CHARACTER);
+                    i++;
+                    continue;
+                }
+                int next = i + 1;
+                while (extra > 0 && next < to && (bytes[next] & 0xC0) == 0x80) {
+                    codePoint = codePoint << 6 | bytes[next] & 0x3F;
+                    next++;
+                    extra--;
+                }
+                if (extra == 0) {
+                    add(codePoint);
+                    i = next;
+                } else if (next == to && !last) {
+                    return i;
+                } else {
+                    // Truncated sequence: the lead byte is replaced, what follows is read again
+                    add(REPLACEMENT_CHARACTER);
+                    i++;
+                }
+            }
+            return to;
+        }
+        
+        // Counts ASCII bytes up to the first other byte, once the sentence state is known
+        private int addAscii(byte[] bytes, int i, int to) {
+            long characters = this.characters;
+            long whitespace = this.whitespace;
+            long words = this.words;
+            long newlines = this.newlines;
+            boolean inWord = this.inWord;
+            long line = this.line;
+            long longestInnerLine = this.longestInnerLine;
+            int state = this.state;
+            long sharedSentences = this.sharedSentences;
+            int start = i;
+            for (; i < to; i++) {
+                int b = bytes[i];
+                if (b < 0) {
+                    break;
+                }
+                int type = ASCII_CLASSES[b];
+                if (b == '\n') {
+                    if (newlines++ == 0) {
+                        firstLine = line;
+                    } else if (line > longestInnerLine) {
+                        longestInnerLine = line;
+                    }
+                    line = 0;
+                } else if (b != '\r') {
+                    line++;
+                }
+                if (type == SPACE) {
+                    whitespace++;
+                    inWord = false;
+                    if (state == ENDING) {
+                        sharedSentences++;
+                        state = OUTSIDE;
+                    }
+                } else {
+                    if (!inWord) {
+                        words++;
+                        inWord = true;
+                    }
+                    state = transition(state, type);
+                }
+            }
+            this.characters = characters + (i - start);
+            this.whitespace = whitespace;
+            this.words = words;
+            this.newlines = newlines;
+            this.inWord = inWord;
+            this.line = line;
+            this.longestInnerLine = longestInnerLine;
+            this.state = state;
+            this.sharedSentences = sharedSentences;
+            return i;
+        }
+        
+        /**
+         * @param bytes Number of bytes the counted characters were decoded from
+         * @return Statistics of everything added so far
+         */
+        TextStatistics finish(long bytes) {
+            long[] counts = new long[STATES];
+            byte[] exits = new byte[STATES];
+            for (int i = 0; i < STATES; i++) {
+                counts[i] = sentences[i] + sharedSentences;
+                exits[i] = (byte) (converged ? state : states[i]);
+            }
+            return new TextStatistics(bytes, characters, whitespace, words, newlines, startsInWord, inWord,
+                                      newlines == 0 ? line : firstLine, line, longestInnerLine, counts, exits);
+        }
+    }
+}
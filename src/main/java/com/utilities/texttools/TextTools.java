@@ -1,8 +1,416 @@
 package com.utilities.texttools;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
 /**
- * Text Tools service
+ * Text Tools service: statistics and transformations of text
+ * Files are counted without being read into a String: they are memory-mapped in
+ * chunks, split only at UTF-8 character boundaries, decoded and counted on the
+ * fork-join pool, and the per-chunk {@link TextStatistics} merged in file order.
+ * Memory use is a few chunks per thread whatever the file size, so multi-gigabyte
+ * logs are counted at close to disk (or page cache) speed.
+ *
+ * Case conversion and the other {@link TextTransform}s run through a
+ * {@link TextTransformer}, which fuses them into as few passes as possible over
+ * reusable buffers; files are streamed through one. Find and replace applies a
+ * whole set of {@link ReplaceRule}s in one pass through a {@link TextReplacer}, and
+ * texts and files are compared line by line into a {@link TextDiff}.
  */
 public class TextTools {
-    // Implementation will be added
+    
+    private static final Logger logger = Logger.getLogger(TextTools.class.getName());
+    
+    public static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+    // Bytes decoded at a time; cancellation and progress are checked between blocks
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_MILLIS = 100;
+    // Bytes read between progress reports when streaming
+    private static final long PROGRESS_BYTES = 1024 * 1024;
+    private static final int UTF8_MAX_BYTES = 4;
+    
+    private int chunkBytes = DEFAULT_CHUNK_BYTES;
+    private boolean minimalDiff;
+    
+    /**
+     * Set the size of the pieces files are counted in
+     * @param chunkBytes Bytes per chunk; chunks are moved to the next character boundary
+     */
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = Math.max(1024, chunkBytes);
+    }
+    
+    /**
+     * Set whether diffs must have the fewest possible changes
+     * @param minimalDiff True to always find a shortest edit script; false (the default) to
+     *                    allow a few extra changes when the texts differ a lot, which is faster
+     */
+    public void setMinimalDiff(boolean minimalDiff) {
+        this.minimalDiff = minimalDiff;
+    }
+    
+    /**
+     * Count the characters, words, lines and sentences of a text
+     * @param text The text
+     * @return Its statistics; bytes are reported as 0
+     */
+    public TextStatistics analyze(CharSequence text) {
+        TextStatistics.Counter counter = new TextStatistics.Counter();
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                counter.add(Character.toCodePoint(c, text.charAt(++i)));
+            } else {
+                counter.add(c);
+            }
+        }
+        return counter.finish(0);
+    }
+    
+    /**
+     * Count the characters, words, lines and sentences of a UTF-8 text file
+     * A leading byte order mark is skipped. Large files are counted in parallel.
+     * @param file Text file, UTF-8 or ASCII
+     * @param listener Receives progress as chunks are counted; may be null
+     * @return Statistics of the whole file
+     * @throws IOException If the file cannot be read
+     * @throws InterruptedIOException If the calling thread is interrupted
+     */
+    public TextStatistics analyze(File file, TextProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            long first = hasByteOrderMark(channel, size) ? 3 : 0;
+            AtomicLong done = new AtomicLong(first);
+            ChunkTask task = new ChunkTask(channel, first, size, chunkBytes, done);
+            
+            TextStatistics statistics;
+            if (size - first <= chunkBytes) {
+                statistics = task.count();
+            } else {
+                ForkJoinPool.commonPool().execute(task);
+                statistics = await(task, done, size, listener);
+            }
+            if (first > 0) {
+                statistics = new TextStatistics.Counter().finish(first).merge(statistics);
+            }
+            if (listener != null) {
+                listener.onProgress(size, size);
+            }
+            
+            logger.info("Counted " + file.getName() + " (" + size / 1024 + " KB) in "
+                    + (System.currentTimeMillis() - start) + " ms: " + statistics);
+            return statistics;
+        }
+    }
+    
+    /**
+     * Transform a UTF-8 text file into another, streaming it through a {@link TextTransformer}
+     * Memory use is fixed unless the transforms include REVERSE, which holds the text.
+     * @param input Text file to read
+     * @param output File to write, replaced if it exists
+     * @param listener Receives progress as the input is read; may be null
+     * @param transforms Transforms to apply, in order
+     * @return Number of characters written
+     * @throws IOException If a file cannot be read or written
+     * @throws InterruptedIOException If the calling thread is interrupted; the output is incomplete
+     */
+    public long transform(File input, File output, TextProgressListener listener,
+                          TextTransform... transforms) throws IOException {
+        if (input.getCanonicalFile().equals(output.getCanonicalFile())) {
+            throw new IllegalArgumentException("Input and output must be different files");
+        }
+        long start = System.currentTimeMillis();
+        long size = input.length();
+        try (Reader in = new InputStreamReader(new ProgressInputStream(new FileInputStream(input), size, listener),
+                                               StandardCharsets.UTF_8);
+             Writer out = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+            long characters = new TextTransformer(transforms).apply(in, out);
+            if (listener != null) {
+                listener.onProgress(size, size);
+            }
+            logger.info("Transformed " + input.getName() + " (" + size / 1024 + " KB) in "
+                    + (System.currentTimeMillis() - start) + " ms: " + Arrays.toString(transforms));
+            return characters;
+        }
+    }
+    
+    /**
+     * Apply find and replace rules to a UTF-8 text file, writing the result to another
+     * The file is streamed through a {@link TextReplacer}, so memory use is fixed.
+     * @param input Text file to read
+     * @param output File to write, replaced if it exists
+     * @param listener Receives progress as the input is read; may be null
+     * @param rules Rules to apply together, in one pass
+     * @return Number of replacements made
+     * @throws IOException If a file cannot be read or written
+     * @throws InterruptedIOException If the calling thread is interrupted; the output is incomplete
+     */
+    public long replace(File input, File output, TextProgressListener listener,
+                        List<ReplaceRule> rules) throws IOException {
+        if (input.getCanonicalFile().equals(output.getCanonicalFile())) {
+            throw new IllegalArgumentException("Input and output must be different files");
+        }
+        TextReplacer replacer = new TextReplacer(rules);
+        long start = System.currentTimeMillis();
+        long size = input.length();
+        try (Reader in = new InputStreamReader(new ProgressInputStream(new FileInputStream(input), size, listener),
+                                               StandardCharsets.UTF_8);
+             Writer out = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+            long count = replacer.replace(in, out);
+            if (listener != null) {
+                listener.onProgress(size, size);
+            }
+            logger.info("Made " + count + " replacements in " + input.getName() + " (" + size / 1024 + " KB) in "
+                    + (System.currentTimeMillis() - start) + " ms with " + rules.size() + " rules");
+            return count;
+        }
+    }
+    
+    /**
+     * Compare two texts line by line
+     * @param oldText The old text
+     * @param newText The new text
+     * @return The line differences
+     */
+    public TextDiff diff(CharSequence oldText, CharSequence newText) {
+        char[] oldChars = oldText.toString().toCharArray();
+        char[] newChars = newText.toString().toCharArray();
+        return TextDiff.compute(Lines.split(oldChars, oldChars.length), Lines.split(newChars, newChars.length),
+                                minimalDiff);
+    }
+    
+    /**
+     * Compare two UTF-8 text files line by line
+     * Each file is held as one char[] with two ints per line, so a million-line file costs
+     * its size in chars plus 8 MB; a leading byte order mark is skipped.
+     * @param oldFile The old version
+     * @param newFile The new version
+     * @param listener Receives progress as the files are read; may be null
+     * @return The line differences
+     * @throws IOException If a file cannot be read
+     * @throws InterruptedIOException If the calling thread is interrupted while reading
+     */
+    public TextDiff diff(File oldFile, File newFile, TextProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        long total = oldFile.length() + newFile.length();
+        Lines oldLines = readLines(oldFile, 0, total, listener);
+        Lines newLines = readLines(newFile, oldFile.length(), total, listener);
+        long read = System.currentTimeMillis();
+        TextDiff diff = TextDiff.compute(oldLines, newLines, minimalDiff);
+        if (listener != null) {
+            listener.onProgress(total, total);
+        }
+        logger.info("Compared " + oldFile.getName() + " with " + newFile.getName() + ": read in " + (read - start)
+                + " ms, compared in " + (System.currentTimeMillis() - read) + " ms: " + diff);
+        return diff;
+    }
+    
+    private static Lines readLines(File file, long offset, long total, TextProgressListener listener)
+            throws IOException {
+        long size = file.length();
+        // UTF-8 never takes fewer bytes than UTF-16 takes chars
+        if (size >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("File too large to compare: " + file.getName());
+        }
+        TextProgressListener progress = listener == null ? null
+                : (done, ignored) -> listener.onProgress(offset + done, total);
+        char[] text = new char[(int) size];
+        int length = 0;
+        try (Reader in = new InputStreamReader(new ProgressInputStream(new FileInputStream(file), size, progress),
+                                               StandardCharsets.UTF_8)) {
+            int read;
+            while (length < text.length && (read = in.read(text, length, text.length - length)) != -1) {
+                length += read;
+            }
+        }
+        if (length > 0 && text[0] == '\uFEFF') {
+            System.arraycopy(text, 1, text, 0, --length);
+        }
+        return Lines.split(text, length);
+    }
+    
+    private static TextStatistics await(ChunkTask task, AtomicLong done, long size,
+                                        TextProgressListener listener) throws IOException {
+        try {
+            while (true) {
+                try {
+                    return task.get(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (listener != null) {
+                        listener.onProgress(done.get(), size);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancelled.set(true);
+            throw new InterruptedIOException("Text analysis cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+    
+    private static boolean hasByteOrderMark(FileChannel channel, long size) throws IOException {
+        if (size < 3) {
+            return false;
+        }
+        ByteBuffer head = ByteBuffer.allocate(3);
+        channel.read(head, 0);
+        return head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF;
+    }
+    
+    /**
+     * Move a position forward to the start of a UTF-8 character
+     * Skips at most three continuation bytes, so malformed input cannot stall it.
+     */
+    private static long characterBoundary(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(UTF8_MAX_BYTES - 1);
+        channel.read(window, position);
+        for (int i = 0; i < window.position() && position + i < end; i++) {
+            if ((window.get(i) & 0xC0) != 0x80) {
+                return position + i;
+            }
+        }
+        return Math.min(end, position + window.position());
+    }
+    
+    /**
+     * Counts a byte range of a file, splitting it in half at a character boundary
+     * until it is no larger than a chunk
+     */
+    private static final class ChunkTask extends RecursiveTask<TextStatistics> {
+        
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final int chunkBytes;
+        private final AtomicLong done;
+        // Shared by all tasks of one file
+        final AtomicBoolean cancelled;
+        
+        ChunkTask(FileChannel channel, long start, long end, int chunkBytes, AtomicLong done) {
+            this(channel, start, end, chunkBytes, done, new AtomicBoolean());
+        }
+        
+        private ChunkTask(FileChannel channel, long start, long end, int chunkBytes, AtomicLong done,
+                          AtomicBoolean cancelled) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.chunkBytes = chunkBytes;
+            this.done = done;
+            this.cancelled = cancelled;
+        }
+        
+        @Override
+        protected TextStatistics compute() {
+            try {
+                if (end - start <= chunkBytes) {
+                    return count();
+                }
+                long middle = characterBoundary(channel, start + (end - start) / 2, end);
+                ChunkTask left = new ChunkTask(channel, start, middle, chunkBytes, done, cancelled);
+                ChunkTask right = new ChunkTask(channel, middle, end, chunkBytes, done, cancelled);
+                left.fork();
+                TextStatistics tail = right.compute();
+                return left.join().merge(tail);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        TextStatistics count() throws IOException {
+            int length = (int) (end - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            TextStatistics.Counter counter = new TextStatistics.Counter();
+            // Bulk copies out of the mapping are much cheaper than a get per byte
+            byte[] block = new byte[Math.min(BLOCK_BYTES, length)];
+            int carried = 0;
+            int position = 0;
+            while (position < length) {
+                if (cancelled.get()) {
+                    throw new CancellationException();
+                }
+                int read = Math.min(block.length - carried, length - position);
+                buffer.get(block, carried, read);
+                position += read;
+                int filled = carried + read;
+                int used = counter.addUtf8(block, 0, filled, position == length);
+                // Keep a character cut off at the end of the block for the next one
+                carried = filled - used;
+                System.arraycopy(block, used, block, 0, carried);
+                done.addAndGet(read);
+            }
+            return counter.finish(length);
+        }
+    }
+    
+    /**
+     * Reports bytes read to a listener and stops reading once the thread is interrupted
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        
+        private final long size;
+        private final TextProgressListener listener;
+        private long read;
+        private long reported;
+        
+        ProgressInputStream(InputStream in, long size, TextProgressListener listener) {
+            super(in);
+            this.size = size;
+            this.listener = listener;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Text transform cancelled");
+            }
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                read += count;
+                if (listener != null && read - reported >= PROGRESS_BYTES) {
+                    listener.onProgress(read, size);
+                    reported = read;
+                }
+            }
+            return count;
+        }
+    }
 }
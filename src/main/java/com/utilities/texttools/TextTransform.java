@@ -0,0 +1,40 @@
+package com.utilities.texttools;
+
+/**
+ * Text transforms that a {@link TextTransformer} applies in sequence
+ * All but REVERSE look at one character at a time, so consecutive ones are fused
+ * into a single pass over the text.
+ */
+public enum TextTransform {
+    UPPER_CASE("UPPER CASE"),
+    LOWER_CASE("lower case"),
+    TITLE_CASE("Title Case"),
+    /** Remove spaces and tabs, keeping line breaks */
+    REMOVE_SPACES("Remove Spaces"),
+    /** Collapse runs of spaces and tabs into one space and trim both ends of each line */
+    NORMALIZE_SPACES("Normalize Spaces"),
+    /** Reverse the order of the characters; needs the whole text */
+    REVERSE("Reverse");
+    
+    private final String displayName;
+    
+    TextTransform(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Check whether the transform can be applied while streaming, one character at a time
+     */
+    public boolean isStreaming() {
+        return this != REVERSE;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}